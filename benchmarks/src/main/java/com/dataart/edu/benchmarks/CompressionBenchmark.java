@@ -0,0 +1,105 @@
+package com.dataart.edu.benchmarks;
+
+import com.dataart.edu.message.dto.BaseMessageDto;
+import com.dataart.edu.message.dto.BirdSightDto;
+import com.dataart.edu.message.dto.response.ServerResponseDto;
+import com.dataart.edu.message.format.BinaryMessageReader;
+import com.dataart.edu.message.format.MessageFrame;
+import com.dataart.edu.message.format.util.ByteBufferPool;
+import com.dataart.edu.message.format.util.FrameCompression;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * CPU cost of compression of LIST_SIGHTS responses with different levels of
+ * Deflater, compared with sending of raw Kryo bytes (level 0).
+ * <p>
+ * Size of raw and compressed response in bytes is printed on setup of every
+ * trial, so CPU time can be compared with saved bytes. Run with: java -jar
+ * benchmarks/target/benchmarks.jar CompressionBenchmark
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    /**
+     * Level of compression, 0 - response is not compressed.
+     */
+    @Param({"0", "1", "6", "9"})
+    private int level;
+
+    /**
+     * Number of sightings in response.
+     */
+    @Param({"100", "1000"})
+    private int rows;
+
+    private final ByteBufferPool bufferPool = new ByteBufferPool(false, 1024 * 1024, 4);
+
+    private ServerResponseDto response;
+
+    private ByteBuffer encoded;
+
+    @Setup
+    public void setUp() {
+        List<Object> resultData = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            resultData.add(new BirdSightDto("bird" + i % 10, "location near river bank " + i % 100, 1505001600000L + i * 60000L));
+        }
+        response = new ServerResponseDto();
+        response.setResultData(resultData);
+        ByteBuffer frame = encode();
+        encoded = ByteBuffer.allocate(frame.remaining());
+        encoded.put(frame).flip();
+        bufferPool.release(frame);
+        int rawLength = BaseMessageDto.serialize(response, 1, (byte) 0).length;
+        System.out.println(String.format("%nlevel %d, %d rows: %d bytes raw, %d bytes sent", level, rows, rawLength, encoded.remaining()));
+    }
+
+    private ByteBuffer encode() {
+        ByteBuffer frame = BaseMessageDto.serialize(response, 1, MessageFrame.FLAG_ACCEPT_COMPRESSED, bufferPool);
+        return level == 0 ? frame : FrameCompression.compress(frame, level, bufferPool);
+    }
+
+    @Benchmark
+    public int encodeResponse() {
+        ByteBuffer frame = encode();
+        int length = frame.remaining();
+        bufferPool.release(frame);
+        return length;
+    }
+
+    @Benchmark
+    public Object decodeResponse() {
+        ByteBuffer body = bufferPool.acquire(encoded.remaining() - Integer.BYTES - MessageFrame.HEADER_SIZE);
+        ByteBuffer frameBody = encoded.duplicate();
+        frameBody.position(Integer.BYTES + MessageFrame.HEADER_SIZE);
+        body.put(frameBody).flip();
+        if (level != 0) {
+            body = FrameCompression.decompress(body, BinaryMessageReader.DEFAULT_MAX_FRAME_LENGTH, bufferPool);
+        }
+        ServerResponseDto decoded = BaseMessageDto.deserialize(body, ServerResponseDto.class);
+        bufferPool.release(body);
+        return decoded;
+    }
+}
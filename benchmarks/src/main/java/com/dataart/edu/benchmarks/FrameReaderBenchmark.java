@@ -0,0 +1,105 @@
+package com.dataart.edu.benchmarks;
+
+import com.dataart.edu.message.codec.MessageCodec;
+import com.dataart.edu.message.codec.MessageCodecs;
+import com.dataart.edu.message.dto.request.ClientAction;
+import com.dataart.edu.message.dto.request.SightingRequestDto;
+import com.dataart.edu.message.format.BinaryMessageReader;
+import com.dataart.edu.message.format.MessageFrame;
+import com.dataart.edu.message.format.util.ByteBufferPool;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of splitting of stream of request frames by BinaryMessageReader,
+ * when data comes from channel by chunks of different size.
+ * <p>
+ * Small chunks split almost every frame between reads, so reader must
+ * collect frame in its own buffer, big chunks contain many whole frames.
+ * Result is number of frames per microsecond. Run with GC profiler to see
+ * allocation rate: java -cp benchmarks/target/benchmarks.jar
+ * com.dataart.edu.benchmarks.WirePathBenchmarks FrameReaderBenchmark
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameReaderBenchmark {
+
+    /**
+     * Size of length and header of frame.
+     */
+    static final int FRAME_HEADER_SIZE = Integer.BYTES + MessageFrame.HEADER_SIZE;
+    /**
+     * Number of frames in stream.
+     */
+    private static final int FRAMES = 1000;
+
+    /**
+     * Number of bytes, which are read from channel at once.
+     */
+    @Param({"16", "256", "4096", "65536"})
+    private int chunkSize;
+
+    /**
+     * Is pool of direct buffers used.
+     */
+    @Param({"false", "true"})
+    private boolean direct;
+
+    private ByteBufferPool bufferPool;
+
+    private BinaryMessageReader reader;
+
+    private byte[] stream;
+
+    private ByteBuffer chunk;
+
+    private Consumer<MessageFrame> releaseBody;
+
+    @Setup
+    public void setUp() {
+        bufferPool = new ByteBufferPool(direct, 64 * 1024, 64);
+        reader = new BinaryMessageReader(null, bufferPool);
+        MessageCodec codec = MessageCodecs.defaultCodec();
+        SightingRequestDto request = new SightingRequestDto(ClientAction.ADD_SIGHT, "Common kingfisher", "river bank", 1505001600000L);
+        byte[] frame = codec.encode(request, true, 1, (byte) 0);
+        stream = new byte[frame.length * FRAMES];
+        for (int i = 0; i < FRAMES; i++) {
+            System.arraycopy(frame, 0, stream, i * frame.length, frame.length);
+        }
+        chunk = direct ? ByteBuffer.allocateDirect(chunkSize) : ByteBuffer.allocate(chunkSize);
+        releaseBody = message -> bufferPool.release(message.getBody());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public int readFrames() {
+        int frames = 0;
+        for (int offset = 0; offset < stream.length; offset += chunkSize) {
+            chunk.clear();
+            chunk.put(stream, offset, Math.min(chunkSize, stream.length - offset));
+            chunk.flip();
+            frames += reader.readMessagesFromByteBuffer(chunk, releaseBody);
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,123 @@
+package com.dataart.edu.benchmarks;
+
+import com.dataart.edu.message.codec.MessageCodec;
+import com.dataart.edu.message.codec.MessageCodecs;
+import com.dataart.edu.message.dto.BaseMessageDto;
+import com.dataart.edu.message.dto.BirdDto;
+import com.dataart.edu.message.dto.BirdSightDto;
+import com.dataart.edu.message.dto.request.AddBirdRequestDto;
+import com.dataart.edu.message.dto.request.BaseClientRequestDto;
+import com.dataart.edu.message.dto.request.ClientAction;
+import com.dataart.edu.message.dto.request.PagedListRequestDto;
+import com.dataart.edu.message.dto.request.PagedSightingRequestDto;
+import com.dataart.edu.message.dto.request.SightingRequestDto;
+import com.dataart.edu.message.dto.response.ServerResponseDto;
+import com.dataart.edu.message.format.util.ByteBufferPool;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of encoding of every message type into pooled buffer and of
+ * decoding of its body, for every codec.
+ * <p>
+ * Encoding is the same, as by BaseMessageDto.serialize, which uses default
+ * codec. Run with GC profiler to see allocation rate: java -cp
+ * benchmarks/target/benchmarks.jar com.dataart.edu.benchmarks.WirePathBenchmarks
+ * MessageCodecBenchmark
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageCodecBenchmark {
+
+    /**
+     * Name of codec.
+     */
+    @Param({"kryo", "binary"})
+    private String codecName;
+
+    /**
+     * Type of message.
+     */
+    @Param({"BASE", "ADD", "SIGHTING", "PAGED_LIST", "PAGED_SIGHTING", "RESPONSE"})
+    private String messageType;
+
+    private final ByteBufferPool bufferPool = new ByteBufferPool(false, 64 * 1024, 4);
+
+    private MessageCodec codec;
+
+    private BaseMessageDto message;
+
+    private ByteBuffer body;
+
+    @Setup
+    public void setUp() {
+        codec = MessageCodecs.byName(codecName);
+        message = createMessage(messageType);
+        ByteBuffer frame = codec.encode(message, true, 1, (byte) 0, bufferPool);
+        body = ByteBuffer.allocate(frame.remaining() - FrameReaderBenchmark.FRAME_HEADER_SIZE);
+        frame.position(FrameReaderBenchmark.FRAME_HEADER_SIZE);
+        body.put(frame).flip();
+        bufferPool.release(frame);
+        System.out.println(String.format("%n%s %s: %d bytes per message", codecName, messageType, body.remaining()));
+    }
+
+    @Benchmark
+    public int encode() {
+        ByteBuffer frame = codec.encode(message, true, 1, (byte) 0, bufferPool);
+        int length = frame.remaining();
+        bufferPool.release(frame);
+        return length;
+    }
+
+    @Benchmark
+    public BaseMessageDto decode() {
+        return codec.decode(body, BaseMessageDto.class);
+    }
+
+    /**
+     * Create typical message of type.
+     *
+     * @param messageType name of type.
+     * @return message.
+     */
+    static BaseMessageDto createMessage(String messageType) {
+        switch (messageType) {
+            case "BASE":
+                return new BaseClientRequestDto(ClientAction.REMOVE, "Common kingfisher");
+            case "ADD":
+                return new AddBirdRequestDto(ClientAction.ADD, "Common kingfisher", "blue", 0.04, 0.17);
+            case "SIGHTING":
+                return new SightingRequestDto(ClientAction.ADD_SIGHT, "Common kingfisher", "river bank", 1505001600000L);
+            case "PAGED_LIST":
+                return new PagedListRequestDto(100, new byte[]{1, 'C', 'o', 'm', 'm', 'o', 'n'});
+            case "PAGED_SIGHTING":
+                return new PagedSightingRequestDto("Common.*", "river.*", 1505001600000L, 1505088000000L, 100, null);
+            case "RESPONSE":
+                ServerResponseDto response = new ServerResponseDto();
+                response.setResultData(Arrays.asList(new BirdDto("Common kingfisher", "blue", 0.17, 0.04),
+                        new BirdSightDto("Common kingfisher", "river bank", 1505001600000L)));
+                return response;
+            default:
+                throw new IllegalArgumentException("Unknown type of message: " + messageType);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.dataart.edu.benchmarks;
+
+import com.dataart.edu.message.dto.request.AddBirdRequestDto;
+import com.dataart.edu.message.dto.request.BaseClientRequestDto;
+import com.dataart.edu.message.dto.request.ClientAction;
+import com.dataart.edu.message.dto.request.SightingRequestDto;
+import com.dataart.edu.message.format.util.KryoUtil;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Comparison of compact encoding of requests (version byte, varint code of
+ * command, varlong dates) with previous encoding, which wrote command as name
+ * and dates as fixed 8 bytes.
+ * <p>
+ * Size of encoded message in bytes is printed on setup of every trial. Run
+ * with: java -jar benchmarks/target/benchmarks.jar RequestEncodingBenchmark
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestEncodingBenchmark {
+
+    /**
+     * Type of request.
+     */
+    @Param({"ADD", "LIST_SIGHTS"})
+    private String messageType;
+
+    /**
+     * Encoding of request: compact or legacy.
+     */
+    @Param({"compact", "legacy"})
+    private String encoding;
+
+    private Kryo kryo;
+
+    private BaseClientRequestDto request;
+
+    private final Output output = new Output(1024);
+
+    private byte[] encoded;
+
+    private Input input;
+
+    @Setup
+    public void setUp() {
+        kryo = "compact".equals(encoding) ? KryoUtil.createKryo() : createLegacyKryo();
+        request = "ADD".equals(messageType)
+                ? new AddBirdRequestDto(ClientAction.ADD, "Common kingfisher", "blue", 0.04, 0.17)
+                : new SightingRequestDto(ClientAction.LIST_SIGHTS, "Common kingfisher", "river bank", 1505001600000L, 1505088000000L);
+        output.clear();
+        kryo.writeClassAndObject(output, request);
+        encoded = output.toBytes();
+        input = new Input(encoded);
+        System.out.println(String.format("%n%s %s: %d bytes per message", encoding, messageType, encoded.length));
+    }
+
+    @Benchmark
+    public int encode() {
+        output.clear();
+        kryo.writeClassAndObject(output, request);
+        return output.position();
+    }
+
+    @Benchmark
+    public Object decode() {
+        input.setPosition(0);
+        return kryo.readClassAndObject(input);
+    }
+
+    /**
+     * Kryo with previous serializers of requests.
+     */
+    private static Kryo createLegacyKryo() {
+        Kryo legacyKryo = new Kryo();
+        legacyKryo.register(AddBirdRequestDto.class, new LegacyAddBirdSerializer(), KryoUtil.ADD_BIRD_REQUEST_ID);
+        legacyKryo.register(SightingRequestDto.class, new LegacySightingSerializer(), KryoUtil.SIGHTING_REQUEST_ID);
+        return legacyKryo;
+    }
+
+    /**
+     * Previous encoding of AddBirdRequestDto: command as name.
+     */
+    private static final class LegacyAddBirdSerializer extends Serializer<AddBirdRequestDto> {
+
+        @Override
+        public void write(Kryo kryo, Output output, AddBirdRequestDto object) {
+            output.writeString(object.getCommand().name());
+            output.writeString(object.getName());
+            output.writeString(object.getColor());
+            output.writeDouble(object.getWeight());
+            output.writeDouble(object.getHeight());
+        }
+
+        @Override
+        public AddBirdRequestDto read(Kryo kryo, Input input, Class<AddBirdRequestDto> type) {
+            String action = input.readString();
+            String name = input.readString();
+            String color = input.readString();
+            double weight = input.readDouble();
+            double height = input.readDouble();
+            return new AddBirdRequestDto(ClientAction.valueOf(action), name, color, weight, height);
+        }
+    }
+
+    /**
+     * Previous encoding of SightingRequestDto: command as name, dates as fixed
+     * 8 bytes.
+     */
+    private static final class LegacySightingSerializer extends Serializer<SightingRequestDto> {
+
+        @Override
+        public void write(Kryo kryo, Output output, SightingRequestDto object) {
+            output.writeString(object.getCommand().name());
+            output.writeString(object.getName());
+            output.writeString(object.getLocation());
+            output.writeLong(object.getStart());
+            output.writeLong(object.getEnd());
+        }
+
+        @Override
+        public SightingRequestDto read(Kryo kryo, Input input, Class<SightingRequestDto> type) {
+            String action = input.readString();
+            String name = input.readString();
+            String location = input.readString();
+            long start = input.readLong();
+            long end = input.readLong();
+            return new SightingRequestDto(ClientAction.valueOf(action), name, location, start, end);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.dataart.edu.benchmarks;
+
+import com.dataart.edu.message.dto.BirdDto;
+import com.dataart.edu.message.dto.BirdSightDto;
+import com.dataart.edu.message.dto.response.ServerResponseDto;
+import com.dataart.edu.message.format.util.KryoUtil;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Comparison of registered hand-written serializers of responses with
+ * reflective Kryo serialization (FieldSerializer and class names), which was
+ * used before.
+ * <p>
+ * Size of encoded response in bytes is printed on setup of every trial. Run
+ * with: java -jar benchmarks/target/benchmarks.jar ResponseEncodingBenchmark
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseEncodingBenchmark {
+
+    /**
+     * Type of elements of response: LIST - birds, LIST_SIGHTS - sightings.
+     */
+    @Param({"LIST", "LIST_SIGHTS"})
+    private String responseType;
+
+    /**
+     * Number of elements in response.
+     */
+    @Param({"10", "1000"})
+    private int rows;
+
+    /**
+     * Serialization: registered or reflective.
+     */
+    @Param({"registered", "reflective"})
+    private String serialization;
+
+    private Kryo kryo;
+
+    private ServerResponseDto response;
+
+    private final Output output = new Output(1024, -1);
+
+    private Input input;
+
+    @Setup
+    public void setUp() {
+        kryo = "registered".equals(serialization) ? KryoUtil.createKryo() : new Kryo();
+        List<Object> resultData = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            resultData.add("LIST".equals(responseType)
+                    ? new BirdDto("bird" + i, "color" + i % 10, 0.2, 0.1)
+                    : new BirdSightDto("bird" + i % 10, "location" + i % 100, 1505001600000L + i * 60000L));
+        }
+        response = new ServerResponseDto();
+        response.setResultData(resultData);
+        byte[] encoded = encodeToBytes();
+        input = new Input(encoded);
+        System.out.println(String.format("%n%s %s %d rows: %d bytes per response", serialization, responseType, rows, encoded.length));
+    }
+
+    private byte[] encodeToBytes() {
+        output.clear();
+        kryo.writeClassAndObject(output, response);
+        return output.toBytes();
+    }
+
+    @Benchmark
+    public int encode() {
+        output.clear();
+        kryo.writeClassAndObject(output, response);
+        return output.position();
+    }
+
+    @Benchmark
+    public Object decode() {
+        input.setPosition(0);
+        return kryo.readClassAndObject(input);
+    }
+}
@@ -0,0 +1,85 @@
+package com.dataart.edu.benchmarks;
+
+import com.dataart.edu.message.codec.MessageCodec;
+import com.dataart.edu.message.codec.MessageCodecs;
+import com.dataart.edu.message.dto.BirdSightDto;
+import com.dataart.edu.message.dto.response.ServerResponseDto;
+import com.dataart.edu.message.format.util.ByteBufferPool;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of encoding of LIST_SIGHTS responses of different size into
+ * pooled buffer, for every codec.
+ * <p>
+ * Big responses do not fit into initial buffer, so they show cost of repeated
+ * encoding into bigger buffers. Size of encoded response in bytes is printed
+ * on setup of every trial. Run with GC profiler to see allocation rate: java
+ * -cp benchmarks/target/benchmarks.jar
+ * com.dataart.edu.benchmarks.WirePathBenchmarks ResponseSizeBenchmark
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseSizeBenchmark {
+
+    /**
+     * Name of codec.
+     */
+    @Param({"kryo", "binary"})
+    private String codecName;
+
+    /**
+     * Number of sightings in response.
+     */
+    @Param({"10", "1000", "100000"})
+    private int rows;
+
+    /**
+     * Pool keeps buffers up to 8 MB, so response of 100000 rows is pooled too.
+     */
+    private final ByteBufferPool bufferPool = new ByteBufferPool(false, 8 * 1024 * 1024, 4);
+
+    private MessageCodec codec;
+
+    private ServerResponseDto response;
+
+    @Setup
+    public void setUp() {
+        codec = MessageCodecs.byName(codecName);
+        List<Object> resultData = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            resultData.add(new BirdSightDto("bird" + i % 100, "location" + i % 1000, 1505001600000L + i * 60000L));
+        }
+        response = new ServerResponseDto();
+        response.setResultData(resultData);
+        System.out.println(String.format("%n%s %d rows: %d bytes per response", codecName, rows, encode()));
+    }
+
+    @Benchmark
+    public int encode() {
+        ByteBuffer frame = codec.encode(response, true, 1, (byte) 0, bufferPool);
+        int length = frame.remaining();
+        bufferPool.release(frame);
+        return length;
+    }
+}
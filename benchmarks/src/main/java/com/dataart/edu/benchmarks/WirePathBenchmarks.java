@@ -0,0 +1,47 @@
+package com.dataart.edu.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runner of benchmarks of wire path with GC profiler, so every result is
+ * reported together with allocation rate (gc.alloc.rate.norm - bytes per
+ * operation).
+ * <p>
+ * Arguments are the same, as arguments of JMH. If benchmarks are not
+ * specified, message codecs, frame reader and encoding of responses are run.
+ * Run with: java -cp benchmarks/target/benchmarks.jar
+ * com.dataart.edu.benchmarks.WirePathBenchmarks [JMH options] [benchmark ...]
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ */
+public final class WirePathBenchmarks {
+
+    /**
+     * Benchmarks, which are run by default.
+     */
+    private static final String[] DEFAULT_BENCHMARKS = {
+        MessageCodecBenchmark.class.getSimpleName(),
+        FrameReaderBenchmark.class.getSimpleName(),
+        ResponseSizeBenchmark.class.getSimpleName()};
+
+    private WirePathBenchmarks() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLineOptions).addProfiler(GCProfiler.class);
+        if (commandLineOptions.getIncludes().isEmpty()) {
+            for (String benchmark : DEFAULT_BENCHMARKS) {
+                builder.include(benchmark);
+            }
+        }
+        new Runner(builder.build()).run();
+    }
+}
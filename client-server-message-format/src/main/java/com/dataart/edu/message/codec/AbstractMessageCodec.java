@@ -0,0 +1,111 @@
+package com.dataart.edu.message.codec;
+
+import com.dataart.edu.message.dto.BaseMessageDto;
+import com.dataart.edu.message.format.MessageFrame;
+import com.dataart.edu.message.format.util.ByteBufferPool;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Base class of codecs, which writes frame around message body.
+ * <p>
+ * Place for length and header is reserved before body, and filled after
+ * body is written. If body does not fit into buffer, it is written again to
+ * buffer of twice bigger size.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ */
+public abstract class AbstractMessageCodec implements MessageCodec {
+
+    /**
+     * Initial size of buffer for serialization.
+     */
+    private final static int INITIAL_BUFFER_SIZE = 256;
+    /**
+     * Max size of serialized message.
+     */
+    private final static int MAX_MESSAGE_SIZE = MessageFrame.HEADER_PRESENT_MASK - 1 - MessageFrame.HEADER_SIZE;
+
+    /**
+     * Write message body to buffer from its position.
+     *
+     * @param message message.
+     * @param target buffer, which position is set after the end of body.
+     * @throws BufferOverflowException if body does not fit into buffer.
+     */
+    protected abstract void writeMessage(BaseMessageDto message, ByteBuffer target);
+
+    /**
+     * Read message body.
+     *
+     * @param source buffer with body between position and limit.
+     * @return message.
+     */
+    protected abstract BaseMessageDto readMessage(ByteBuffer source);
+
+    @Override
+    public ByteBuffer encode(BaseMessageDto message, boolean headerPresent, int requestId, byte flags, ByteBufferPool bufferPool) {
+        int bufferSize = INITIAL_BUFFER_SIZE;
+        while (true) {
+            ByteBuffer frame = bufferPool.acquire(bufferSize);
+            frame.clear();
+            frame.position(frameHeaderSize(headerPresent));
+            try {
+                writeMessage(message, frame);
+            } catch (BufferOverflowException e) {
+                bufferPool.release(frame);
+                if (frame.capacity() >= MAX_MESSAGE_SIZE / 2) {
+                    throw new IllegalArgumentException("Message is too big.", e);
+                }
+                bufferSize = frame.capacity() * 2;
+                continue;
+            }
+            int frameLength = frame.position();
+            writeFrameHeader(frame, frameLength, headerPresent, requestId, flags);
+            frame.limit(frameLength);
+            frame.position(0);
+            return frame;
+        }
+    }
+
+    @Override
+    public byte[] encode(BaseMessageDto message, boolean headerPresent, int requestId, byte flags) {
+        ByteBuffer frame = encode(message, headerPresent, requestId, flags, ByteBufferPool.notPooled());
+        byte[] frameAsBytes = new byte[frame.remaining()];
+        frame.get(frameAsBytes);
+        return frameAsBytes;
+    }
+
+    @Override
+    public <T extends BaseMessageDto> T decode(ByteBuffer body, Class<T> objectType) {
+        return objectType.cast(readMessage(body.slice()));
+    }
+
+    /**
+     * Size of length and header of frame.
+     *
+     * @param headerPresent is frame contains header.
+     * @return number of bytes before message.
+     */
+    private static int frameHeaderSize(boolean headerPresent) {
+        return Integer.BYTES + (headerPresent ? MessageFrame.HEADER_SIZE : 0);
+    }
+
+    /**
+     * Fill length and header at the start of frame, with absolute puts.
+     *
+     * @param frame buffer with frame from index 0.
+     * @param frameLength length of frame with leading 4 bytes of length.
+     */
+    private static void writeFrameHeader(ByteBuffer frame, int frameLength, boolean headerPresent, int requestId, byte flags) {
+        int length = frameLength - Integer.BYTES;
+        if (!headerPresent) {
+            frame.putInt(0, length);
+            return;
+        }
+        frame.putInt(0, length | MessageFrame.HEADER_PRESENT_MASK);
+        frame.put(Integer.BYTES, flags);
+        frame.putInt(Integer.BYTES + Byte.BYTES, requestId);
+    }
+}
@@ -0,0 +1,467 @@
+package com.dataart.edu.message.codec;
+
+import com.dataart.edu.message.dto.BaseMessageDto;
+import com.dataart.edu.message.dto.BirdDto;
+import com.dataart.edu.message.dto.BirdSightDto;
+import com.dataart.edu.message.dto.request.AddBirdRequestDto;
+import com.dataart.edu.message.dto.request.BaseClientRequestDto;
+import com.dataart.edu.message.dto.request.BatchRequestDto;
+import com.dataart.edu.message.dto.request.ClientAction;
+import com.dataart.edu.message.dto.request.PagedListRequestDto;
+import com.dataart.edu.message.dto.request.PagedSightingRequestDto;
+import com.dataart.edu.message.dto.request.SightingRequestDto;
+import com.dataart.edu.message.dto.request.SyncListRequestDto;
+import com.dataart.edu.message.dto.response.ServerResponseDto;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codec without dependencies, which writes messages with hand-written code
+ * directly to ByteBuffer.
+ * <p>
+ * Every message and every element of result list starts with 1 byte of
+ * type. Numbers are written as varints (signed numbers with zigzag
+ * encoding), doubles as 8 bytes, strings as varint length plus one (0 -
+ * null) and UTF-8 bytes. Fields are written in the same order, as by Kryo
+ * serializers of messages.
+ * <p>
+ * Positions of fields of sighting request can be found without decoding, so
+ * such requests can be read through {@link SightingRequestView}.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ */
+public class BinaryMessageCodec extends AbstractMessageCodec {
+
+    /**
+     * Name of codec.
+     */
+    public final static String NAME = "binary";
+
+    private final static byte BASE_CLIENT_REQUEST = 1;
+    private final static byte ADD_BIRD_REQUEST = 2;
+    private final static byte SIGHTING_REQUEST = 3;
+    private final static byte PAGED_LIST_REQUEST = 4;
+    private final static byte PAGED_SIGHTING_REQUEST = 5;
+    private final static byte SERVER_RESPONSE = 6;
+    private final static byte BIRD = 7;
+    private final static byte BIRD_SIGHT = 8;
+    private final static byte SYNC_LIST_REQUEST = 9;
+    private final static byte BATCH_REQUEST = 10;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    protected void writeMessage(BaseMessageDto message, ByteBuffer target) {
+        Class<?> type = message.getClass();
+        if (type == ServerResponseDto.class) {
+            target.put(SERVER_RESPONSE);
+            writeResponse((ServerResponseDto) message, target);
+        } else if (type == BaseClientRequestDto.class) {
+            target.put(BASE_CLIENT_REQUEST);
+            writeCommandAndName((BaseClientRequestDto) message, target);
+        } else if (type == AddBirdRequestDto.class) {
+            AddBirdRequestDto request = (AddBirdRequestDto) message;
+            target.put(ADD_BIRD_REQUEST);
+            writeCommandAndName(request, target);
+            putString(target, request.getColor());
+            target.putDouble(request.getWeight());
+            target.putDouble(request.getHeight());
+        } else if (type == SightingRequestDto.class) {
+            target.put(SIGHTING_REQUEST);
+            writeSighting((SightingRequestDto) message, target);
+        } else if (type == PagedListRequestDto.class) {
+            PagedListRequestDto request = (PagedListRequestDto) message;
+            target.put(PAGED_LIST_REQUEST);
+            writeCommandAndName(request, target);
+            putVarInt(target, request.getPageSize());
+            putBytes(target, request.getCursor());
+        } else if (type == PagedSightingRequestDto.class) {
+            PagedSightingRequestDto request = (PagedSightingRequestDto) message;
+            target.put(PAGED_SIGHTING_REQUEST);
+            writeSighting(request, target);
+            putVarInt(target, request.getPageSize());
+            putBytes(target, request.getCursor());
+        } else if (type == SyncListRequestDto.class) {
+            SyncListRequestDto request = (SyncListRequestDto) message;
+            target.put(SYNC_LIST_REQUEST);
+            writeCommandAndName(request, target);
+            putBytes(target, request.getToken());
+        } else if (type == BatchRequestDto.class) {
+            BatchRequestDto request = (BatchRequestDto) message;
+            target.put(BATCH_REQUEST);
+            writeCommandAndName(request, target);
+            writeElements(request.getItems(), target);
+        } else {
+            throw new IllegalArgumentException("Unsupported type of message: " + type.getName());
+        }
+    }
+
+    @Override
+    protected BaseMessageDto readMessage(ByteBuffer source) {
+        try {
+            byte type = source.get();
+            switch (type) {
+                case SERVER_RESPONSE:
+                    return readResponse(source);
+                case BASE_CLIENT_REQUEST:
+                    BaseClientRequestDto request = new BaseClientRequestDto();
+                    readCommandAndName(request, source);
+                    return request;
+                case ADD_BIRD_REQUEST:
+                    AddBirdRequestDto addRequest = new AddBirdRequestDto();
+                    readCommandAndName(addRequest, source);
+                    addRequest.setColor(getString(source));
+                    addRequest.setWeight(source.getDouble());
+                    addRequest.setHeight(source.getDouble());
+                    return addRequest;
+                case SIGHTING_REQUEST:
+                    return readSighting(new SightingRequestDto(), source);
+                case PAGED_LIST_REQUEST:
+                    PagedListRequestDto listRequest = new PagedListRequestDto();
+                    readCommandAndName(listRequest, source);
+                    listRequest.setPageSize(getVarInt(source));
+                    listRequest.setCursor(getBytes(source));
+                    return listRequest;
+                case PAGED_SIGHTING_REQUEST:
+                    PagedSightingRequestDto sightingRequest = readSighting(new PagedSightingRequestDto(), source);
+                    sightingRequest.setPageSize(getVarInt(source));
+                    sightingRequest.setCursor(getBytes(source));
+                    return sightingRequest;
+                case SYNC_LIST_REQUEST:
+                    SyncListRequestDto syncRequest = new SyncListRequestDto();
+                    readCommandAndName(syncRequest, source);
+                    syncRequest.setToken(getBytes(source));
+                    return syncRequest;
+                case BATCH_REQUEST:
+                    BatchRequestDto batchRequest = new BatchRequestDto();
+                    readCommandAndName(batchRequest, source);
+                    batchRequest.setItems(readElements(source));
+                    return batchRequest;
+                default:
+                    throw new IllegalArgumentException("Unknown type of message: " + type);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Message is truncated.", e);
+        }
+    }
+
+    /**
+     * Find fields of sighting request with relative reads, position of body
+     * is restored after it.
+     */
+    @Override
+    public boolean wrapSighting(ByteBuffer body, SightingRequestView view) {
+        int position = body.position();
+        if (!body.hasRemaining() || body.get(position) != SIGHTING_REQUEST) {
+            return false;
+        }
+        try {
+            body.get();
+            ClientAction command = ClientAction.fromCode(getVarInt(body));
+            int nameLength = getLength(body);
+            int nameOffset = skip(body, nameLength);
+            int locationLength = getLength(body);
+            int locationOffset = skip(body, locationLength);
+            long start = getVarLong(body);
+            long end = start + getVarLong(body);
+            view.wrap(body, command, nameOffset, nameLength, locationOffset, locationLength, start, end);
+            return true;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Message is truncated.", e);
+        } finally {
+            body.position(position);
+        }
+    }
+
+    /**
+     * Skip bytes of string.
+     *
+     * @return index of the first skipped byte.
+     */
+    private static int skip(ByteBuffer source, int length) {
+        int offset = source.position();
+        if (length > 0) {
+            source.position(offset + length);
+        }
+        return offset;
+    }
+
+    private static void writeCommandAndName(BaseClientRequestDto request, ByteBuffer target) {
+        putVarInt(target, request.getCommand().getCode());
+        putString(target, request.getName());
+    }
+
+    private static void readCommandAndName(BaseClientRequestDto request, ByteBuffer source) {
+        request.setCommand(ClientAction.fromCode(getVarInt(source)));
+        request.setName(getString(source));
+    }
+
+    private static void writeSighting(SightingRequestDto request, ByteBuffer target) {
+        writeCommandAndName(request, target);
+        putString(target, request.getLocation());
+        putVarLong(target, request.getStart());
+        putVarLong(target, request.getEnd() - request.getStart());
+    }
+
+    private static <T extends SightingRequestDto> T readSighting(T request, ByteBuffer source) {
+        readCommandAndName(request, source);
+        request.setLocation(getString(source));
+        request.setStart(getVarLong(source));
+        request.setEnd(request.getStart() + getVarLong(source));
+        return request;
+    }
+
+    private static void writeResponse(ServerResponseDto response, ByteBuffer target) {
+        target.put((byte) (response.isSuccess() ? 1 : 0));
+        putString(target, response.getError());
+        putBytes(target, response.getCursor());
+        putBytes(target, response.getSyncToken());
+        putStrings(target, response.getRemovedNames());
+        putStrings(target, response.getItemErrors());
+        writeElements(response.getResultData(), target);
+    }
+
+    /**
+     * Write list of results or of items of request: size plus one (0 - null)
+     * and elements with type.
+     */
+    private static void writeElements(List<?> resultData, ByteBuffer target) {
+        if (resultData == null) {
+            putVarInt(target, 0);
+            return;
+        }
+        putVarInt(target, resultData.size() + 1);
+        for (Object element : resultData) {
+            Class<?> type = element == null ? null : element.getClass();
+            if (type == BirdDto.class) {
+                BirdDto bird = (BirdDto) element;
+                target.put(BIRD);
+                putString(target, bird.getName());
+                putString(target, bird.getColor());
+                target.putDouble(bird.getHeight());
+                target.putDouble(bird.getWeight());
+                target.put((byte) (bird.isStored() ? 1 : 0));
+            } else if (type == BirdSightDto.class) {
+                BirdSightDto sight = (BirdSightDto) element;
+                target.put(BIRD_SIGHT);
+                putString(target, sight.getName());
+                putString(target, sight.getLocation());
+                putVarLong(target, sight.getStart());
+                putVarLong(target, sight.getEnd());
+            } else {
+                throw new IllegalArgumentException("Unsupported element of result: " + element);
+            }
+        }
+    }
+
+    private static ServerResponseDto readResponse(ByteBuffer source) {
+        ServerResponseDto response = new ServerResponseDto();
+        response.setSuccess(source.get() != 0);
+        response.setError(getString(source));
+        response.setCursor(getBytes(source));
+        response.setSyncToken(getBytes(source));
+        response.setRemovedNames(getStrings(source));
+        response.setItemErrors(getStrings(source));
+        response.setResultData(readElements(source));
+        return response;
+    }
+
+    private static List<Object> readElements(ByteBuffer source) {
+        int sizeAndOne = getVarInt(source);
+        if (sizeAndOne == 0) {
+            return null;
+        }
+        int size = checkSize(sizeAndOne - 1, source);
+        List<Object> resultData = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            byte type = source.get();
+            if (type == BIRD) {
+                BirdDto bird = new BirdDto();
+                bird.setName(getString(source));
+                bird.setColor(getString(source));
+                bird.setHeight(source.getDouble());
+                bird.setWeight(source.getDouble());
+                bird.setStored(source.get() != 0);
+                resultData.add(bird);
+            } else if (type == BIRD_SIGHT) {
+                BirdSightDto sight = new BirdSightDto();
+                sight.setName(getString(source));
+                sight.setLocation(getString(source));
+                sight.setStart(getVarLong(source));
+                sight.setEnd(getVarLong(source));
+                resultData.add(sight);
+            } else {
+                throw new IllegalArgumentException("Unknown type of element: " + type);
+            }
+        }
+        return resultData;
+    }
+
+    /**
+     * Write list of strings as size plus one (0 - null) and strings.
+     */
+    private static void putStrings(ByteBuffer target, List<String> values) {
+        if (values == null) {
+            putVarInt(target, 0);
+            return;
+        }
+        putVarInt(target, values.size() + 1);
+        for (String value : values) {
+            putString(target, value);
+        }
+    }
+
+    private static List<String> getStrings(ByteBuffer source) {
+        int sizeAndOne = getVarInt(source);
+        if (sizeAndOne == 0) {
+            return null;
+        }
+        int size = checkSize(sizeAndOne - 1, source);
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(getString(source));
+        }
+        return values;
+    }
+
+    /**
+     * Check size of list before allocation: every element takes at least 1
+     * byte, it protects from huge allocation.
+     *
+     * @return size.
+     */
+    private static int checkSize(int size, ByteBuffer source) {
+        if (size > source.remaining()) {
+            throw new IllegalArgumentException("Invalid size of result: " + size);
+        }
+        return size;
+    }
+
+    /**
+     * Write not negative int as varint: 7 bits per byte, the highest bit
+     * shows, that more bytes follow.
+     */
+    private static void putVarInt(ByteBuffer target, int value) {
+        while ((value & ~0x7F) != 0) {
+            target.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        target.put((byte) value);
+    }
+
+    private static int getVarInt(ByteBuffer source) {
+        int result = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            byte b = source.get();
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint.");
+    }
+
+    /**
+     * Write long as zigzag varlong, so small negative numbers take few bytes
+     * too.
+     */
+    private static void putVarLong(ByteBuffer target, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            target.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        target.put((byte) zigzag);
+    }
+
+    private static long getVarLong(ByteBuffer source) {
+        long zigzag = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = source.get();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IllegalArgumentException("Malformed varlong.");
+    }
+
+    /**
+     * Write string. ASCII strings are written char by char without
+     * intermediate array.
+     */
+    private static void putString(ByteBuffer target, String value) {
+        if (value == null) {
+            putVarInt(target, 0);
+            return;
+        }
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) >= 0x80) {
+                putBytes(target, value.getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+        }
+        putVarInt(target, length + 1);
+        if (target.remaining() < length) {
+            throw new java.nio.BufferOverflowException();
+        }
+        for (int i = 0; i < length; i++) {
+            target.put((byte) value.charAt(i));
+        }
+    }
+
+    private static String getString(ByteBuffer source) {
+        int length = getLength(source);
+        if (length < 0) {
+            return null;
+        }
+        if (source.hasArray()) {
+            String value = new String(source.array(), source.arrayOffset() + source.position(), length, StandardCharsets.UTF_8);
+            source.position(source.position() + length);
+            return value;
+        }
+        byte[] bytes = new byte[length];
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putBytes(ByteBuffer target, byte[] value) {
+        if (value == null) {
+            putVarInt(target, 0);
+            return;
+        }
+        putVarInt(target, value.length + 1);
+        target.put(value);
+    }
+
+    private static byte[] getBytes(ByteBuffer source) {
+        int length = getLength(source);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        source.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Read length of string or byte array.
+     *
+     * @return length or -1 for null.
+     */
+    private static int getLength(ByteBuffer source) {
+        int length = getVarInt(source) - 1;
+        if (length > source.remaining()) {
+            throw new IllegalArgumentException("Invalid length: " + length);
+        }
+        return length;
+    }
+}
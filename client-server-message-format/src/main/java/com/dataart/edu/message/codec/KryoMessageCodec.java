@@ -0,0 +1,119 @@
+package com.dataart.edu.message.codec;
+
+import com.dataart.edu.message.dto.BaseMessageDto;
+import com.dataart.edu.message.format.util.KryoUtil;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.ByteBufferInput;
+import com.esotericsoftware.kryo.io.ByteBufferOutput;
+import com.esotericsoftware.kryo.io.Input;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Codec, which writes messages with Kryo and serializers registered in
+ * {@link KryoUtil}.
+ * <p>
+ * Kryo is not thread safe, so every operation borrows Kryo instance from
+ * bounded pool and returns it after use. If pool is empty, new instance is
+ * created, if pool is full, returned instance is dropped. So number of kept
+ * instances does not depend on number of threads.
+ *
+ * @see Information about
+ * <a href="https://github.com/EsotericSoftware/kryo">Kryo project</a>.
+ * @author alitvinov
+ * @version 1.0.0
+ */
+public class KryoMessageCodec extends AbstractMessageCodec {
+
+    /**
+     * Name of codec.
+     */
+    public final static String NAME = "kryo";
+    /**
+     * Default max number of Kryo instances in pool.
+     */
+    private final static int DEFAULT_POOL_SIZE = 2 * Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Free Kryo instances.
+     */
+    private final Queue<Kryo> kryoPool;
+
+    /**
+     * Create codec with default size of pool.
+     */
+    public KryoMessageCodec() {
+        this(DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * Create codec.
+     *
+     * @param poolSize max number of free Kryo instances, which are kept.
+     */
+    public KryoMessageCodec(int poolSize) {
+        kryoPool = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    protected void writeMessage(BaseMessageDto message, ByteBuffer target) {
+        Kryo kryo = borrowKryo();
+        try {
+            ByteBufferOutput output = new TargetBufferOutput(target);
+            output.setPosition(target.position());
+            kryo.writeClassAndObject(output, message);
+            target.position(output.position());
+        } finally {
+            releaseKryo(kryo);
+        }
+    }
+
+    @Override
+    protected BaseMessageDto readMessage(ByteBuffer source) {
+        Kryo kryo = borrowKryo();
+        try (Input in = new ByteBufferInput(source)) {
+            return (BaseMessageDto) kryo.readClassAndObject(in);
+        } finally {
+            releaseKryo(kryo);
+        }
+    }
+
+    private Kryo borrowKryo() {
+        Kryo kryo = kryoPool.poll();
+        return kryo != null ? kryo : KryoUtil.createKryo();
+    }
+
+    private void releaseKryo(Kryo kryo) {
+        kryoPool.offer(kryo);
+    }
+
+    /**
+     * Output, which writes only to target buffer: it is never grown or
+     * flushed, and BufferOverflowException is thrown, when message does not
+     * fit into target. Byte order of target is restored before it, as Kryo
+     * does before its own overflow error.
+     */
+    private final static class TargetBufferOutput extends ByteBufferOutput {
+
+        private TargetBufferOutput(ByteBuffer target) {
+            super(target);
+        }
+
+        @Override
+        protected boolean require(int required) {
+            if (capacity - position < required) {
+                //some writes switch byte order of buffer temporarily.
+                niobuffer.order(order());
+                throw new BufferOverflowException();
+            }
+            return false;
+        }
+    }
+}
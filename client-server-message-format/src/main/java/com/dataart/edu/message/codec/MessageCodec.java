@@ -0,0 +1,82 @@
+package com.dataart.edu.message.codec;
+
+import com.dataart.edu.message.dto.BaseMessageDto;
+import com.dataart.edu.message.format.util.ByteBufferPool;
+import java.nio.ByteBuffer;
+
+/**
+ * Codec, which transforms messages to bytes and back.
+ * <p>
+ * Codec writes whole frame: leading 4 bytes of length, header, if it is
+ * present, and message body, format of frame is described in
+ * {@link com.dataart.edu.message.format.MessageFrame}. Encoding of body is
+ * specific for codec, so client and server must use the same codec.
+ * <p>
+ * Implementations must be thread safe. They are found by name with
+ * {@link java.util.ServiceLoader}, see {@link MessageCodecs}.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ * @see MessageCodecs
+ */
+public interface MessageCodec {
+
+    /**
+     * Name of codec, which is used in configuration.
+     *
+     * @return name of codec, for example kryo.
+     */
+    String getName();
+
+    /**
+     * Serialize message directly into buffer from pool.
+     *
+     * @param message message which must be serialized.
+     * @param headerPresent must frame contain header.
+     * @param requestId ID of request for header.
+     * @param flags flags of frame for header.
+     * @param bufferPool pool of buffers.
+     * @return buffer from pool with frame between position and limit. It must
+     * be returned to pool after writing.
+     */
+    ByteBuffer encode(BaseMessageDto message, boolean headerPresent, int requestId, byte flags, ByteBufferPool bufferPool);
+
+    /**
+     * Serialize message to byte array.
+     *
+     * @param message message which must be serialized.
+     * @param headerPresent must frame contain header.
+     * @param requestId ID of request for header.
+     * @param flags flags of frame for header.
+     * @return frame as byte array.
+     */
+    byte[] encode(BaseMessageDto message, boolean headerPresent, int requestId, byte flags);
+
+    /**
+     * Read message of specific type. Message is created with its concrete
+     * type, which can be descendant of objectType.
+     *
+     * @param <T> type of message.
+     * @param body buffer with message body between position and limit, heap
+     * or direct. Position of buffer is not changed.
+     * @param objectType class of message, that must be read.
+     * @return deserialized message.
+     * @throws ClassCastException if message is not instance of objectType.
+     */
+    <T extends BaseMessageDto> T decode(ByteBuffer body, Class<T> objectType);
+
+    /**
+     * Point view to fields of sighting request without decoding of message.
+     * Codecs, which can not find fields without decoding, return false, and
+     * message must be read with {@link #decode(ByteBuffer, Class)}.
+     *
+     * @param body buffer with message body between position and limit.
+     * Position of buffer is not changed.
+     * @param view view, which is pointed to fields of request.
+     * @return true if body contains sighting request and view was pointed to
+     * it.
+     */
+    default boolean wrapSighting(ByteBuffer body, SightingRequestView view) {
+        return false;
+    }
+}
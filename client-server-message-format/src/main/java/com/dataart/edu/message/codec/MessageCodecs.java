@@ -0,0 +1,58 @@
+package com.dataart.edu.message.codec;
+
+import java.util.ServiceLoader;
+
+/**
+ * Lookup of codecs by name.
+ * <p>
+ * Codecs are found with {@link ServiceLoader}, so new codec can be added
+ * with its class name in file
+ * META-INF/services/com.dataart.edu.message.codec.MessageCodec, without
+ * changes of server and client.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ * @see MessageCodec
+ */
+public final class MessageCodecs {
+
+    /**
+     * Codec, which is used when codec is not configured.
+     */
+    private static final MessageCodec DEFAULT_CODEC = new KryoMessageCodec();
+
+    /**
+     * Make private in order nobody can create instance of this class.
+     */
+    private MessageCodecs() {
+    }
+
+    /**
+     * Get default codec, shared by all users.
+     *
+     * @return Kryo codec.
+     */
+    public static MessageCodec defaultCodec() {
+        return DEFAULT_CODEC;
+    }
+
+    /**
+     * Find codec by name. For name of default codec shared instance is
+     * returned, other codecs are created on every call.
+     *
+     * @param name name of codec, for example "kryo" or "binary".
+     * @return codec.
+     * @throws IllegalArgumentException if codec with such name is not found.
+     */
+    public static MessageCodec byName(String name) {
+        if (DEFAULT_CODEC.getName().equals(name)) {
+            return DEFAULT_CODEC;
+        }
+        for (MessageCodec codec : ServiceLoader.load(MessageCodec.class, MessageCodec.class.getClassLoader())) {
+            if (codec.getName().equals(name)) {
+                return codec;
+            }
+        }
+        throw new IllegalArgumentException("Unknown codec: " + name);
+    }
+}
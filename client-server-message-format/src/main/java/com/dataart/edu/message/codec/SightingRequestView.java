@@ -0,0 +1,135 @@
+package com.dataart.edu.message.codec;
+
+import com.dataart.edu.message.dto.request.ClientAction;
+import com.dataart.edu.message.dto.request.SightingRequestDto;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Read-only flyweight view of sighting request over received message body.
+ * <p>
+ * Codec only finds positions of fields in buffer, numbers are read once,
+ * strings are decoded on first access. So one instance can be reused for
+ * many requests, and request, which fields are only compared or copied, does
+ * not create objects. View is valid, while buffer is not released or
+ * changed, it is not thread safe.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ * @see MessageCodec#wrapSighting(ByteBuffer, SightingRequestView)
+ */
+public final class SightingRequestView {
+
+    private ByteBuffer buffer;
+    private ClientAction command;
+    private int nameOffset;
+    private int nameLength;
+    private int locationOffset;
+    private int locationLength;
+    private long start;
+    private long end;
+    private String name;
+    private String location;
+    /**
+     * Reused copy of string bytes of direct buffer, it grows to the longest
+     * string.
+     */
+    private byte[] stringBytes = new byte[0];
+
+    /**
+     * Point view to fields of request in buffer.
+     *
+     * @param buffer buffer with message body.
+     * @param nameOffset absolute index of UTF-8 bytes of name.
+     * @param nameLength number of bytes of name, -1 for null.
+     * @param locationOffset absolute index of UTF-8 bytes of location.
+     * @param locationLength number of bytes of location, -1 for null.
+     */
+    void wrap(ByteBuffer buffer, ClientAction command, int nameOffset, int nameLength, int locationOffset, int locationLength,
+            long start, long end) {
+        this.buffer = buffer;
+        this.command = command;
+        this.nameOffset = nameOffset;
+        this.nameLength = nameLength;
+        this.locationOffset = locationOffset;
+        this.locationLength = locationLength;
+        this.start = start;
+        this.end = end;
+        this.name = null;
+        this.location = null;
+    }
+
+    /**
+     * Get command of request.
+     *
+     * @return command.
+     */
+    public ClientAction getCommand() {
+        return command;
+    }
+
+    /**
+     * Get start of sighting.
+     *
+     * @return start of sighting in milliseconds.
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Get end of sighting.
+     *
+     * @return end of sighting in milliseconds.
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Get name of bird, it is decoded on first call.
+     *
+     * @return name or null.
+     */
+    public String getName() {
+        if (name == null && nameLength >= 0) {
+            name = decode(nameOffset, nameLength);
+        }
+        return name;
+    }
+
+    /**
+     * Get location of sighting, it is decoded on first call.
+     *
+     * @return location or null.
+     */
+    public String getLocation() {
+        if (location == null && locationLength >= 0) {
+            location = decode(locationOffset, locationLength);
+        }
+        return location;
+    }
+
+    /**
+     * Create request with the same fields, for code, which needs message
+     * object.
+     *
+     * @return request.
+     */
+    public SightingRequestDto toRequest() {
+        return new SightingRequestDto(command, getName(), getLocation(), start, end);
+    }
+
+    private String decode(int offset, int length) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+        }
+        if (stringBytes.length < length) {
+            stringBytes = new byte[length];
+        }
+        for (int i = 0; i < length; i++) {
+            stringBytes[i] = buffer.get(offset + i);
+        }
+        return new String(stringBytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
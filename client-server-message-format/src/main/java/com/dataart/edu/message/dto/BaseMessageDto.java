@@ -1,10 +1,9 @@
 package com.dataart.edu.message.dto;
 
-import com.dataart.edu.message.format.util.KryoUtil;
-import com.esotericsoftware.kryo.io.Input;
-import com.esotericsoftware.kryo.io.Output;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import com.dataart.edu.message.codec.MessageCodec;
+import com.dataart.edu.message.codec.MessageCodecs;
+import com.dataart.edu.message.format.MessageFrame;
+import com.dataart.edu.message.format.util.ByteBufferPool;
 import java.nio.ByteBuffer;
 
 /**
@@ -17,9 +16,13 @@ import java.nio.ByteBuffer;
  * <li> Using Kryo Java library - it is fast and resource effective
  * <li> No additional deserialization need (to JSON or XML)
  * </ul>
+ * Static methods of this class use default codec,
+ * {@link MessageCodecs#defaultCodec()}. Other encodings are available through
+ * {@link MessageCodec}.
  *
  * @see Information about
  * <a href="https://github.com/EsotericSoftware/kryo">Kryo project</a>.
+ * @see MessageCodec
  * @author alitvinov
  * @version 1.0.0
  * @since 2017-09-07
@@ -35,18 +38,58 @@ public class BaseMessageDto {
      * array.
      */
     public static byte[] serialize(BaseMessageDto message) {
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        try (Output output = new Output(bos);) {
-            KryoUtil.getKryoForThread().writeObject(output, message);
-        }
-        ByteBuffer messageByteBuffer = ByteBuffer.allocate(Integer.BYTES + bos.toByteArray().length);
-        messageByteBuffer.putInt(bos.toByteArray().length);
-        messageByteBuffer.put(bos.toByteArray());
-        return messageByteBuffer.array();
+        return MessageCodecs.defaultCodec().encode(message, false, 0, (byte) 0);
     }
 
     /**
-     * Read message of specific type from byte array.
+     * Transforming of message to byte array using Kryo, with leading 4 bytes
+     * with length and header with request ID. Format of frame is described in
+     * {@link MessageFrame}.
+     *
+     * @param message message which must be serialized.
+     * @param requestId ID of request, which allows to match response with
+     * request.
+     * @param flags flags of frame, for example
+     * {@link MessageFrame#FLAG_OUT_OF_ORDER}.
+     * @return byte[] - 4 bytes with length + header + <b>this</b> converted to
+     * byte array.
+     */
+    public static byte[] serialize(BaseMessageDto message, int requestId, byte flags) {
+        return MessageCodecs.defaultCodec().encode(message, true, requestId, flags);
+    }
+
+    /**
+     * Serialize message with leading 4 bytes of length directly into buffer
+     * from pool, without intermediate arrays.
+     *
+     * @param message message which must be serialized.
+     * @param bufferPool pool of buffers.
+     * @return buffer from pool with frame between position and limit. It must
+     * be returned to pool after writing.
+     */
+    public static ByteBuffer serialize(BaseMessageDto message, ByteBufferPool bufferPool) {
+        return MessageCodecs.defaultCodec().encode(message, false, 0, (byte) 0, bufferPool);
+    }
+
+    /**
+     * Serialize message with leading 4 bytes of length and header with request
+     * ID directly into buffer from pool, without intermediate arrays.
+     *
+     * @param message message which must be serialized.
+     * @param requestId ID of request, which allows to match response with
+     * request.
+     * @param flags flags of frame.
+     * @param bufferPool pool of buffers.
+     * @return buffer from pool with frame between position and limit. It must
+     * be returned to pool after writing.
+     */
+    public static ByteBuffer serialize(BaseMessageDto message, int requestId, byte flags, ByteBufferPool bufferPool) {
+        return MessageCodecs.defaultCodec().encode(message, true, requestId, flags, bufferPool);
+    }
+
+    /**
+     * Read message of specific type from byte array. Message is created with
+     * its concrete type, which can be descendant of objectType.
      *
      * @param <T> generic type of, message, that must be read. Must be
      * descendant of BaseMessage.
@@ -54,12 +97,27 @@ public class BaseMessageDto {
      * @param objectType Class of message, that must be read.
      *
      * @return deserialized message with type T.
+     * @throws ClassCastException if message is not instance of objectType.
      */
     public static <T extends BaseMessageDto> T deserialize(byte[] messageAsBytes, Class<T> objectType) {
-        ByteArrayInputStream bis = new ByteArrayInputStream(messageAsBytes);
-        try (Input in = new Input(bis);) {
-            return KryoUtil.getKryoForThread().readObject(in, objectType);
-        }
+        return MessageCodecs.defaultCodec().decode(ByteBuffer.wrap(messageAsBytes), objectType);
+    }
+
+    /**
+     * Read message of specific type from ByteBuffer. Message is created with
+     * its concrete type, which can be descendant of objectType.
+     *
+     * @param <T> generic type of, message, that must be read. Must be
+     * descendant of BaseMessage.
+     * @param messageBuffer buffer with message between position and limit,
+     * heap or direct. Position of buffer is not changed.
+     * @param objectType Class of message, that must be read.
+     *
+     * @return deserialized message with type T.
+     * @throws ClassCastException if message is not instance of objectType.
+     */
+    public static <T extends BaseMessageDto> T deserialize(ByteBuffer messageBuffer, Class<T> objectType) {
+        return MessageCodecs.defaultCodec().decode(messageBuffer, objectType);
     }
 
 }
@@ -1,5 +1,9 @@
 package com.dataart.edu.message.dto;
 
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -39,4 +43,40 @@ public class BirdDto {
         this.weight = weight;
     }
 
+    /**
+     * Serializer for BirdDto.
+     */
+    public final static class BirdDtoSerializer extends Serializer<BirdDto> {
+
+        /**
+         * Write BirdDto to KRYO.
+         *
+         * @param kryo KRYO
+         * @param output output
+         * @param object BirdDto object
+         */
+        @Override
+        public void write(Kryo kryo, Output output, BirdDto object) {
+            output.writeString(object.getName());
+            output.writeString(object.getColor());
+            output.writeDouble(object.getHeight());
+            output.writeDouble(object.getWeight());
+            output.writeBoolean(object.isStored());
+        }
+
+        /**
+         * Read BirdDto from KRYO.
+         *
+         * @param kryo KRYO
+         * @param input input
+         * @param type BirdDto class
+         * @return BirdDto object
+         */
+        @Override
+        public BirdDto read(Kryo kryo, Input input, Class<BirdDto> type) {
+            BirdDto bird = new BirdDto(input.readString(), input.readString(), input.readDouble(), input.readDouble());
+            bird.setStored(input.readBoolean());
+            return bird;
+        }
+    }
 }
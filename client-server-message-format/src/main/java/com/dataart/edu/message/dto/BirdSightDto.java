@@ -1,5 +1,9 @@
 package com.dataart.edu.message.dto;
 
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -50,4 +54,43 @@ public class BirdSightDto {
         this.start = start;
         this.end = end;
     }
+
+    /**
+     * Serializer for BirdSightDto. Dates are written as zigzag varlong, end of
+     * stored sighting is 0 and takes one byte.
+     */
+    public final static class BirdSightDtoSerializer extends Serializer<BirdSightDto> {
+
+        /**
+         * Write BirdSightDto to KRYO.
+         *
+         * @param kryo KRYO
+         * @param output output
+         * @param object BirdSightDto object
+         */
+        @Override
+        public void write(Kryo kryo, Output output, BirdSightDto object) {
+            output.writeString(object.getName());
+            output.writeString(object.getLocation());
+            output.writeVarLong(object.getStart(), false);
+            output.writeVarLong(object.getEnd(), false);
+        }
+
+        /**
+         * Read BirdSightDto from KRYO.
+         *
+         * @param kryo KRYO
+         * @param input input
+         * @param type BirdSightDto class
+         * @return BirdSightDto object
+         */
+        @Override
+        public BirdSightDto read(Kryo kryo, Input input, Class<BirdSightDto> type) {
+            String name = input.readString();
+            String location = input.readString();
+            long start = input.readVarLong(false);
+            long end = input.readVarLong(false);
+            return new BirdSightDto(name, location, start, end);
+        }
+    }
 }
@@ -52,8 +52,7 @@ public class AddBirdRequestDto extends BaseClientRequestDto {
          */
         @Override
         public void write(Kryo kryo, Output output, AddBirdRequestDto object) {
-            output.writeString(object.getCommand().name());
-            output.writeString(object.getName());
+            writeCommandAndName(output, object);
             output.writeString(object.getColor());
             output.writeDouble(object.getWeight());
             output.writeDouble(object.getHeight());
@@ -69,12 +68,12 @@ public class AddBirdRequestDto extends BaseClientRequestDto {
          */
         @Override
         public AddBirdRequestDto read(Kryo kryo, Input input, Class<AddBirdRequestDto> type) {
-            String action = input.readString();
+            ClientAction action = readCommand(input);
             String name = input.readString();
             String color = input.readString();
             double weight = input.readDouble();
             double height = input.readDouble();
-            return new AddBirdRequestDto(ClientAction.valueOf(action), name, color, weight, height);
+            return new AddBirdRequestDto(action, name, color, weight, height);
         }
     }
 }
@@ -2,6 +2,7 @@ package com.dataart.edu.message.dto.request;
 
 import com.dataart.edu.message.dto.BaseMessageDto;
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
@@ -10,6 +11,10 @@ import lombok.NoArgsConstructor;
 
 /**
  * Base class for request, which will be send from client program to server.
+ * <p>
+ * Every request starts with version of encoding (1 byte) and code of command
+ * (varint), see {@link ClientAction#getCode()}, followed by name and fields of
+ * concrete request.
  *
  * @see BaseMessageDto
  * @author alitvinov
@@ -20,6 +25,11 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class BaseClientRequestDto extends BaseMessageDto {
 
+    /**
+     * Version of binary encoding of requests.
+     */
+    public final static byte ENCODING_VERSION = 1;
+
     private ClientAction command;
 
     private String name;
@@ -42,6 +52,70 @@ public class BaseClientRequestDto extends BaseMessageDto {
         this.command = command;
         this.name = name;
     }               
+
+    /**
+     * Write version of encoding, code of command and name of request.
+     *
+     * @param output output.
+     * @param object request.
+     */
+    protected static void writeCommandAndName(Output output, BaseClientRequestDto object) {
+        output.writeByte(ENCODING_VERSION);
+        output.writeVarInt(object.getCommand().getCode(), true);
+        output.writeString(object.getName());
+    }
+
+    /**
+     * Check version of encoding and read code of command.
+     *
+     * @param input input.
+     * @return command of request.
+     * @throws KryoException if version of encoding is not supported.
+     */
+    protected static ClientAction readCommand(Input input) {
+        byte version = input.readByte();
+        if (version != ENCODING_VERSION) {
+            throw new KryoException("Unsupported version of request encoding: " + version);
+        }
+        return ClientAction.fromCode(input.readVarInt(true));
+    }
+    
+    /**
+     * Write size of page and cursor of page request.
+     *
+     * @param output output.
+     * @param page page request.
+     */
+    protected static void writePage(Output output, PageRequest page) {
+        output.writeVarInt(page.getPageSize(), true);
+        writeCursor(output, page.getCursor());
+    }
+
+    /**
+     * Write cursor as varint length plus one (0 - null) and bytes.
+     *
+     * @param output output.
+     * @param cursor cursor or null.
+     */
+    public static void writeCursor(Output output, byte[] cursor) {
+        if (cursor == null) {
+            output.writeVarInt(0, true);
+            return;
+        }
+        output.writeVarInt(cursor.length + 1, true);
+        output.writeBytes(cursor);
+    }
+
+    /**
+     * Read cursor, which was written by {@link #writeCursor}.
+     *
+     * @param input input.
+     * @return cursor or null.
+     */
+    public static byte[] readCursor(Input input) {
+        int lengthAndOne = input.readVarInt(true);
+        return lengthAndOne == 0 ? null : input.readBytes(lengthAndOne - 1);
+    }
     
     /**
      * Serializer for BaseClientRequestDto.
@@ -56,8 +130,7 @@ public class BaseClientRequestDto extends BaseMessageDto {
          */
         @Override
         public void write(Kryo kryo, Output output, BaseClientRequestDto object) {
-            output.writeString(object.getCommand().name());
-            output.writeString(object.getName());
+            writeCommandAndName(output, object);
         }
 
         /**
@@ -69,9 +142,9 @@ public class BaseClientRequestDto extends BaseMessageDto {
          */
         @Override
         public BaseClientRequestDto read(Kryo kryo, Input input, Class<BaseClientRequestDto> type) {
-            String action=input.readString();
-            String name=input.readString();            
-            return new BaseClientRequestDto(ClientAction.valueOf(action), name);
+            ClientAction action = readCommand(input);
+            String name = input.readString();
+            return new BaseClientRequestDto(action, name);
         }        
     }
 }
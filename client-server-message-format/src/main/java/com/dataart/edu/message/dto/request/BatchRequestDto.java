@@ -0,0 +1,81 @@
+package com.dataart.edu.message.dto.request;
+
+import com.dataart.edu.message.dto.response.ServerResponseDto.ServerResponseDtoSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import java.util.List;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for request, which carries many items in one frame: birds for
+ * ADD_BATCH, or sightings for ADD_SIGHT_BATCH.
+ * <p>
+ * All items are added by server at once, and request is answered with one
+ * response, which contains error of every item, see
+ * {@link com.dataart.edu.message.dto.response.ServerResponseDto#getItemErrors()}.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class BatchRequestDto extends BaseClientRequestDto {
+
+    /**
+     * BirdDto items for ADD_BATCH, BirdSightDto items for ADD_SIGHT_BATCH.
+     */
+    private List<?> items;
+
+    /**
+     * Create BatchRequestDto.
+     *
+     * @param command ADD_BATCH or ADD_SIGHT_BATCH.
+     * @param items birds or sightings.
+     */
+    public BatchRequestDto(ClientAction command, List<?> items) {
+        super(command);
+        this.items = items;
+    }
+
+    /**
+     * Serializer for BatchRequestDto. Items are written in the same way, as
+     * result list of response.
+     */
+    public final static class BatchRequestDtoSerializer extends Serializer<BatchRequestDto> {
+
+        /**
+         * Write BatchRequestDto to KRYO.
+         *
+         * @param kryo KRYO
+         * @param output output
+         * @param object BatchRequestDto object
+         */
+        @Override
+        public void write(Kryo kryo, Output output, BatchRequestDto object) {
+            writeCommandAndName(output, object);
+            ServerResponseDtoSerializer.writeResultData(kryo, output, object.getItems());
+        }
+
+        /**
+         * Read BatchRequestDto from KRYO.
+         *
+         * @param kryo KRYO
+         * @param input input
+         * @param type object type
+         * @return BatchRequestDto object
+         */
+        @Override
+        public BatchRequestDto read(Kryo kryo, Input input, Class<BatchRequestDto> type) {
+            BatchRequestDto request = new BatchRequestDto();
+            request.setCommand(readCommand(input));
+            request.setName(input.readString());
+            request.setItems(ServerResponseDtoSerializer.readResultData(kryo, input));
+            return request;
+        }
+    }
+}
@@ -2,6 +2,10 @@ package com.dataart.edu.message.dto.request;
 
 /**
  * Avaliable commands, that client can send to server.
+ * <p>
+ * Every command has stable code, which is used in binary encoding of
+ * requests instead of name. Codes are part of protocol and must not be
+ * changed.
  *
  * @author alitvinov
  */
@@ -9,25 +13,82 @@ public enum ClientAction {
     /**
      * Add new bird.
      */
-    ADD, 
+    ADD(1), 
     /**
      * Remove bird.
      */
-    REMOVE, 
+    REMOVE(2), 
     /**
      * Add new sighting.
      */
-    ADD_SIGHT, 
+    ADD_SIGHT(3), 
     /**
      * Stop server and quite.
      */
-    QUIT, 
+    QUIT(4), 
     /**
      * List of all avaliable birds.
      */
-    LIST, 
+    LIST(5), 
     /**
      * List of sightings.
      */
-    LIST_SIGHTS;
+    LIST_SIGHTS(6),
+    /**
+     * Add many birds in one request.
+     */
+    ADD_BATCH(7),
+    /**
+     * Add many sightings in one request.
+     */
+    ADD_SIGHT_BATCH(8);
+
+    /**
+     * Actions by code.
+     */
+    private final static ClientAction[] BY_CODE;
+
+    static {
+        int maxCode = 0;
+        for (ClientAction action : values()) {
+            maxCode = Math.max(maxCode, action.code);
+        }
+        BY_CODE = new ClientAction[maxCode + 1];
+        for (ClientAction action : values()) {
+            BY_CODE[action.code] = action;
+        }
+    }
+
+    /**
+     * Stable code of action.
+     */
+    private final int code;
+
+    ClientAction(int code) {
+        this.code = code;
+    }
+
+    /**
+     * Get stable code of action.
+     *
+     * @return code of action.
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Get action by its stable code.
+     *
+     * @param code code of action.
+     * @return action.
+     * @throws IllegalArgumentException if there is no action with this code.
+     */
+    public static ClientAction fromCode(int code) {
+        ClientAction action = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (action == null) {
+            throw new IllegalArgumentException("Unknown code of action: " + code);
+        }
+        return action;
+    }
 }
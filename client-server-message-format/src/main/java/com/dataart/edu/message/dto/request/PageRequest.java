@@ -0,0 +1,29 @@
+package com.dataart.edu.message.dto.request;
+
+/**
+ * Request of one page of LIST or LIST_SIGHTS result.
+ * <p>
+ * First page is requested without cursor. Every page of response contains
+ * cursor of the next page, which is sent back to server to continue, or null,
+ * if it was the last page. Cursor is opaque for client.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ * @see com.dataart.edu.message.dto.response.ServerResponseDto#getCursor()
+ */
+public interface PageRequest {
+
+    /**
+     * Max number of rows in page.
+     *
+     * @return size of page, must be positive.
+     */
+    int getPageSize();
+
+    /**
+     * Cursor, from which page starts.
+     *
+     * @return cursor from previous page, or null for first page.
+     */
+    byte[] getCursor();
+}
@@ -0,0 +1,75 @@
+package com.dataart.edu.message.dto.request;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for request of one page of birds.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ * @see PageRequest
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class PagedListRequestDto extends BaseClientRequestDto implements PageRequest {
+
+    private int pageSize;
+
+    private byte[] cursor;
+
+    /**
+     * Create PagedListRequestDto.
+     *
+     * @param pageSize max number of birds in page.
+     * @param cursor cursor from previous page, or null for first page.
+     */
+    public PagedListRequestDto(int pageSize, byte[] cursor) {
+        super(ClientAction.LIST);
+        this.pageSize = pageSize;
+        this.cursor = cursor;
+    }
+
+    /**
+     * Serializer for PagedListRequestDto.
+     */
+    public final static class PagedListRequestDtoSerializer extends Serializer<PagedListRequestDto> {
+
+        /**
+         * Write PagedListRequestDto to KRYO.
+         *
+         * @param kryo KRYO
+         * @param output output
+         * @param object PagedListRequestDto object
+         */
+        @Override
+        public void write(Kryo kryo, Output output, PagedListRequestDto object) {
+            writeCommandAndName(output, object);
+            writePage(output, object);
+        }
+
+        /**
+         * Read PagedListRequestDto from KRYO.
+         *
+         * @param kryo KRYO
+         * @param input input
+         * @param type object type
+         * @return PagedListRequestDto object
+         */
+        @Override
+        public PagedListRequestDto read(Kryo kryo, Input input, Class<PagedListRequestDto> type) {
+            PagedListRequestDto request = new PagedListRequestDto();
+            request.setCommand(readCommand(input));
+            request.setName(input.readString());
+            request.setPageSize(input.readVarInt(true));
+            request.setCursor(readCursor(input));
+            return request;
+        }
+    }
+}
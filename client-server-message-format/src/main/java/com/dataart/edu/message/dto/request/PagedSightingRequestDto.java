@@ -0,0 +1,86 @@
+package com.dataart.edu.message.dto.request;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for request of one page of sightings. Fields of search are encoded as
+ * in {@link SightingRequestDto}, followed by size of page and cursor.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ * @see PageRequest
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class PagedSightingRequestDto extends SightingRequestDto implements PageRequest {
+
+    private int pageSize;
+
+    private byte[] cursor;
+
+    /**
+     * Create PagedSightingRequestDto.
+     *
+     * @param name regular expression for name of bird.
+     * @param location location
+     * @param start start of search period
+     * @param end end of search period
+     * @param pageSize max number of sightings in page.
+     * @param cursor cursor from previous page, or null for first page.
+     */
+    public PagedSightingRequestDto(String name, String location, long start, long end, int pageSize, byte[] cursor) {
+        super(ClientAction.LIST_SIGHTS, name, location, start, end);
+        this.pageSize = pageSize;
+        this.cursor = cursor;
+    }
+
+    /**
+     * Serializer for PagedSightingRequestDto.
+     */
+    public final static class PagedSightingRequestDtoSerializer extends Serializer<PagedSightingRequestDto> {
+
+        /**
+         * Write PagedSightingRequestDto to KRYO.
+         *
+         * @param kryo KRYO
+         * @param output output
+         * @param object PagedSightingRequestDto object
+         */
+        @Override
+        public void write(Kryo kryo, Output output, PagedSightingRequestDto object) {
+            writeCommandAndName(output, object);
+            output.writeString(object.getLocation());
+            output.writeVarLong(object.getStart(), false);
+            output.writeVarLong(object.getEnd() - object.getStart(), false);
+            writePage(output, object);
+        }
+
+        /**
+         * Read PagedSightingRequestDto from KRYO.
+         *
+         * @param kryo KRYO
+         * @param input input
+         * @param type object type
+         * @return PagedSightingRequestDto object
+         */
+        @Override
+        public PagedSightingRequestDto read(Kryo kryo, Input input, Class<PagedSightingRequestDto> type) {
+            PagedSightingRequestDto request = new PagedSightingRequestDto();
+            request.setCommand(readCommand(input));
+            request.setName(input.readString());
+            request.setLocation(input.readString());
+            request.setStart(input.readVarLong(false));
+            request.setEnd(request.getStart() + input.readVarLong(false));
+            request.setPageSize(input.readVarInt(true));
+            request.setCursor(readCursor(input));
+            return request;
+        }
+    }
+}
@@ -8,6 +8,10 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 /**
+ * DTO for add sighting and list sightings requests.
+ * <p>
+ * Start of period is encoded as zigzag varlong, end of period as zigzag
+ * varlong delta from start, so close dates take only few bytes.
  *
  * @author alitvinov
  */
@@ -62,11 +66,10 @@ public class SightingRequestDto extends BaseClientRequestDto{
          */
         @Override
         public void write(Kryo kryo, Output output, SightingRequestDto object) {
-            output.writeString(object.getCommand().name());
-            output.writeString(object.getName());
+            writeCommandAndName(output, object);
             output.writeString(object.getLocation());
-            output.writeLong(object.getStart());
-            output.writeLong(object.getEnd());            
+            output.writeVarLong(object.getStart(), false);
+            output.writeVarLong(object.getEnd() - object.getStart(), false);
         }
 
         /**
@@ -78,12 +81,12 @@ public class SightingRequestDto extends BaseClientRequestDto{
          */
         @Override
         public SightingRequestDto read(Kryo kryo, Input input, Class<SightingRequestDto> type) {
-            String action=input.readString();
-            String name=input.readString();            
-            String location=input.readString();
-            long start=input.readLong();
-            long end=input.readLong();
-            return new SightingRequestDto(ClientAction.valueOf(action), name, location, start, end);
+            ClientAction action = readCommand(input);
+            String name = input.readString();
+            String location = input.readString();
+            long start = input.readVarLong(false);
+            long end = start + input.readVarLong(false);
+            return new SightingRequestDto(action, name, location, start, end);
         }        
     }
     
@@ -0,0 +1,77 @@
+package com.dataart.edu.message.dto.request;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for request of changes of birds since previous LIST.
+ * <p>
+ * First request is sent without token and is answered with all birds. Every
+ * response contains token of version of birds, which is sent back with the
+ * next request, so only birds, which were added or removed since that
+ * version, are returned. If server does not keep changes since version of
+ * token anymore, all birds are returned again. Token is opaque for client.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ * @see com.dataart.edu.message.dto.response.ServerResponseDto#getSyncToken()
+ * @see com.dataart.edu.message.dto.response.ServerResponseDto#getRemovedNames()
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class SyncListRequestDto extends BaseClientRequestDto {
+
+    private byte[] token;
+
+    /**
+     * Create SyncListRequestDto.
+     *
+     * @param token token from previous response, or null for first request.
+     */
+    public SyncListRequestDto(byte[] token) {
+        super(ClientAction.LIST);
+        this.token = token;
+    }
+
+    /**
+     * Serializer for SyncListRequestDto.
+     */
+    public final static class SyncListRequestDtoSerializer extends Serializer<SyncListRequestDto> {
+
+        /**
+         * Write SyncListRequestDto to KRYO.
+         *
+         * @param kryo KRYO
+         * @param output output
+         * @param object SyncListRequestDto object
+         */
+        @Override
+        public void write(Kryo kryo, Output output, SyncListRequestDto object) {
+            writeCommandAndName(output, object);
+            writeCursor(output, object.getToken());
+        }
+
+        /**
+         * Read SyncListRequestDto from KRYO.
+         *
+         * @param kryo KRYO
+         * @param input input
+         * @param type object type
+         * @return SyncListRequestDto object
+         */
+        @Override
+        public SyncListRequestDto read(Kryo kryo, Input input, Class<SyncListRequestDto> type) {
+            SyncListRequestDto request = new SyncListRequestDto();
+            request.setCommand(readCommand(input));
+            request.setName(input.readString());
+            request.setToken(readCursor(input));
+            return request;
+        }
+    }
+}
@@ -1,6 +1,13 @@
 package com.dataart.edu.message.dto.response;
 
 import com.dataart.edu.message.dto.BaseMessageDto;
+import com.dataart.edu.message.dto.request.BaseClientRequestDto;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Registration;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import java.util.ArrayList;
 import java.util.List;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -25,4 +32,185 @@ public class ServerResponseDto extends BaseMessageDto {
     private boolean success = true;
 
     private String error;
+
+    /**
+     * Cursor of the next page, if request was page request and there are
+     * more rows, otherwise null.
+     */
+    private byte[] cursor;
+
+    /**
+     * Token of version of birds, which is sent with the next request of
+     * changes, if request was SyncListRequestDto, otherwise null.
+     */
+    private byte[] syncToken;
+
+    /**
+     * Names of birds, which were removed since version of token of
+     * SyncListRequestDto, then result contains only added birds. Null, if
+     * result contains all birds.
+     */
+    private List<String> removedNames;
+
+    /**
+     * Errors of items of ADD_BATCH or ADD_SIGHT_BATCH request in order of
+     * items, null for items, which were added. Null, if request was not
+     * batch.
+     */
+    private List<String> itemErrors;
+
+    /**
+     * Serializer for ServerResponseDto.
+     * <p>
+     * Result list is written as size and elements. If all elements have the
+     * same class, class is written once before elements, otherwise class is
+     * written before every element. Result list is always read as ArrayList.
+     * Cursor of the next page, token of version of birds, names of removed
+     * birds and errors of items of batch are written before result list.
+     */
+    public final static class ServerResponseDtoSerializer extends Serializer<ServerResponseDto> {
+
+        /**
+         * Write ServerResponseDto to KRYO.
+         *
+         * @param kryo KRYO
+         * @param output output
+         * @param object ServerResponseDto object
+         */
+        @Override
+        public void write(Kryo kryo, Output output, ServerResponseDto object) {
+            output.writeBoolean(object.isSuccess());
+            output.writeString(object.getError());
+            BaseClientRequestDto.writeCursor(output, object.getCursor());
+            BaseClientRequestDto.writeCursor(output, object.getSyncToken());
+            writeNames(output, object.getRemovedNames());
+            writeNames(output, object.getItemErrors());
+            writeResultData(kryo, output, object.getResultData());
+        }
+
+        /**
+         * Write list of results or of items of request.
+         *
+         * @param kryo KRYO
+         * @param output output
+         * @param resultData list or null.
+         */
+        public static void writeResultData(Kryo kryo, Output output, List<?> resultData) {
+            if (resultData == null) {
+                output.writeVarInt(0, true);
+                return;
+            }
+            output.writeVarInt(resultData.size() + 1, true);
+            if (resultData.isEmpty()) {
+                return;
+            }
+            Class<?> elementType = getCommonType(resultData);
+            kryo.writeClass(output, elementType);
+            if (elementType == null) {
+                resultData.forEach(element -> kryo.writeClassAndObject(output, element));
+            } else {
+                Serializer elementSerializer = kryo.getSerializer(elementType);
+                resultData.forEach(element -> kryo.writeObject(output, element, elementSerializer));
+            }
+        }
+
+        /**
+         * Read ServerResponseDto from KRYO.
+         *
+         * @param kryo KRYO
+         * @param input input
+         * @param type ServerResponseDto class
+         * @return ServerResponseDto object
+         */
+        @Override
+        public ServerResponseDto read(Kryo kryo, Input input, Class<ServerResponseDto> type) {
+            ServerResponseDto response = new ServerResponseDto();
+            response.setSuccess(input.readBoolean());
+            response.setError(input.readString());
+            response.setCursor(BaseClientRequestDto.readCursor(input));
+            response.setSyncToken(BaseClientRequestDto.readCursor(input));
+            response.setRemovedNames(readNames(input));
+            response.setItemErrors(readNames(input));
+            response.setResultData(readResultData(kryo, input));
+            return response;
+        }
+
+        /**
+         * Read list, which was written by {@link #writeResultData}.
+         *
+         * @param kryo KRYO
+         * @param input input
+         * @return ArrayList or null.
+         */
+        public static List<Object> readResultData(Kryo kryo, Input input) {
+            int sizeAndOne = input.readVarInt(true);
+            if (sizeAndOne == 0) {
+                return null;
+            }
+            List<Object> resultData = new ArrayList<>(sizeAndOne - 1);
+            if (sizeAndOne > 1) {
+                Registration elementRegistration = kryo.readClass(input);
+                for (int i = 0; i < sizeAndOne - 1; i++) {
+                    resultData.add(elementRegistration == null
+                            ? kryo.readClassAndObject(input)
+                            : kryo.readObject(input, elementRegistration.getType(), elementRegistration.getSerializer()));
+                }
+            }
+            return resultData;
+        }
+
+        /**
+         * Write list of names as size plus one (0 - null) and names.
+         *
+         * @param output output
+         * @param names names or null.
+         */
+        private static void writeNames(Output output, List<String> names) {
+            if (names == null) {
+                output.writeVarInt(0, true);
+                return;
+            }
+            output.writeVarInt(names.size() + 1, true);
+            names.forEach(output::writeString);
+        }
+
+        /**
+         * Read list of names, which was written by {@link #writeNames}.
+         *
+         * @param input input
+         * @return names or null.
+         */
+        private static List<String> readNames(Input input) {
+            int sizeAndOne = input.readVarInt(true);
+            if (sizeAndOne == 0) {
+                return null;
+            }
+            List<String> names = new ArrayList<>(sizeAndOne - 1);
+            for (int i = 0; i < sizeAndOne - 1; i++) {
+                names.add(input.readString());
+            }
+            return names;
+        }
+
+        /**
+         * Get class of all elements of list.
+         *
+         * @param list not empty list.
+         * @return class of all elements or null, if elements have different
+         * classes or there are null elements.
+         */
+        private static Class<?> getCommonType(List<?> list) {
+            Object first = list.get(0);
+            if (first == null) {
+                return null;
+            }
+            Class<?> commonType = first.getClass();
+            for (Object element : list) {
+                if (element == null || element.getClass() != commonType) {
+                    return null;
+                }
+            }
+            return commonType;
+        }
+    }
 }
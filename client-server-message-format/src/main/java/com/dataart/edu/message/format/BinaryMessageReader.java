@@ -1,10 +1,12 @@
 package com.dataart.edu.message.format;
 
+import com.dataart.edu.message.format.util.ByteBufferPool;
+import com.dataart.edu.message.format.util.FrameCompression;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.util.function.Consumer;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -14,20 +16,34 @@ import lombok.extern.slf4j.Slf4j;
  * Object of this class is used, to consistently read portions of bytes from
  * ByteBuffer, and when message is fully read, return this message. After, next
  * message can be read.
+ * <p>
+ * One buffer, read from channel, can contain several messages, and the last of
+ * them can be read only partially. Not finished message is kept by reader and
+ * continued by next buffer. Reader works with heap and direct buffers.
+ * <p>
+ * Messages can be sent with or without header, format of frame is described
+ * in {@link MessageFrame}. Compressed bodies are decompressed transparently,
+ * if reader accepts compressed frames: server reader does not, as clients
+ * only ask for compressed responses.
+ * <p>
+ * Buffers for message bodies are taken from ByteBufferPool. Length of frame
+ * is limited, so peer can not make reader allocate and wait for arbitrary big
+ * buffer.
  *
  * @see BaseStruct
+ * @see ByteBufferPool
+ * @see MessageFrame
  *
  * @author alitvinov
  * @version 1.0.0
  * @since 2017-09-07
  */
-@RequiredArgsConstructor
 @Slf4j
 public class BinaryMessageReader {
     /**
-     * Indicates, that length of current message is unknown.
+     * Default max length of frame without its 4 bytes of length.
      */
-    private final static int LENGTH_OF_MESSAGE_IS_UNKNOWN = -1;
+    public final static int DEFAULT_MAX_FRAME_LENGTH = 64 * 1024 * 1024;
     /**
      * Buffer, which will store length of message.
      */
@@ -36,11 +52,68 @@ public class BinaryMessageReader {
      * Buffer which will store bytes of message.
      */
     private ByteBuffer bodyByteBuffer = null;
+    /**
+     * Is current message contains header.
+     */
+    private boolean headerPresent = false;
     /**
      * Key of channel, with which this object is associated.
      */
     @Getter
     private final SelectionKey selectionKey;
+    /**
+     * Pool, from which buffers for message bodies are taken.
+     */
+    @Getter
+    private final ByteBufferPool bufferPool;
+    /**
+     * Max length of frame without its 4 bytes of length.
+     */
+    @Getter
+    private final int maxFrameLength;
+    /**
+     * Are frames with compressed body decompressed or rejected.
+     */
+    @Getter
+    private final boolean compressedFramesAccepted;
+
+    /**
+     * Create reader, which allocates new buffer for every message.
+     *
+     * @param selectionKey key of channel, with which reader is associated.
+     */
+    public BinaryMessageReader(SelectionKey selectionKey) {
+        this(selectionKey, ByteBufferPool.notPooled());
+    }
+
+    /**
+     * Create reader, which takes buffers for messages from pool.
+     *
+     * @param selectionKey key of channel, with which reader is associated.
+     * @param bufferPool pool of buffers.
+     */
+    public BinaryMessageReader(SelectionKey selectionKey, ByteBufferPool bufferPool) {
+        this(selectionKey, bufferPool, DEFAULT_MAX_FRAME_LENGTH, true);
+    }
+
+    /**
+     * Create reader, which takes buffers for messages from pool and rejects
+     * frames longer then max length.
+     *
+     * @param selectionKey key of channel, with which reader is associated.
+     * @param bufferPool pool of buffers.
+     * @param maxFrameLength max length of frame without its 4 bytes of
+     * length, and of decompressed body.
+     * @param compressedFramesAccepted true, if compressed frames are
+     * decompressed, false, if they are rejected.
+     */
+    public BinaryMessageReader(SelectionKey selectionKey, ByteBufferPool bufferPool, int maxFrameLength,
+            boolean compressedFramesAccepted) {
+        this.selectionKey = selectionKey;
+        this.bufferPool = bufferPool;
+        this.maxFrameLength = maxFrameLength;
+        this.compressedFramesAccepted = compressedFramesAccepted;
+    }
 
     /**
      * Consistently read data from buffer.
@@ -51,8 +124,9 @@ public class BinaryMessageReader {
      * @param realNumberBytesRead real number of bytes, witch was read from
      * Channel to ByteBuffer.     
      *
-     * @return null - if message is not fully read, message as byte array if
-     * message is fully read.
+     * @return null - if message is not fully read, message body as byte array
+     * if message is fully read. Bytes after the end of message are left in
+     * buffer, from position to limit.
      *
      * @see BaseStruct
      * @see ByteBuffer
@@ -62,108 +136,182 @@ public class BinaryMessageReader {
     public byte[] readMessageFromByteBuffer(
             ByteBuffer channelByteBuffer,
             int realNumberBytesRead) {
-        int startOfDataPosition = 0;
-        if (!this.isLengthDefined()) {            
-            startOfDataPosition = this.readBytesToLengthByteBuffer(channelByteBuffer.array(), realNumberBytesRead);            
+        channelByteBuffer.limit(channelByteBuffer.position() + realNumberBytesRead);
+        MessageFrame message = this.readMessageFrameFromByteBuffer(channelByteBuffer);
+        if (message == null) {
+            return null;
         }
-        if (this.isLengthDefined() && startOfDataPosition < realNumberBytesRead) {            
-            if (this.readBytesToBody(channelByteBuffer, startOfDataPosition, realNumberBytesRead)) {                
-                return this.getMessageBody();
-            } else {                
-                return null;
-            }
+        byte[] messageAsBytes = new byte[message.getBody().remaining()];
+        message.getBody().get(messageAsBytes);
+        bufferPool.release(message.getBody());
+        return messageAsBytes;
+    }
+
+    /**
+     * Read all messages from buffer. Complete messages are passed to consumer
+     * in order of arrival, bytes of not complete message are kept until next
+     * buffer.
+     *
+     * @param channelByteBuffer buffer, from which data will be read, from
+     * position to limit. Can be heap or direct buffer. After call all bytes of
+     * buffer are consumed.
+     * @param messageConsumer consumer of messages. Body of every message is in
+     * buffer from pool, between position and limit, it must be returned with
+     * {@link ByteBufferPool#release(java.nio.ByteBuffer)} after message is
+     * processed.
+     * @return number of complete messages.
+     */
+    public int readMessagesFromByteBuffer(ByteBuffer channelByteBuffer, Consumer<MessageFrame> messageConsumer) {
+        int numberOfMessages = 0;
+        MessageFrame message;
+        while (channelByteBuffer.hasRemaining()
+                && (message = this.readMessageFrameFromByteBuffer(channelByteBuffer)) != null) {
+            messageConsumer.accept(message);
+            numberOfMessages++;
+        }
+        return numberOfMessages;
+    }
+
+    /**
+     * Consistently read data from buffer, without copying of message to byte
+     * array.
+     *
+     * @param channelByteBuffer buffer, from which data will be read, from
+     * position to limit. Can be heap or direct buffer.
+     * <b>Important:</b>
+     * buffer must be avaliable for reading - method flip() must be called.
+     *
+     * @return null - if message is not fully read, frame with message body
+     * between position and limit of body buffer, if message is fully read.
+     * Body buffer is taken from pool, it must be returned with
+     * {@link ByteBufferPool#release(java.nio.ByteBuffer)} after message is
+     * processed. Bytes after the end of message are left in channelByteBuffer.
+     * @throws IllegalArgumentException if length of message is invalid.
+     */
+    public MessageFrame readMessageFrameFromByteBuffer(ByteBuffer channelByteBuffer) {
+        if (!this.isLengthDefined()) {
+            this.readBytesToLengthByteBuffer(channelByteBuffer);
+        }
+        if (this.isLengthDefined() && this.readBytesToBody(channelByteBuffer)) {
+            return this.getMessageBody();
         }
         return null;
     }
 
+    /**
+     * Return buffer of not fully read message to pool. Must be called, when
+     * channel is closed.
+     */
+    public void release() {
+        if (this.bodyByteBuffer != null) {
+            bufferPool.release(this.bodyByteBuffer);
+            this.bodyByteBuffer = null;
+        }
+        this.lengthByteBuffer.clear();
+    }
+
     /**
      * Is length of message known.
      *
-     * @return true if all 4 bytes of length was read.
+     * @return true if all 4 bytes of length was read, and body buffer is
+     * ready.
      */
     private boolean isLengthDefined() {
-        return lengthByteBuffer.limit() == lengthByteBuffer.position();
+        return bodyByteBuffer != null;
     }
 
     /**
-     * Allocate message body ByteBuffer with length from message length buffer.
+     * Take message body ByteBuffer with length from first 4 bytes of frame
+     * from pool.
      *
+     * @param lengthOfFrame first 4 bytes of frame: length and, in the highest
+     * bit, presence of header.
+     * @throws IllegalArgumentException if length is shorter then header or
+     * longer then max length of frame.
      */
-    private void defineLengthAndInitBodyBuffer() {
-        lengthByteBuffer.flip();
-        bodyByteBuffer = ByteBuffer.allocate(lengthByteBuffer.getInt());
+    private void defineLengthAndInitBodyBuffer(int lengthOfFrame) {
+        headerPresent = (lengthOfFrame & MessageFrame.HEADER_PRESENT_MASK) != 0;
+        int messageLength = lengthOfFrame & ~MessageFrame.HEADER_PRESENT_MASK;
+        if (headerPresent && messageLength < MessageFrame.HEADER_SIZE) {
+            throw new IllegalArgumentException("Invalid length of message: " + messageLength);
+        }
+        if (messageLength > maxFrameLength) {
+            throw new IllegalArgumentException("Length of message " + messageLength + " exceeds max length " + maxFrameLength);
+        }
+        bodyByteBuffer = bufferPool.acquire(messageLength);
     }
 
     /**
      * Try to read portion of bytes to message length ByteBuffer.
-     *
-     * @param bytesFromChannelByteBuffer array of bytes, which was read from
-     * channel.
-     * @param realNumberBytesRead real number of bytes, which was read from
-     * channel.
      * <p>
-     * To get byte bytesFromByteBuffer from ByteBuffer method array() is used.
-     * It returns array with length of ByteBuffer limit(). In order to read only
-     * "fresh" bytes numberBytesRead must be provided. It must be less or equal
-     * then ByteBuffer limit.
+     * If buffer contains all 4 bytes of length, they are read at once,
+     * otherwise available bytes are kept until next buffer.
      *
-     * @return -1 if length is not fully read, otherwise start of message bytes
-     * in bytesFromByteBuffer array.
+     * @param channelByteBuffer buffer, which was read from channel.
      *
      * @see ByteBuffer
      */
-    private int readBytesToLengthByteBuffer(byte[] bytesFromChannelByteBuffer,
-            int realNumberBytesRead) {
-        int currentPosition = 0;
-        for (byte bt : bytesFromChannelByteBuffer) {
-            currentPosition++;
-            if (currentPosition > realNumberBytesRead) {
-                break;
-            }
-            lengthByteBuffer.put(bt);
-            if (isLengthDefined()) {
-                this.defineLengthAndInitBodyBuffer();
-                return currentPosition;
+    private void readBytesToLengthByteBuffer(ByteBuffer channelByteBuffer) {
+        if (lengthByteBuffer.position() == 0 && channelByteBuffer.remaining() >= Integer.BYTES) {
+            this.defineLengthAndInitBodyBuffer(channelByteBuffer.getInt());
+            return;
+        }
+        while (channelByteBuffer.hasRemaining()) {
+            lengthByteBuffer.put(channelByteBuffer.get());
+            if (!lengthByteBuffer.hasRemaining()) {
+                lengthByteBuffer.flip();
+                this.defineLengthAndInitBodyBuffer(lengthByteBuffer.getInt());
+                lengthByteBuffer.clear();
+                return;
             }
         }
-        return LENGTH_OF_MESSAGE_IS_UNKNOWN;
     }
 
     /**
      * Read portion of bytes to message body ByteBuffer.
      *
      * @param channelByteBuffer ByeBuffer which was read from channel.
-     * @param from start position of message bytes.
-     * @param to length of portion, that must be read.
      *
      * @return true - if message fully read, false - read must be continued.
      *
      * @see ByteBuffer
      */
-    private boolean readBytesToBody(ByteBuffer channelByteBuffer, int from, int to) {
-        this.bodyByteBuffer.put(channelByteBuffer.array(), from, to - from);
-        return this.bodyByteBuffer.limit() == this.bodyByteBuffer.position();
-    }
-
-    /**
-     * Get bytes of message body.
-     *
-     * @return message body as byte[].
-     */
-    private byte[] getMessageBody() {
-        try {
-            return this.bodyByteBuffer != null && bodyByteBuffer.limit() == this.bodyByteBuffer.position() ? this.bodyByteBuffer.array() : null;
-        } finally {
-            cleanup();
+    private boolean readBytesToBody(ByteBuffer channelByteBuffer) {
+        int numberOfBytesToCopy = Math.min(channelByteBuffer.remaining(), this.bodyByteBuffer.remaining());
+        if (numberOfBytesToCopy > 0) {
+            int channelLimit = channelByteBuffer.limit();
+            channelByteBuffer.limit(channelByteBuffer.position() + numberOfBytesToCopy);
+            this.bodyByteBuffer.put(channelByteBuffer);
+            channelByteBuffer.limit(channelLimit);
         }
+        return !this.bodyByteBuffer.hasRemaining();
     }
 
     /**
-     * Cleanup resources before next message will be processed.
+     * Get message frame.
+     *
+     * @return message frame with body buffer, prepared for reading.
+     * @throws IllegalArgumentException if compressed body is invalid, or
+     * compressed frames are not accepted.
      */
-    private void cleanup() {
-        this.bodyByteBuffer.clear();
+    private MessageFrame getMessageBody() {
+        ByteBuffer messageBody = this.bodyByteBuffer;
+        messageBody.flip();
         this.bodyByteBuffer = null;
         this.lengthByteBuffer.clear();
+        if (headerPresent) {
+            byte flags = messageBody.get();
+            int requestId = messageBody.getInt();
+            if ((flags & MessageFrame.FLAG_COMPRESSED) != 0) {
+                if (!compressedFramesAccepted) {
+                    bufferPool.release(messageBody);
+                    throw new IllegalArgumentException("Compressed message is not accepted.");
+                }
+                messageBody = FrameCompression.decompress(messageBody, maxFrameLength, bufferPool);
+                flags &= ~MessageFrame.FLAG_COMPRESSED;
+            }
+            return new MessageFrame(true, flags, requestId, messageBody);
+        }
+        return new MessageFrame(false, (byte) 0, 0, messageBody);
     }
 }
@@ -0,0 +1,92 @@
+package com.dataart.edu.message.format;
+
+import java.nio.ByteBuffer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Message frame, which was read from channel.
+ * <p>
+ * Every frame starts with 4 bytes of length. If the highest bit of length is
+ * not set, frame contains only message body. If it is set, frame contains
+ * header of {@link #HEADER_SIZE} bytes: 1 byte of flags and 4 bytes of request
+ * ID, and message body after it. In this case length includes header.
+ * <p>
+ * Request ID allows to send many requests without waiting for responses
+ * (pipelining): server answers with the same request ID, which was in
+ * request.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ * @see BinaryMessageReader
+ */
+@Getter
+@RequiredArgsConstructor
+@ToString(exclude = "body")
+public class MessageFrame {
+
+    /**
+     * Bit of length, which shows, that frame contains header.
+     */
+    public final static int HEADER_PRESENT_MASK = 0x80000000;
+    /**
+     * Size of header: flags and request ID.
+     */
+    public final static int HEADER_SIZE = Byte.BYTES + Integer.BYTES;
+    /**
+     * Flag of request: client accepts responses in any order, server can
+     * answer as soon as response is ready.
+     */
+    public final static byte FLAG_OUT_OF_ORDER = 0x01;
+    /**
+     * Flag of request: client accepts result of LIST and LIST_SIGHTS as
+     * sequence of chunk frames. Every chunk is answered with this flag, last
+     * chunk has {@link #FLAG_LAST_CHUNK} too.
+     */
+    public final static byte FLAG_STREAM = 0x02;
+    /**
+     * Flag of response to streamed request: this frame is the last one of
+     * response.
+     */
+    public final static byte FLAG_LAST_CHUNK = 0x04;
+    /**
+     * Flag of frame: body is compressed, see
+     * {@link com.dataart.edu.message.format.util.FrameCompression}. Frames
+     * are decompressed by {@link BinaryMessageReader}, so read frames never
+     * have this flag.
+     */
+    public final static byte FLAG_COMPRESSED = 0x08;
+    /**
+     * Flag of request: client accepts compressed response.
+     */
+    public final static byte FLAG_ACCEPT_COMPRESSED = 0x10;
+
+    /**
+     * Is frame contains header.
+     */
+    private final boolean headerPresent;
+    /**
+     * Flags from header, 0 if there is no header.
+     */
+    private final byte flags;
+    /**
+     * Request ID from header, 0 if there is no header.
+     */
+    private final int requestId;
+    /**
+     * Message body between position and limit. Buffer is taken from
+     * ByteBufferPool of reader.
+     */
+    private final ByteBuffer body;
+
+    /**
+     * Is flag set in header of frame.
+     *
+     * @param flag flag to check.
+     * @return true if flag is set.
+     */
+    public boolean hasFlag(byte flag) {
+        return (flags & flag) != 0;
+    }
+}
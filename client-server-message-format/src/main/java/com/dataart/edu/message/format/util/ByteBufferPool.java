@@ -0,0 +1,179 @@
+package com.dataart.edu.message.format.util;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+
+/**
+ * Bounded pool of ByteBuffers with size classes.
+ * <p>
+ * Size classes are powers of two from {@link #MIN_BUFFER_SIZE} to max buffer
+ * size. Buffer is taken from the smallest class, which can contain requested
+ * number of bytes. Requests, which are bigger then max buffer size, are served
+ * by not pooled buffers. Every size class keeps not more then configured number
+ * of free buffers, extra buffers are left to garbage collector.
+ * <p>
+ * Pool is thread safe, buffers can be acquired in one thread and released in
+ * other.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ * @see ByteBuffer
+ */
+public class ByteBufferPool {
+
+    /**
+     * Size of the smallest size class.
+     */
+    public final static int MIN_BUFFER_SIZE = 256;
+    /**
+     * Is pool creates direct buffers or heap buffers.
+     */
+    @Getter
+    private final boolean direct;
+    /**
+     * Size of the biggest size class.
+     */
+    @Getter
+    private final int maxBufferSize;
+    /**
+     * Free buffers of every size class.
+     */
+    private final Queue<ByteBuffer>[] freeBuffers;
+    /**
+     * Number of requests, which were served by free buffer from pool.
+     */
+    private final LongAdder hits = new LongAdder();
+    /**
+     * Number of requests, for which new buffer was allocated.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Create pool.
+     *
+     * @param direct true - pool creates direct buffers, false - heap buffers.
+     * @param maxBufferSize size of the biggest size class, it is rounded up to
+     * power of two.
+     * @param maxBuffersPerClass max number of free buffers in every size class,
+     * 0 means that buffers are not pooled at all.
+     */
+    @SuppressWarnings("unchecked")
+    public ByteBufferPool(boolean direct, int maxBufferSize, int maxBuffersPerClass) {
+        this.direct = direct;
+        this.maxBufferSize = sizeOfClass(classIndex(Math.max(maxBufferSize, MIN_BUFFER_SIZE)));
+        this.freeBuffers = new Queue[classIndex(this.maxBufferSize) + 1];
+        for (int i = 0; i < freeBuffers.length; i++) {
+            freeBuffers[i] = maxBuffersPerClass > 0 ? new ArrayBlockingQueue<>(maxBuffersPerClass) : null;
+        }
+    }
+
+    /**
+     * Create pool, which does not keep free buffers, and allocates heap buffer
+     * on every request.
+     *
+     * @return ByteBufferPool
+     */
+    public static ByteBufferPool notPooled() {
+        return new ByteBufferPool(false, MIN_BUFFER_SIZE, 0);
+    }
+
+    /**
+     * Get buffer, which can contain requested number of bytes.
+     *
+     * @param size number of bytes.
+     * @return cleared buffer with limit equal to size. Capacity of buffer can
+     * be bigger then size.
+     */
+    public ByteBuffer acquire(int size) {
+        ByteBuffer buffer = null;
+        if (size <= maxBufferSize) {
+            int index = classIndex(Math.max(size, MIN_BUFFER_SIZE));
+            Queue<ByteBuffer> sizeClass = freeBuffers[index];
+            buffer = sizeClass != null ? sizeClass.poll() : null;
+            if (buffer == null) {
+                buffer = allocate(sizeOfClass(index));
+            } else {
+                hits.increment();
+            }
+        } else {
+            buffer = allocate(size);
+        }
+        buffer.limit(size);
+        return buffer;
+    }
+
+    /**
+     * Return buffer to pool. Buffers, which were not created by this pool, or
+     * which do not fit into pool anymore, are just dropped.
+     * <p>
+     * <b>Important:</b> buffer must not be used after release.
+     *
+     * @param buffer buffer to return, can be null.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || buffer.isDirect() != direct || buffer.isReadOnly()) {
+            return;
+        }
+        int capacity = buffer.capacity();
+        if (capacity < MIN_BUFFER_SIZE || capacity > maxBufferSize || Integer.bitCount(capacity) != 1) {
+            return;
+        }
+        Queue<ByteBuffer> sizeClass = freeBuffers[classIndex(capacity)];
+        if (sizeClass != null) {
+            buffer.clear();
+            sizeClass.offer(buffer);
+        }
+    }
+
+    /**
+     * Number of requests, which were served by free buffer from pool.
+     *
+     * @return number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Number of requests, for which new buffer was allocated.
+     *
+     * @return number of misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Allocate new buffer.
+     *
+     * @param capacity capacity of buffer.
+     * @return new buffer.
+     */
+    private ByteBuffer allocate(int capacity) {
+        misses.increment();
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * Index of the smallest size class, which can contain size bytes.
+     *
+     * @param size number of bytes, not less then MIN_BUFFER_SIZE.
+     * @return index of size class.
+     */
+    private static int classIndex(int size) {
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+    }
+
+    /**
+     * Size of buffers in size class.
+     *
+     * @param index index of size class.
+     * @return size of buffers.
+     */
+    private static int sizeOfClass(int index) {
+        return MIN_BUFFER_SIZE << index;
+    }
+}
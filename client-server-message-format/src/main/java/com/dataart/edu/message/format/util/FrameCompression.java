@@ -0,0 +1,264 @@
+package com.dataart.edu.message.format.util;
+
+import com.dataart.edu.message.format.MessageFrame;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compression of message bodies with Deflater.
+ * <p>
+ * Compressed body is sent in frame with header and
+ * {@link MessageFrame#FLAG_COMPRESSED}. It starts with 4 bytes of length of
+ * uncompressed body, followed by deflate stream.
+ * <p>
+ * Deflater and Inflater hold native memory, so every operation borrows them
+ * from bounded pool and returns them after use, as KryoMessageCodec does with
+ * Kryo. If pool is empty, new pair is created, if pool is full, returned pair
+ * is ended. So number of kept pairs does not depend on number of threads.
+ * Temporary arrays for direct buffers are kept only up to
+ * {@link #MAX_KEPT_ARRAY_SIZE}.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ * @see MessageFrame
+ */
+public final class FrameCompression {
+
+    /**
+     * Size of length of uncompressed body, which precedes deflate stream.
+     */
+    public static final int RAW_LENGTH_SIZE = Integer.BYTES;
+    /**
+     * Offset of body in frame with header.
+     */
+    private static final int BODY_OFFSET = Integer.BYTES + MessageFrame.HEADER_SIZE;
+    /**
+     * Max ratio of uncompressed and compressed length, which deflate stream
+     * can reach.
+     */
+    private static final int MAX_COMPRESSION_RATIO = 1032;
+    /**
+     * Max number of free Deflater and Inflater pairs in pool.
+     */
+    private static final int POOL_SIZE = 2 * Runtime.getRuntime().availableProcessors();
+    /**
+     * Max size of temporary array, which is kept with pair in pool.
+     */
+    private static final int MAX_KEPT_ARRAY_SIZE = 64 * 1024;
+
+    /**
+     * Free Deflater and Inflater pairs.
+     */
+    private static final Queue<Codec> CODEC_POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private FrameCompression() {
+    }
+
+    /**
+     * Compress body of frame with header. If compressed body is not smaller
+     * then original body, frame is returned as is.
+     *
+     * @param frame frame with leading 4 bytes of length and header, between
+     * position 0 and limit. Frame is released to pool, if it was compressed.
+     * @param level level of compression, from 1 (best speed) to 9 (best
+     * compression).
+     * @param bufferPool pool, from which buffer for compressed frame is taken.
+     * @return compressed frame from pool, or original frame.
+     */
+    public static ByteBuffer compress(ByteBuffer frame, int level, ByteBufferPool bufferPool) {
+        int rawLength = frame.limit() - BODY_OFFSET;
+        int maxCompressedLength = rawLength - RAW_LENGTH_SIZE - 1;
+        if (maxCompressedLength <= 0) {
+            return frame;
+        }
+        Codec codec = borrowCodec();
+        try {
+            return compress(frame, rawLength, maxCompressedLength, level, bufferPool, codec);
+        } finally {
+            releaseCodec(codec);
+        }
+    }
+
+    private static ByteBuffer compress(ByteBuffer frame, int rawLength, int maxCompressedLength, int level,
+            ByteBufferPool bufferPool, Codec codec) {
+        Deflater deflater = codec.deflater;
+        deflater.setLevel(level);
+        if (frame.hasArray()) {
+            deflater.setInput(frame.array(), frame.arrayOffset() + BODY_OFFSET, rawLength);
+        } else {
+            byte[] input = codec.input(rawLength);
+            ByteBuffer body = frame.duplicate();
+            body.position(BODY_OFFSET);
+            body.get(input, 0, rawLength);
+            deflater.setInput(input, 0, rawLength);
+        }
+        deflater.finish();
+        ByteBuffer compressed = bufferPool.acquire(BODY_OFFSET + RAW_LENGTH_SIZE + maxCompressedLength);
+        int compressedLength = compressed.hasArray()
+                ? deflate(deflater, compressed.array(), compressed.arrayOffset() + BODY_OFFSET + RAW_LENGTH_SIZE, maxCompressedLength)
+                : deflate(deflater, codec.output(maxCompressedLength), 0, maxCompressedLength);
+        if (!deflater.finished()) {
+            bufferPool.release(compressed);
+            return frame;
+        }
+        if (!compressed.hasArray()) {
+            compressed.position(BODY_OFFSET + RAW_LENGTH_SIZE);
+            compressed.put(codec.output, 0, compressedLength);
+        }
+        compressed.putInt(0, (MessageFrame.HEADER_SIZE + RAW_LENGTH_SIZE + compressedLength) | MessageFrame.HEADER_PRESENT_MASK);
+        compressed.put(Integer.BYTES, (byte) (frame.get(Integer.BYTES) | MessageFrame.FLAG_COMPRESSED));
+        compressed.putInt(Integer.BYTES + Byte.BYTES, frame.getInt(Integer.BYTES + Byte.BYTES));
+        compressed.putInt(BODY_OFFSET, rawLength);
+        compressed.limit(BODY_OFFSET + RAW_LENGTH_SIZE + compressedLength);
+        compressed.position(0);
+        bufferPool.release(frame);
+        return compressed;
+    }
+
+    /**
+     * Decompress body of frame. Length of uncompressed body is checked before
+     * buffer for it is taken: it can not be longer then max length, and then
+     * deflate stream can produce from compressed body.
+     *
+     * @param body compressed body between position and limit, from pool.
+     * Buffer is released to pool.
+     * @param maxRawLength max length of uncompressed body.
+     * @param bufferPool pool, from which buffer for decompressed body is taken.
+     * @return decompressed body between position and limit, buffer from pool.
+     * @throws IllegalArgumentException if body is not valid compressed data,
+     * or uncompressed body is too long.
+     */
+    public static ByteBuffer decompress(ByteBuffer body, int maxRawLength, ByteBufferPool bufferPool) {
+        ByteBuffer raw = null;
+        Codec codec = null;
+        try {
+            if (body.remaining() < RAW_LENGTH_SIZE) {
+                throw new IllegalArgumentException("Invalid compressed message.");
+            }
+            int rawLength = body.getInt();
+            int compressedLength = body.remaining();
+            if (rawLength < 0 || rawLength > maxRawLength || rawLength > (long) compressedLength * MAX_COMPRESSION_RATIO) {
+                throw new IllegalArgumentException("Invalid length of compressed message: " + rawLength);
+            }
+            codec = borrowCodec();
+            Inflater inflater = codec.inflater;
+            if (body.hasArray()) {
+                inflater.setInput(body.array(), body.arrayOffset() + body.position(), compressedLength);
+            } else {
+                byte[] input = codec.input(compressedLength);
+                body.get(input, 0, compressedLength);
+                inflater.setInput(input, 0, compressedLength);
+            }
+            raw = bufferPool.acquire(rawLength);
+            int inflatedLength = raw.hasArray()
+                    ? inflate(inflater, raw.array(), raw.arrayOffset(), rawLength)
+                    : inflate(inflater, codec.output(rawLength), 0, rawLength);
+            //end of stream can be reached only on attempt to read after full output.
+            if (inflatedLength == rawLength && !inflater.finished()) {
+                inflatedLength += inflate(inflater, codec.probe, 0, codec.probe.length);
+            }
+            if (inflatedLength != rawLength || !inflater.finished()) {
+                throw new IllegalArgumentException("Invalid compressed message.");
+            }
+            if (!raw.hasArray()) {
+                raw.put(codec.output, 0, rawLength);
+                raw.flip();
+            }
+            ByteBuffer result = raw;
+            raw = null;
+            return result;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Invalid compressed message.", e);
+        } finally {
+            if (codec != null) {
+                releaseCodec(codec);
+            }
+            bufferPool.release(raw);
+            bufferPool.release(body);
+        }
+    }
+
+    private static Codec borrowCodec() {
+        Codec codec = CODEC_POOL.poll();
+        return codec != null ? codec : new Codec();
+    }
+
+    private static void releaseCodec(Codec codec) {
+        codec.reset();
+        if (!CODEC_POOL.offer(codec)) {
+            codec.end();
+        }
+    }
+
+    private static int deflate(Deflater deflater, byte[] output, int offset, int length) {
+        int written = 0;
+        while (!deflater.finished() && written < length) {
+            written += deflater.deflate(output, offset + written, length - written);
+        }
+        return written;
+    }
+
+    private static int inflate(Inflater inflater, byte[] output, int offset, int length) throws DataFormatException {
+        int written = 0;
+        while (!inflater.finished() && written < length) {
+            int inflated = inflater.inflate(output, offset + written, length - written);
+            if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                break;
+            }
+            written += inflated;
+        }
+        return written;
+    }
+
+    /**
+     * Deflater, Inflater and temporary arrays of one operation.
+     */
+    private static final class Codec {
+
+        private final Deflater deflater = new Deflater();
+        private final Inflater inflater = new Inflater();
+        private byte[] input = new byte[0];
+        private byte[] output = new byte[0];
+        private final byte[] probe = new byte[1];
+
+        private byte[] input(int length) {
+            if (input.length < length) {
+                input = new byte[length];
+            }
+            return input;
+        }
+
+        private byte[] output(int length) {
+            if (output.length < length) {
+                output = new byte[length];
+            }
+            return output;
+        }
+
+        /**
+         * Prepare pair for next operation and drop big temporary arrays.
+         */
+        private void reset() {
+            deflater.reset();
+            inflater.reset();
+            if (input.length > MAX_KEPT_ARRAY_SIZE) {
+                input = new byte[0];
+            }
+            if (output.length > MAX_KEPT_ARRAY_SIZE) {
+                output = new byte[0];
+            }
+        }
+
+        /**
+         * Free native memory of pair.
+         */
+        private void end() {
+            deflater.end();
+            inflater.end();
+        }
+    }
+}
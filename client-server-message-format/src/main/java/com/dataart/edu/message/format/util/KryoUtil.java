@@ -1,16 +1,31 @@
 package com.dataart.edu.message.format.util;
 
+import com.dataart.edu.message.dto.BirdDto;
+import com.dataart.edu.message.dto.BirdSightDto;
 import com.dataart.edu.message.dto.request.AddBirdRequestDto;
 import com.dataart.edu.message.dto.request.BaseClientRequestDto;
+import com.dataart.edu.message.dto.request.BatchRequestDto;
+import com.dataart.edu.message.dto.request.PagedListRequestDto;
+import com.dataart.edu.message.dto.request.PagedSightingRequestDto;
 import com.dataart.edu.message.dto.request.SightingRequestDto;
+import com.dataart.edu.message.dto.request.SyncListRequestDto;
+import com.dataart.edu.message.dto.response.ServerResponseDto;
 import com.esotericsoftware.kryo.Kryo;
+import java.util.ArrayList;
 
 /**
- * Class which allows to get Kryo instance, bounded to current Thread.
+ * Class which allows to create Kryo instance with registered messages.
+ * <p>
+ * All messages are registered with fixed IDs, so type of message is written
+ * to stream as short number, and message can be read in one pass, without
+ * knowing its type in advance. IDs are part of protocol and must not be
+ * changed. Tracking of references is disabled, messages are trees of
+ * objects. Registration is required: class, which is not registered, is
+ * neither written nor read, so message from network can not name any other
+ * class of classpath to be loaded and instantiated.
  *
  * @see Information about
  * <a href="https://github.com/EsotericSoftware/kryo">Kryo project</a>.
- * @see ThreadLocal
  * @author alitvinov
  * @version 1.0.0
  * @since 2017-09-07
@@ -18,20 +33,54 @@ import com.esotericsoftware.kryo.Kryo;
 public final class KryoUtil {
 
     /**
-     * Storage of Kryo instances, which are bounded to Thread.
-     */
-    private static final ThreadLocal<Kryo> KRYOS = new ThreadLocal<Kryo>() {
-        @Override
-        protected Kryo initialValue() {
-            Kryo kryo = new Kryo();                            
-            kryo.register(BaseClientRequestDto.class, new BaseClientRequestDto.BaseClientRequestDtoSerializer());
-            kryo.register(AddBirdRequestDto.class, new AddBirdRequestDto.AddBirdRequestDtoSerializer());
-            kryo.register(SightingRequestDto.class, new SightingRequestDto.SightingRequestDtoSerializer());            
-            return kryo;
-        }
-    ;
+     * ID of BaseClientRequestDto.
+     */
+    public static final int BASE_CLIENT_REQUEST_ID = 20;
+    /**
+     * ID of AddBirdRequestDto.
+     */
+    public static final int ADD_BIRD_REQUEST_ID = 21;
+    /**
+     * ID of SightingRequestDto.
+     */
+    public static final int SIGHTING_REQUEST_ID = 22;
+    /**
+     * ID of ServerResponseDto.
+     */
+    public static final int SERVER_RESPONSE_ID = 23;
+    /**
+     * ID of BirdDto.
+     */
+    public static final int BIRD_ID = 24;
+    /**
+     * ID of BirdSightDto.
+     */
+    public static final int BIRD_SIGHT_ID = 25;
+    /**
+     * ID of ArrayList, which is used for results in ServerResponseDto.
+     */
+    public static final int ARRAY_LIST_ID = 26;
+    /**
+     * ID of PagedListRequestDto.
+     */
+    public static final int PAGED_LIST_REQUEST_ID = 27;
+    /**
+     * ID of PagedSightingRequestDto.
+     */
+    public static final int PAGED_SIGHTING_REQUEST_ID = 28;
+    /**
+     * ID of SyncListRequestDto.
+     */
+    public static final int SYNC_LIST_REQUEST_ID = 29;
+    /**
+     * ID of BatchRequestDto.
+     */
+    public static final int BATCH_REQUEST_ID = 30;
+    /**
+     * ID of Object[], which can be element of results in ServerResponseDto.
+     */
+    public static final int OBJECT_ARRAY_ID = 31;
 
-    };
     /**
      * Make private in order nobody can create instance of this class.
      */
@@ -39,14 +88,33 @@ public final class KryoUtil {
     }
 
     /**
-     * Get Kryo instance, bounded to current Thread.
+     * Create Kryo instance with registered messages. Kryo is not thread safe,
+     * so instances are pooled by KryoMessageCodec.
      *
      * @return Kryo
      * @see Information about
      * <a href="https://github.com/EsotericSoftware/kryo">Kryo project</a>.
-     * @see ThreadLocal
+     * @see com.dataart.edu.message.codec.KryoMessageCodec
      */
-    public static Kryo getKryoForThread() {
-        return KRYOS.get();
+    public static Kryo createKryo() {
+        Kryo kryo = new Kryo();
+        //messages do not contain shared or cyclic references, so marker of
+        //reference is not written before every object.
+        kryo.setReferences(false);
+        //messages come from network, only registered classes can be read.
+        kryo.setRegistrationRequired(true);
+        kryo.register(BaseClientRequestDto.class, new BaseClientRequestDto.BaseClientRequestDtoSerializer(), BASE_CLIENT_REQUEST_ID);
+        kryo.register(AddBirdRequestDto.class, new AddBirdRequestDto.AddBirdRequestDtoSerializer(), ADD_BIRD_REQUEST_ID);
+        kryo.register(SightingRequestDto.class, new SightingRequestDto.SightingRequestDtoSerializer(), SIGHTING_REQUEST_ID);
+        kryo.register(ServerResponseDto.class, new ServerResponseDto.ServerResponseDtoSerializer(), SERVER_RESPONSE_ID);
+        kryo.register(BirdDto.class, new BirdDto.BirdDtoSerializer(), BIRD_ID);
+        kryo.register(BirdSightDto.class, new BirdSightDto.BirdSightDtoSerializer(), BIRD_SIGHT_ID);
+        kryo.register(ArrayList.class, ARRAY_LIST_ID);
+        kryo.register(PagedListRequestDto.class, new PagedListRequestDto.PagedListRequestDtoSerializer(), PAGED_LIST_REQUEST_ID);
+        kryo.register(PagedSightingRequestDto.class, new PagedSightingRequestDto.PagedSightingRequestDtoSerializer(), PAGED_SIGHTING_REQUEST_ID);
+        kryo.register(SyncListRequestDto.class, new SyncListRequestDto.SyncListRequestDtoSerializer(), SYNC_LIST_REQUEST_ID);
+        kryo.register(BatchRequestDto.class, new BatchRequestDto.BatchRequestDtoSerializer(), BATCH_REQUEST_ID);
+        kryo.register(Object[].class, OBJECT_ARRAY_ID);
+        return kryo;
     }
 }
@@ -0,0 +1,51 @@
+package com.dataart.edu.protocol.structs;
+
+import com.dataart.edu.message.format.util.ByteBufferPool;
+import java.nio.ByteBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Check acquiring and releasing of buffers in ByteBufferPool.
+ *
+ * @see ByteBufferPool
+ * @author alitvinov
+ */
+public class ByteBufferPoolTest {
+
+    /**
+     * Released buffer must be reused by next request of the same size class.
+     */
+    @Test
+    public void testReleasedBufferIsReused() {
+        ByteBufferPool pool = new ByteBufferPool(false, 1024, 4);
+        ByteBuffer buffer = pool.acquire(300);
+        Assert.assertEquals(512, buffer.capacity());
+        Assert.assertEquals(300, buffer.limit());
+        Assert.assertEquals(1, pool.getMisses());
+        pool.release(buffer);
+        ByteBuffer reused = pool.acquire(400);
+        Assert.assertSame(buffer, reused);
+        Assert.assertEquals(400, reused.limit());
+        Assert.assertEquals(0, reused.position());
+        Assert.assertEquals(1, pool.getHits());
+    }
+
+    /**
+     * Buffers bigger then max size class and foreign buffers must not be
+     * pooled.
+     */
+    @Test
+    public void testNotPooledBuffers() {
+        ByteBufferPool pool = new ByteBufferPool(true, 1024, 4);
+        ByteBuffer big = pool.acquire(5000);
+        Assert.assertTrue(big.isDirect());
+        Assert.assertEquals(5000, big.capacity());
+        pool.release(big);
+        pool.release(ByteBuffer.allocate(1024));
+        Assert.assertNotSame(big, pool.acquire(5000));
+        Assert.assertTrue(pool.acquire(1024).isDirect());
+        Assert.assertEquals(0, pool.getHits());
+        Assert.assertEquals(3, pool.getMisses());
+    }
+}
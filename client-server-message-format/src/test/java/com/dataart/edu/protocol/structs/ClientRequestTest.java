@@ -5,11 +5,21 @@
  */
 package com.dataart.edu.protocol.structs;
 
+import com.dataart.edu.message.codec.KryoMessageCodec;
 import com.dataart.edu.message.dto.request.ClientAction;
 import com.dataart.edu.message.dto.BaseMessageDto;
 import com.dataart.edu.message.dto.request.AddBirdRequestDto;
 import com.dataart.edu.message.dto.request.BaseClientRequestDto;
+import com.dataart.edu.message.dto.request.BatchRequestDto;
+import com.dataart.edu.message.dto.request.PagedListRequestDto;
+import com.dataart.edu.message.dto.request.PagedSightingRequestDto;
+import com.dataart.edu.message.dto.request.SightingRequestDto;
+import com.dataart.edu.message.dto.request.SyncListRequestDto;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Collections;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -53,8 +63,120 @@ public class ClientRequestTest {
         byte[] requestAsBytes = BaseMessageDto.serialize(request);
         BaseClientRequestDto baseRequest=BaseMessageDto.deserialize(Arrays.copyOfRange(requestAsBytes, Integer.BYTES, requestAsBytes.length), BaseClientRequestDto.class);    
         assertTrue(baseRequest.getCommand()==ClientAction.ADD);
+        //concrete type is read in one pass
+        assertTrue(baseRequest instanceof AddBirdRequestDto);
+        assertTrue(request.getColor().equals(((AddBirdRequestDto) baseRequest).getColor()));
         AddBirdRequestDto expected = BaseMessageDto.deserialize(Arrays.copyOfRange(requestAsBytes, Integer.BYTES, requestAsBytes.length), AddBirdRequestDto.class);                
         assertTrue(request.getName().equals(expected.getName()));
         assertTrue(request.getColor().equals(expected.getColor()));        
     }        
+
+    /**
+     * Sighting request must keep dates, and be encoded compactly: command as
+     * varint code, dates as varlong.
+     */
+    @Test
+    public void testSightingRequestCompactEncoding() {
+        long start = 1505001600000L;
+        SightingRequestDto request = new SightingRequestDto(ClientAction.LIST_SIGHTS, "name", "location", start, start + 3600000L);
+        byte[] requestAsBytes = BaseMessageDto.serialize(request);
+        SightingRequestDto expected = BaseMessageDto.deserialize(Arrays.copyOfRange(requestAsBytes, Integer.BYTES, requestAsBytes.length), SightingRequestDto.class);
+        assertEquals(request, expected);
+        //class ID, version, code, 2 strings, 6 bytes of start, 4 bytes of delta
+        assertTrue(requestAsBytes.length - Integer.BYTES <= 1 + 1 + 1 + "name".length() + "location".length() + 6 + 4);
+        SightingRequestDto withoutEnd = new SightingRequestDto(ClientAction.ADD_SIGHT, "name", "location", start);
+        byte[] withoutEndAsBytes = BaseMessageDto.serialize(withoutEnd);
+        assertEquals(withoutEnd, BaseMessageDto.deserialize(Arrays.copyOfRange(withoutEndAsBytes, Integer.BYTES, withoutEndAsBytes.length), SightingRequestDto.class));
+    }
+
+    /**
+     * Page requests must keep size of page and cursor.
+     */
+    @Test
+    public void testPageRequests() {
+        PagedListRequestDto listRequest = new PagedListRequestDto(50, null);
+        byte[] listAsBytes = BaseMessageDto.serialize(listRequest);
+        BaseClientRequestDto listExpected = BaseMessageDto.deserialize(Arrays.copyOfRange(listAsBytes, Integer.BYTES, listAsBytes.length), BaseClientRequestDto.class);
+        assertTrue(listExpected instanceof PagedListRequestDto);
+        assertEquals(listRequest, listExpected);
+        PagedSightingRequestDto sightRequest = new PagedSightingRequestDto("name", "location", 1505001600000L, 1505088000000L, 10, new byte[]{1, 2, 3});
+        byte[] sightAsBytes = BaseMessageDto.serialize(sightRequest);
+        BaseClientRequestDto sightExpected = BaseMessageDto.deserialize(Arrays.copyOfRange(sightAsBytes, Integer.BYTES, sightAsBytes.length), BaseClientRequestDto.class);
+        assertTrue(sightExpected instanceof PagedSightingRequestDto);
+        assertEquals(sightRequest, sightExpected);
+        assertEquals(ClientAction.LIST_SIGHTS, sightExpected.getCommand());
+        //fields of superclass are compared too.
+        PagedListRequestDto otherList = new PagedListRequestDto(50, null);
+        otherList.setName("other");
+        assertNotEquals(listRequest, otherList);
+        assertNotEquals(sightRequest, new PagedSightingRequestDto("name", "other location", 1505001600000L, 1505088000000L, 10, new byte[]{1, 2, 3}));
+    }
+
+    /**
+     * Message, which names not registered class, must be rejected before
+     * instance of that class is created.
+     */
+    @Test
+    public void testUnregisteredClassIsNotRead() {
+        Output output = new Output(256);
+        new Kryo().writeClassAndObject(output, new UnregisteredProbe());
+        UnregisteredProbe.created = 0;
+        try {
+            new KryoMessageCodec().decode(ByteBuffer.wrap(output.toBytes()), BaseMessageDto.class);
+            fail("Not registered class was read");
+        } catch (RuntimeException e) {
+            assertEquals("Not registered class was created", 0, UnregisteredProbe.created);
+        }
+    }
+
+    /**
+     * Sync requests must be equal only with the same token and fields of
+     * superclass.
+     */
+    @Test
+    public void testSyncListRequestEquality() {
+        SyncListRequestDto request = new SyncListRequestDto(new byte[]{3, 9});
+        assertEquals(request, new SyncListRequestDto(new byte[]{3, 9}));
+        assertNotEquals(request, new SyncListRequestDto(new byte[]{3, 8}));
+        SyncListRequestDto named = new SyncListRequestDto(new byte[]{3, 9});
+        named.setName("name");
+        assertNotEquals(request, named);
+    }
+
+    /**
+     * Batch requests with the same items and different commands must not be
+     * equal.
+     */
+    @Test
+    public void testBatchRequestEquality() {
+        BatchRequestDto request = new BatchRequestDto(ClientAction.ADD_BATCH, Collections.emptyList());
+        assertEquals(request, new BatchRequestDto(ClientAction.ADD_BATCH, Collections.emptyList()));
+        assertNotEquals(request, new BatchRequestDto(ClientAction.ADD_SIGHT_BATCH, Collections.emptyList()));
+    }
+
+    @Test
+    public void testActionCodes() {
+        for (ClientAction action : ClientAction.values()) {
+            assertSame(action, ClientAction.fromCode(action.getCode()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownActionCode() {
+        ClientAction.fromCode(100);
+    }
+
+    /**
+     * Class, which is not registered in Kryo, and counts its instances.
+     */
+    public static class UnregisteredProbe {
+
+        private static int created;
+
+        private String payload = "payload";
+
+        public UnregisteredProbe() {
+            created++;
+        }
+    }
 }
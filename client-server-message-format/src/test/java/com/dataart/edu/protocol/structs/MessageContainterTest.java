@@ -5,28 +5,62 @@
  */
 package com.dataart.edu.protocol.structs;
 
+import com.dataart.edu.message.codec.BinaryMessageCodec;
+import com.dataart.edu.message.codec.KryoMessageCodec;
+import com.dataart.edu.message.codec.MessageCodec;
+import com.dataart.edu.message.codec.MessageCodecs;
 import com.dataart.edu.message.dto.BaseMessageDto;
+import com.dataart.edu.message.dto.BirdDto;
+import com.dataart.edu.message.dto.BirdSightDto;
+import com.dataart.edu.message.dto.request.AddBirdRequestDto;
 import com.dataart.edu.message.dto.request.BaseClientRequestDto;
+import com.dataart.edu.message.dto.request.BatchRequestDto;
 import com.dataart.edu.message.dto.request.ClientAction;
+import com.dataart.edu.message.dto.request.PagedListRequestDto;
+import com.dataart.edu.message.dto.request.PagedSightingRequestDto;
+import com.dataart.edu.message.dto.request.SightingRequestDto;
+import com.dataart.edu.message.dto.request.SyncListRequestDto;
+import com.dataart.edu.message.dto.response.ServerResponseDto;
 import com.dataart.edu.message.format.BinaryMessageReader;
+import com.dataart.edu.message.format.MessageFrame;
+import com.dataart.edu.message.format.util.ByteBufferPool;
+import com.dataart.edu.message.format.util.FrameCompression;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.Deflater;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 
 /**
- * Check reading of message using MessageContainter.
+ * Check reading of message using MessageContainter. Every test is run with
+ * every codec.
  *
  * @see MessageContainter.
  * @author alitvinov
  */
+@RunWith(Parameterized.class)
 public class MessageContainterTest {
 
-    public MessageContainterTest() {
+    private final MessageCodec codec;
+
+    public MessageContainterTest(String codecName) {
+        codec = MessageCodecs.byName(codecName);
+    }
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> codecs() {
+        return Arrays.asList(new Object[][]{{KryoMessageCodec.NAME}, {BinaryMessageCodec.NAME}});
     }
 
     @BeforeClass
@@ -52,7 +86,7 @@ public class MessageContainterTest {
     @Test
     public void testReadBytes() {
         BaseClientRequestDto request = new BaseClientRequestDto(ClientAction.ADD, "test");
-        byte[] objectAsBytes = BaseMessageDto.serialize(request);
+        byte[] objectAsBytes = codec.encode(request, false, 0, (byte) 0);
         int bufferSize = 7, counter = 0;
         ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
         BinaryMessageReader conveyor = new BinaryMessageReader(null);        
@@ -71,7 +105,198 @@ public class MessageContainterTest {
             buffer.clear();
         }
         Assert.assertTrue(expectedAsBytes != null);
-        BaseClientRequestDto expected=BaseMessageDto.deserialize(expectedAsBytes, BaseClientRequestDto.class);
+        BaseClientRequestDto expected=codec.decode(ByteBuffer.wrap(expectedAsBytes), BaseClientRequestDto.class);
         Assert.assertEquals(expected.getName(), request.getName());        
     }
+
+    /**
+     * Several messages in one buffer must be read, and not finished message at
+     * the end of buffer must be continued by next buffer.
+     */
+    @Test
+    public void testReadCoalescedMessages() {
+        byte[][] messages = new byte[][]{
+            codec.encode(new BaseClientRequestDto(ClientAction.ADD, "first"), false, 0, (byte) 0),
+            codec.encode(new BaseClientRequestDto(ClientAction.REMOVE, "second"), true, 7, MessageFrame.FLAG_OUT_OF_ORDER),
+            codec.encode(new BaseClientRequestDto(ClientAction.LIST, "third"), false, 0, (byte) 0)};
+        ByteBuffer allMessages = ByteBuffer.allocate(messages[0].length + messages[1].length + messages[2].length);
+        for (byte[] message : messages) {
+            allMessages.put(message);
+        }
+        allMessages.flip();
+        //second message is sent with header.
+        //first buffer contains first message, second message and part of
+        //length of third message, second buffer contains the rest.
+        int firstPartLength = messages[0].length + messages[1].length + 2;
+        ByteBuffer firstPart = ByteBuffer.allocateDirect(firstPartLength);
+        ByteBuffer secondPart = ByteBuffer.allocateDirect(allMessages.remaining() - firstPartLength);
+        for (int i = 0; i < firstPartLength; i++) {
+            firstPart.put(allMessages.get());
+        }
+        secondPart.put(allMessages);
+        firstPart.flip();
+        secondPart.flip();
+        BinaryMessageReader conveyor = new BinaryMessageReader(null);
+        List<MessageFrame> result = new ArrayList<>();
+        Assert.assertEquals(2, conveyor.readMessagesFromByteBuffer(firstPart, result::add));
+        Assert.assertFalse(firstPart.hasRemaining());
+        Assert.assertEquals(1, conveyor.readMessagesFromByteBuffer(secondPart, result::add));
+        Assert.assertFalse(result.get(0).isHeaderPresent());
+        Assert.assertEquals("first", codec.decode(result.get(0).getBody(), BaseClientRequestDto.class).getName());
+        Assert.assertTrue(result.get(1).isHeaderPresent());
+        Assert.assertEquals(7, result.get(1).getRequestId());
+        Assert.assertTrue(result.get(1).hasFlag(MessageFrame.FLAG_OUT_OF_ORDER));
+        Assert.assertEquals(ClientAction.REMOVE, codec.decode(result.get(1).getBody(), BaseClientRequestDto.class).getCommand());
+        Assert.assertFalse(result.get(2).isHeaderPresent());
+        Assert.assertEquals("third", codec.decode(result.get(2).getBody(), BaseClientRequestDto.class).getName());
+    }
+
+    /**
+     * Every type of message must be read as equal message, including null
+     * fields, non ASCII strings and cursors.
+     */
+    @Test
+    public void testRoundTripAllMessages() {
+        ServerResponseDto birds = new ServerResponseDto();
+        birds.setResultData(Arrays.asList(new BirdDto("Eurasian jay", null, 0.17, 0.3), new BirdDto("Сойка", "бурый", 0.18, 0.31)));
+        birds.setCursor(new byte[]{1, 2, 3});
+        ServerResponseDto sights = new ServerResponseDto();
+        sights.setResultData(Arrays.asList(new BirdSightDto("Eurasian jay", "forest", -1000L, 1505001600000L)));
+        ServerResponseDto changes = new ServerResponseDto();
+        changes.setResultData(Arrays.asList(new BirdDto("Сойка", "бурый", 0.18, 0.31)));
+        changes.setSyncToken(new byte[]{3, 9});
+        changes.setRemovedNames(Arrays.asList("Eurasian jay", "Сорока"));
+        ServerResponseDto error = new ServerResponseDto();
+        error.setSuccess(false);
+        error.setError("Bird not found.");
+        error.setItemErrors(Arrays.asList(null, "bird not found", null));
+        List<BaseMessageDto> messages = Arrays.asList(
+                new BaseClientRequestDto(ClientAction.REMOVE, "Eurasian jay"),
+                new BaseClientRequestDto(ClientAction.QUIT, null),
+                new AddBirdRequestDto(ClientAction.ADD, "Eurasian jay", "brown", 0.17, 0.3),
+                new SightingRequestDto(ClientAction.ADD_SIGHT, "Eurasian jay", "forest", 1505001600000L, 1505001600000L),
+                new SightingRequestDto(ClientAction.LIST_SIGHTS, "Eurasian.*", null, 0L, Long.MAX_VALUE),
+                new PagedListRequestDto(100, null),
+                new PagedSightingRequestDto("Eurasian.*", "for.*", 0L, 1505001600000L, 10, new byte[]{2, 0, 7}),
+                new SyncListRequestDto(null),
+                new SyncListRequestDto(new byte[]{3, 9}),
+                new BatchRequestDto(ClientAction.ADD_BATCH, Arrays.asList(new BirdDto("Eurasian jay", "brown", 0.17, 0.3), new BirdDto("Сойка", null, 0.18, 0.31))),
+                new BatchRequestDto(ClientAction.ADD_SIGHT_BATCH, Arrays.asList(new BirdSightDto("Eurasian jay", "forest", 1505001600000L))),
+                birds, sights, changes, error, new ServerResponseDto());
+        ByteBufferPool pool = new ByteBufferPool(true, 64 * 1024, 4);
+        for (BaseMessageDto message : messages) {
+            ByteBuffer frame = codec.encode(message, true, 5, (byte) 0, pool);
+            BinaryMessageReader conveyor = new BinaryMessageReader(null, pool);
+            MessageFrame read = conveyor.readMessageFrameFromByteBuffer(frame);
+            Assert.assertNotNull(read);
+            BaseMessageDto decoded = codec.decode(read.getBody(), BaseMessageDto.class);
+            Assert.assertEquals(message.getClass(), decoded.getClass());
+            Assert.assertEquals(message, decoded);
+            pool.release(read.getBody());
+            pool.release(frame);
+        }
+    }
+
+    /**
+     * Big compressible response must be compressed, and decompressed by
+     * reader transparently, for heap and direct buffers.
+     */
+    @Test
+    public void testReadCompressedMessage() {
+        List<BirdSightDto> sights = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            sights.add(new BirdSightDto("bird" + i % 10, "north river bank", 1505001600000L + i * 60000L));
+        }
+        ServerResponseDto response = new ServerResponseDto();
+        response.setResultData(sights);
+        for (boolean direct : new boolean[]{false, true}) {
+            ByteBufferPool pool = new ByteBufferPool(direct, 64 * 1024, 4);
+            ByteBuffer frame = codec.encode(response, true, 3, MessageFrame.FLAG_ACCEPT_COMPRESSED, pool);
+            int rawLength = frame.remaining();
+            ByteBuffer compressed = FrameCompression.compress(frame, Deflater.BEST_SPEED, pool);
+            Assert.assertTrue(compressed.remaining() * 4 < rawLength);
+            Assert.assertTrue((compressed.get(Integer.BYTES) & MessageFrame.FLAG_COMPRESSED) != 0);
+            BinaryMessageReader conveyor = new BinaryMessageReader(null, pool);
+            MessageFrame message = conveyor.readMessageFrameFromByteBuffer(compressed);
+            Assert.assertNotNull(message);
+            Assert.assertEquals(3, message.getRequestId());
+            Assert.assertTrue(message.hasFlag(MessageFrame.FLAG_ACCEPT_COMPRESSED));
+            Assert.assertFalse(message.hasFlag(MessageFrame.FLAG_COMPRESSED));
+            Assert.assertEquals(sights, codec.decode(message.getBody(), ServerResponseDto.class).getResultData());
+        }
+        //small message is not compressed.
+        ByteBuffer small = codec.encode(new ServerResponseDto(), true, 4, (byte) 0, ByteBufferPool.notPooled());
+        Assert.assertSame(small, FrameCompression.compress(small, Deflater.BEST_SPEED, ByteBufferPool.notPooled()));
+    }
+
+    /**
+     * Corrupted compressed body must be rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadCorruptedCompressedMessage() {
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + MessageFrame.HEADER_SIZE + 8);
+        frame.putInt((MessageFrame.HEADER_SIZE + 8) | MessageFrame.HEADER_PRESENT_MASK);
+        frame.put(MessageFrame.FLAG_COMPRESSED).putInt(1).putInt(100).putInt(0x12345678);
+        frame.flip();
+        new BinaryMessageReader(null).readMessageFrameFromByteBuffer(frame);
+    }
+
+    /**
+     * Compressed body, which claims uncompressed length longer then max length
+     * of frame or then deflate can produce, must be rejected before buffer of
+     * that length is taken. Reader, which does not accept compressed frames,
+     * must reject valid compressed frame.
+     */
+    @Test
+    public void testRejectCompressedFrameOfInvalidLength() {
+        for (int rawLength : new int[]{Integer.MAX_VALUE, 1024 * 1024, 8 * 1032 + 1}) {
+            ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + MessageFrame.HEADER_SIZE + 12);
+            frame.putInt((MessageFrame.HEADER_SIZE + 12) | MessageFrame.HEADER_PRESENT_MASK);
+            frame.put(MessageFrame.FLAG_COMPRESSED).putInt(1).putInt(rawLength).putLong(0);
+            frame.flip();
+            try {
+                new BinaryMessageReader(null, ByteBufferPool.notPooled(), 2 * 1024 * 1024, true).readMessageFrameFromByteBuffer(frame);
+                Assert.fail("Compressed frame of length " + rawLength + " was accepted");
+            } catch (IllegalArgumentException e) {
+                //expected
+            }
+        }
+        List<BirdSightDto> sights = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            sights.add(new BirdSightDto("bird", "location", i));
+        }
+        ServerResponseDto response = new ServerResponseDto();
+        response.setResultData(sights);
+        ByteBuffer compressed = FrameCompression.compress(codec.encode(response, true, 1, (byte) 0, ByteBufferPool.notPooled()),
+                Deflater.BEST_SPEED, ByteBufferPool.notPooled());
+        Assert.assertTrue((compressed.get(Integer.BYTES) & MessageFrame.FLAG_COMPRESSED) != 0);
+        try {
+            new BinaryMessageReader(null, ByteBufferPool.notPooled(), 2 * 1024 * 1024, false).readMessageFrameFromByteBuffer(compressed);
+            Assert.fail("Compressed frame was accepted");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+
+    /**
+     * Frame longer then max length of reader must be rejected before its body
+     * is buffered, frame of max length must be read.
+     */
+    @Test
+    public void testRejectFrameLongerThanMax() {
+        BinaryMessageReader conveyor = new BinaryMessageReader(null, ByteBufferPool.notPooled(), 16, true);
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + 16);
+        frame.putInt(16).put(new byte[16]).flip();
+        Assert.assertEquals(16, conveyor.readMessageFrameFromByteBuffer(frame).getBody().remaining());
+        for (int length : new int[]{17, ~MessageFrame.HEADER_PRESENT_MASK, Integer.MAX_VALUE | MessageFrame.HEADER_PRESENT_MASK}) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            header.putInt(length).flip();
+            try {
+                new BinaryMessageReader(null, ByteBufferPool.notPooled(), 16, true).readMessageFrameFromByteBuffer(header);
+                Assert.fail("Frame of length " + length + " was accepted");
+            } catch (IllegalArgumentException e) {
+                //expected
+            }
+        }
+    }
 }
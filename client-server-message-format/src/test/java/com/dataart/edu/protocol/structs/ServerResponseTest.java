@@ -6,13 +6,21 @@
 package com.dataart.edu.protocol.structs;
 
 import com.dataart.edu.message.dto.BaseMessageDto;
+import com.dataart.edu.message.dto.BirdDto;
+import com.dataart.edu.message.dto.BirdSightDto;
 import com.dataart.edu.message.dto.response.ServerResponseDto;
+import com.dataart.edu.message.format.BinaryMessageReader;
+import com.dataart.edu.message.format.MessageFrame;
+import com.dataart.edu.message.format.util.ByteBufferPool;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import org.junit.After;
 import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -52,4 +60,46 @@ public class ServerResponseTest {
         assertEquals(expected.getResultData().size(), serverAnswer.getResultData().size());
     }
 
+    /**
+     * Response, which does not fit into first buffer, must be serialized into
+     * bigger buffer from pool, with the same bytes as in byte array.
+     */
+    @Test
+    public void testSerializeToPooledBuffer() {
+        ServerResponseDto serverAnswer = new ServerResponseDto();
+        List<BirdDto> birds = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            birds.add(new BirdDto("bird" + i, "color", 1.0, 2.0));
+        }
+        serverAnswer.setResultData(birds);
+        ByteBufferPool pool = new ByteBufferPool(true, 64 * 1024, 4);
+        ByteBuffer frame = BaseMessageDto.serialize(serverAnswer, 7, MessageFrame.FLAG_OUT_OF_ORDER, pool);
+        byte[] expectedFrame = BaseMessageDto.serialize(serverAnswer, 7, MessageFrame.FLAG_OUT_OF_ORDER);
+        assertTrue(frame.isDirect());
+        assertEquals(0, frame.position());
+        assertEquals(expectedFrame.length, frame.remaining());
+        byte[] frameAsBytes = new byte[frame.remaining()];
+        frame.duplicate().get(frameAsBytes);
+        assertArrayEquals(expectedFrame, frameAsBytes);
+        MessageFrame message = new BinaryMessageReader(null).readMessageFrameFromByteBuffer(frame);
+        assertEquals(7, message.getRequestId());
+        assertEquals(birds, BaseMessageDto.deserialize(message.getBody(), ServerResponseDto.class).getResultData());
+    }
+
+    /**
+     * Lists with elements of different classes and null elements, and absent
+     * list must be read as they were written.
+     */
+    @Test
+    public void testHeterogeneousAndAbsentResultData() {
+        ServerResponseDto serverAnswer = new ServerResponseDto();
+        serverAnswer.setSuccess(false);
+        byte[] asBytes = BaseMessageDto.serialize(serverAnswer);
+        ServerResponseDto expected = BaseMessageDto.deserialize(Arrays.copyOfRange(asBytes, Integer.BYTES, asBytes.length), ServerResponseDto.class);
+        assertEquals(serverAnswer, expected);
+        serverAnswer.setResultData(Arrays.asList(new BirdDto("bird", "color", 1.0, 2.0), new BirdSightDto("bird", "location", 10L), null));
+        asBytes = BaseMessageDto.serialize(serverAnswer);
+        expected = BaseMessageDto.deserialize(Arrays.copyOfRange(asBytes, Integer.BYTES, asBytes.length), ServerResponseDto.class);
+        assertEquals(serverAnswer.getResultData(), expected.getResultData());
+    }
 }
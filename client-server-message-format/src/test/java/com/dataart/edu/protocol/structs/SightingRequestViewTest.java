@@ -0,0 +1,106 @@
+package com.dataart.edu.protocol.structs;
+
+import com.dataart.edu.message.codec.BinaryMessageCodec;
+import com.dataart.edu.message.codec.KryoMessageCodec;
+import com.dataart.edu.message.codec.SightingRequestView;
+import com.dataart.edu.message.dto.request.BaseClientRequestDto;
+import com.dataart.edu.message.dto.request.ClientAction;
+import com.dataart.edu.message.dto.request.SightingRequestDto;
+import com.dataart.edu.message.format.util.ByteBufferPool;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Check reading of sighting requests through SightingRequestView.
+ *
+ * @see SightingRequestView
+ * @author alitvinov
+ */
+public class SightingRequestViewTest {
+
+    private static final int ITERATIONS = 20000;
+
+    private final BinaryMessageCodec codec = new BinaryMessageCodec();
+
+    private final SightingRequestDto request = new SightingRequestDto(ClientAction.ADD_SIGHT, "Сойка", "river bank", 1505001600000L);
+
+    /**
+     * View must expose the same fields as decoded request, for heap and
+     * direct buffers, and must not change position of body.
+     */
+    @Test
+    public void testViewFields() {
+        for (boolean direct : new boolean[]{false, true}) {
+            ByteBuffer body = body(new ByteBufferPool(direct, 1024, 4));
+            SightingRequestView view = new SightingRequestView();
+            int position = body.position();
+            Assert.assertTrue(codec.wrapSighting(body, view));
+            Assert.assertEquals(position, body.position());
+            Assert.assertEquals(ClientAction.ADD_SIGHT, view.getCommand());
+            Assert.assertEquals(request.getStart(), view.getStart());
+            Assert.assertEquals(request.getEnd(), view.getEnd());
+            Assert.assertEquals(request.getName(), view.getName());
+            Assert.assertEquals(request.getLocation(), view.getLocation());
+            Assert.assertEquals(request, view.toRequest());
+            Assert.assertEquals(request, codec.decode(body, SightingRequestDto.class));
+        }
+        //other messages and codecs are read as usual.
+        ByteBuffer other = ByteBuffer.wrap(codec.encode(new BaseClientRequestDto(ClientAction.LIST), false, 0, (byte) 0));
+        other.position(Integer.BYTES);
+        Assert.assertFalse(codec.wrapSighting(other, new SightingRequestView()));
+        ByteBuffer kryoBody = ByteBuffer.wrap(new KryoMessageCodec().encode(request, false, 0, (byte) 0));
+        kryoBody.position(Integer.BYTES);
+        Assert.assertFalse(new KryoMessageCodec().wrapSighting(kryoBody, new SightingRequestView()));
+    }
+
+    /**
+     * Reading of command and dates of request through reused view must not
+     * allocate memory, unlike decoding of request. Allocation of whole path
+     * of ADD_SIGHT in server is checked by SightIngestAllocationTest.
+     */
+    @Test
+    public void testViewDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threadBean = threadBean();
+        ByteBuffer body = body(new ByteBufferPool(true, 1024, 4));
+        SightingRequestView view = new SightingRequestView();
+        long checksum = 0;
+        //warm up, so measured loop runs compiled code.
+        for (int i = 0; i < ITERATIONS; i++) {
+            checksum += readView(body, view) + codec.decode(body, SightingRequestDto.class).getStart();
+        }
+        long before = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (int i = 0; i < ITERATIONS; i++) {
+            checksum += readView(body, view);
+        }
+        long viewBytes = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+        before = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (int i = 0; i < ITERATIONS; i++) {
+            checksum += codec.decode(body, SightingRequestDto.class).getStart();
+        }
+        long decodeBytes = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+        Assert.assertNotEquals(0, checksum);
+        Assert.assertTrue("View: " + viewBytes / ITERATIONS + " bytes per request", viewBytes / ITERATIONS < 8);
+        Assert.assertTrue("Decode: " + decodeBytes / ITERATIONS + " bytes per request", decodeBytes / ITERATIONS > 64);
+    }
+
+    private long readView(ByteBuffer body, SightingRequestView view) {
+        codec.wrapSighting(body, view);
+        return view.getCommand().getCode() + view.getStart() + view.getEnd();
+    }
+
+    private ByteBuffer body(ByteBufferPool pool) {
+        ByteBuffer frame = codec.encode(request, false, 0, (byte) 0, pool);
+        frame.position(Integer.BYTES);
+        return frame;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+        return threadBean;
+    }
+}
@@ -0,0 +1,115 @@
+package com.dataart.edu.client;
+
+import com.dataart.edu.message.dto.request.BatchRequestDto;
+import com.dataart.edu.message.dto.request.ClientAction;
+import com.dataart.edu.message.dto.response.ServerResponseDto;
+import java.io.Flushable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Collector of birds or sightings, which sends them to server by batches.
+ * <p>
+ * Items are collected, until batch is full, then batch is submitted as one
+ * ADD_BATCH or ADD_SIGHT_BATCH request without waiting for response. Not full
+ * batch is sent by {@link #flush}. Every item gets its own future, which is
+ * completed, when response to its batch is received. Sender can be used from
+ * many threads.
+ *
+ * @param <T> BirdDto for ADD_BATCH, BirdSightDto for ADD_SIGHT_BATCH.
+ * @author alitvinov
+ * @version 1.0.0
+ * @see Client#batchBirds
+ * @see Client#batchSights
+ */
+public class BatchSender<T> implements Flushable {
+
+    private final Client client;
+    private final ClientAction command;
+    private final int batchSize;
+    /**
+     * Items of the current batch.
+     */
+    private List<T> items;
+    /**
+     * Futures of items of the current batch.
+     */
+    private List<CompletableFuture<Void>> results;
+
+    /**
+     * Create sender.
+     *
+     * @param client connected client.
+     * @param command ADD_BATCH or ADD_SIGHT_BATCH.
+     * @param batchSize max number of items in one request.
+     */
+    BatchSender(Client client, ClientAction command, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Invalid size of batch.");
+        }
+        this.client = client;
+        this.command = command;
+        this.batchSize = batchSize;
+        newBatch();
+    }
+
+    /**
+     * Add item to batch, and send batch, if it is full.
+     *
+     * @param item bird or sighting.
+     * @return future, which is completed, when item is added by server, or
+     * exceptionally with IllegalArgumentException, if server did not add
+     * item, or with IOException, if connection fails.
+     */
+    public synchronized CompletableFuture<Void> add(T item) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        items.add(item);
+        results.add(result);
+        if (items.size() >= batchSize) {
+            flush();
+        }
+        return result;
+    }
+
+    /**
+     * Send not full batch. Does nothing, if batch is empty.
+     */
+    @Override
+    public synchronized void flush() {
+        if (items.isEmpty()) {
+            return;
+        }
+        List<CompletableFuture<Void>> batchResults = results;
+        client.submit(new BatchRequestDto(command, items))
+                .whenComplete((response, failure) -> completeItems(batchResults, response, failure));
+        newBatch();
+    }
+
+    private void newBatch() {
+        items = new ArrayList<>(batchSize);
+        results = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * Complete futures of items of batch by response of server.
+     *
+     * @param batchResults futures of items.
+     * @param response response to batch or null, if request failed.
+     * @param failure reason of failure of request.
+     */
+    private static void completeItems(List<CompletableFuture<Void>> batchResults, ServerResponseDto response, Throwable failure) {
+        if (failure == null && (response.getItemErrors() == null || response.getItemErrors().size() != batchResults.size())) {
+            failure = new IllegalArgumentException(response.getError());
+        }
+        for (int i = 0; i < batchResults.size(); i++) {
+            if (failure != null) {
+                batchResults.get(i).completeExceptionally(failure);
+            } else if (response.getItemErrors().get(i) != null) {
+                batchResults.get(i).completeExceptionally(new IllegalArgumentException(response.getItemErrors().get(i)));
+            } else {
+                batchResults.get(i).complete(null);
+            }
+        }
+    }
+}
@@ -1,26 +1,53 @@
 package com.dataart.edu.client;
 
+import com.dataart.edu.message.codec.MessageCodec;
+import com.dataart.edu.message.codec.MessageCodecs;
 import com.dataart.edu.message.dto.BirdDto;
 import com.dataart.edu.message.dto.BirdSightDto;
-import com.dataart.edu.message.dto.BaseMessageDto;
 import com.dataart.edu.message.dto.request.BaseClientRequestDto;
+import static com.dataart.edu.message.dto.request.ClientAction.ADD_BATCH;
 import static com.dataart.edu.message.dto.request.ClientAction.ADD_SIGHT;
+import static com.dataart.edu.message.dto.request.ClientAction.ADD_SIGHT_BATCH;
 import static com.dataart.edu.message.dto.request.ClientAction.LIST_SIGHTS;
 import static com.dataart.edu.message.dto.request.ClientAction.QUIT;
 import com.dataart.edu.message.format.BinaryMessageReader;
+import com.dataart.edu.message.format.MessageFrame;
 import com.dataart.edu.message.dto.response.ServerResponseDto;
 import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 
 /**
  * Client class.
+ * <p>
+ * Commands can be executed one by one with {@link #execute}, or pipelined with
+ * {@link #submit}: many requests are sent without waiting for responses, and
+ * responses are matched with requests by request ID in separate reader
+ * thread. After first call of submit all commands are sent with request ID.
+ * <p>
+ * Results of LIST and LIST_SIGHTS can be received as stream of chunks with
+ * {@link #stream}: server sends rows in bounded chunk frames, and every chunk
+ * is passed to consumer as soon as it is read.
+ * <p>
+ * Many birds or sightings can be added with {@link #batchBirds} and
+ * {@link #batchSights}: items are sent by batches in ADD_BATCH and
+ * ADD_SIGHT_BATCH requests.
  *
  * @author alitvinov
  * @version 1.0.0
@@ -50,6 +77,56 @@ public class Client implements Closeable {
      * Client socket channel.
      */
     private SocketChannel socketClientChannel;
+    /**
+     * Reader of messages from server. It keeps not finished message between
+     * reads.
+     */
+    private final BinaryMessageReader messageReadConveyor = new BinaryMessageReader(null);
+    /**
+     * Buffer, in which data from channel is read.
+     */
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(DEFAULT_CLIENT_BUFFER_SIZE);
+    /**
+     * Messages, which were read from channel, but not processed yet.
+     */
+    private final Queue<ByteBuffer> receivedMessages = new ArrayDeque<>();
+    /**
+     * ID of next pipelined request.
+     */
+    private final AtomicInteger nextRequestId = new AtomicInteger(0);
+    /**
+     * Pipelined requests, which wait for response, by request ID.
+     */
+    private final Map<Integer, PendingRequest> pendingRequests = new ConcurrentHashMap<>();
+    /**
+     * Lock for writing of requests to channel.
+     */
+    private final Object writeLock = new Object();
+    /**
+     * Thread, which reads responses to pipelined requests.
+     */
+    private volatile Thread responseReader;
+    /**
+     * Reason of failure of response reader, all pipelined requests fail after
+     * it.
+     */
+    private volatile IOException readerFailure;
+    /**
+     * Is server allowed to answer to pipelined requests in any order.
+     */
+    @Setter
+    private volatile boolean outOfOrder = false;
+    /**
+     * Does client accept compressed responses to pipelined requests. Server
+     * compresses only big responses, they are decompressed by reader.
+     */
+    @Setter
+    private volatile boolean compressionAccepted = false;
+    /**
+     * Codec of requests and responses, must be the same as codec of server.
+     */
+    @Setter
+    private volatile MessageCodec codec = MessageCodecs.defaultCodec();
 
     /**
      * Try to connect to server.
@@ -70,17 +147,13 @@ public class Client implements Closeable {
      * @see ServerResponseDto
      */
     public ServerResponseDto execute(BaseClientRequestDto command) throws IOException {
-        socketClientChannel.write(ByteBuffer.wrap(BaseMessageDto.serialize(command)));
-        ByteBuffer buffer = ByteBuffer.allocate(DEFAULT_CLIENT_BUFFER_SIZE);
-        int numberBytesRead;        
-        BinaryMessageReader messageReadConveyor = new BinaryMessageReader(null);
-        byte[] serverResponseAsBytes=null;
-        while (serverResponseAsBytes == null && (numberBytesRead = socketClientChannel.read(buffer)) > 0) {
-            buffer.flip();
-            serverResponseAsBytes = messageReadConveyor.readMessageFromByteBuffer(buffer, numberBytesRead);
-            buffer.clear();
-        }
-        ServerResponseDto serverResponse=BaseMessageDto.deserialize(serverResponseAsBytes, ServerResponseDto.class);
+        ServerResponseDto serverResponse;
+        if (responseReader != null) {
+            serverResponse = waitForResponse(submit(command));
+        } else {
+            writeMessage(ByteBuffer.wrap(codec.encode(command, false, 0, (byte) 0)));
+            serverResponse = codec.decode(readMessage(), ServerResponseDto.class);
+        }
         if (serverResponse != null && serverResponse.isSuccess()) {
             displayResults(serverResponse, command);
         } else if (serverResponse != null) {
@@ -89,6 +162,209 @@ public class Client implements Closeable {
         return serverResponse;
     }
 
+    /**
+     * Send command to server without waiting for response. Many commands can
+     * be submitted from different threads at the same time.
+     *
+     * @param command command to send to server.
+     * @return future, which is completed with response of server, or
+     * exceptionally, if connection fails.
+     */
+    public CompletableFuture<ServerResponseDto> submit(BaseClientRequestDto command) {
+        return submit(command, null);
+    }
+
+    /**
+     * Send command to server and receive result as stream of chunks. Chunks
+     * are passed to consumer in reader thread in the same order, in which
+     * server sent them, so consumer must not block for long time.
+     *
+     * @param command command to send to server, LIST or LIST_SIGHTS.
+     * @param chunkConsumer consumer of chunks of result.
+     * @return future, which is completed with the last chunk of response, after
+     * it was passed to consumer, or exceptionally, if connection or consumer
+     * fails.
+     */
+    public CompletableFuture<ServerResponseDto> stream(BaseClientRequestDto command, Consumer<ServerResponseDto> chunkConsumer) {
+        return submit(command, Objects.requireNonNull(chunkConsumer));
+    }
+
+    /**
+     * Create sender of birds by batches. Batches are sent as pipelined
+     * requests.
+     *
+     * @param batchSize max number of birds in one request.
+     * @return sender of birds.
+     */
+    public BatchSender<BirdDto> batchBirds(int batchSize) {
+        return new BatchSender<>(this, ADD_BATCH, batchSize);
+    }
+
+    /**
+     * Create sender of sightings by batches. Batches are sent as pipelined
+     * requests.
+     *
+     * @param batchSize max number of sightings in one request.
+     * @return sender of sightings.
+     */
+    public BatchSender<BirdSightDto> batchSights(int batchSize) {
+        return new BatchSender<>(this, ADD_SIGHT_BATCH, batchSize);
+    }
+
+    /**
+     * Send command to server without waiting for response.
+     *
+     * @param command command to send to server.
+     * @param chunkConsumer consumer of chunks of streamed response, null if
+     * response is not streamed.
+     * @return future of response.
+     */
+    private CompletableFuture<ServerResponseDto> submit(BaseClientRequestDto command, Consumer<ServerResponseDto> chunkConsumer) {
+        PendingRequest request = new PendingRequest(chunkConsumer);
+        CompletableFuture<ServerResponseDto> response = request.response;
+        startResponseReader();
+        int requestId = nextRequestId.incrementAndGet();
+        pendingRequests.put(requestId, request);
+        //reader could fail before request was registered.
+        if (readerFailure != null) {
+            pendingRequests.remove(requestId);
+            response.completeExceptionally(readerFailure);
+            return response;
+        }
+        byte flags = outOfOrder ? MessageFrame.FLAG_OUT_OF_ORDER : 0;
+        if (chunkConsumer != null) {
+            flags |= MessageFrame.FLAG_STREAM;
+        }
+        if (compressionAccepted) {
+            flags |= MessageFrame.FLAG_ACCEPT_COMPRESSED;
+        }
+        try {
+            writeMessage(ByteBuffer.wrap(codec.encode(command, true, requestId, flags)));
+        } catch (IOException e) {
+            pendingRequests.remove(requestId);
+            response.completeExceptionally(e);
+        }
+        return response;
+    }
+
+    /**
+     * Wait for response to pipelined command.
+     *
+     * @param response future of response.
+     * @return response of server.
+     * @throws IOException if connection fails or waiting is interrupted.
+     */
+    private ServerResponseDto waitForResponse(CompletableFuture<ServerResponseDto> response) throws IOException {
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Waiting for response was interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Start reader of responses to pipelined requests, if it is not started
+     * yet.
+     */
+    private synchronized void startResponseReader() {
+        if (responseReader != null) {
+            return;
+        }
+        Thread reader = new Thread(this::readResponses, "client-response-reader");
+        reader.setDaemon(true);
+        reader.start();
+        responseReader = reader;
+    }
+
+    /**
+     * Read responses to pipelined requests, until connection is closed.
+     */
+    private void readResponses() {
+        try {
+            while (true) {
+                readBuffer.clear();
+                if (socketClientChannel.read(readBuffer) < 0) {
+                    throw new IOException("Connection closed by server.");
+                }
+                readBuffer.flip();
+                messageReadConveyor.readMessagesFromByteBuffer(readBuffer, this::completeRequest);
+            }
+        } catch (IOException | RuntimeException e) {
+            readerFailure = e instanceof IOException ? (IOException) e : new IOException(e);
+            pendingRequests.values().forEach(request -> request.response.completeExceptionally(readerFailure));
+            pendingRequests.clear();
+        }
+    }
+
+    /**
+     * Complete pipelined request with received response, or pass chunk of
+     * streamed response to its consumer.
+     *
+     * @param message response of server.
+     */
+    private void completeRequest(MessageFrame message) {
+        if (!message.isHeaderPresent()) {
+            log.warn("Response without request ID is ignored.");
+            return;
+        }
+        boolean last = !message.hasFlag(MessageFrame.FLAG_STREAM) || message.hasFlag(MessageFrame.FLAG_LAST_CHUNK);
+        PendingRequest request = last ? pendingRequests.remove(message.getRequestId()) : pendingRequests.get(message.getRequestId());
+        if (request == null) {
+            log.warn("Response to unknown request {} is ignored.", message.getRequestId());
+            return;
+        }
+        ServerResponseDto response = codec.decode(message.getBody(), ServerResponseDto.class);
+        if (request.chunkConsumer != null && !request.response.isDone()) {
+            try {
+                request.chunkConsumer.accept(response);
+            } catch (RuntimeException e) {
+                //rest of chunks is skipped, but request stays registered until the last one.
+                request.response.completeExceptionally(e);
+            }
+        }
+        if (last) {
+            request.response.complete(response);
+        }
+    }
+
+    /**
+     * Write whole message to channel.
+     *
+     * @param message message with leading 4 bytes of length.
+     * @throws IOException if connection fails.
+     */
+    private void writeMessage(ByteBuffer message) throws IOException {
+        synchronized (writeLock) {
+            while (message.hasRemaining()) {
+                socketClientChannel.write(message);
+            }
+        }
+    }
+
+    /**
+     * Read next message from server.
+     *
+     * @return buffer with message.
+     * @throws IOException if connection was closed before message was read.
+     */
+    private ByteBuffer readMessage() throws IOException {
+        while (receivedMessages.isEmpty()) {
+            readBuffer.clear();
+            if (socketClientChannel.read(readBuffer) < 0) {
+                throw new IOException("Connection closed by server.");
+            }
+            readBuffer.flip();
+            messageReadConveyor.readMessagesFromByteBuffer(readBuffer, message -> receivedMessages.add(message.getBody()));
+        }
+        return receivedMessages.poll();
+    }
+
     /**
      * Display results of operation.
      *
@@ -120,11 +396,33 @@ public class Client implements Closeable {
             case ADD_SIGHT:
                 log.info("Sighting successfully added to bird {}", command.getName());
                 break;
+            case ADD_BATCH:
+            case ADD_SIGHT_BATCH:
+                log.info("{} item(s) successfully added.", serverResponse.getItemErrors().size());
+                break;
             case QUIT:
                 log.info("Server successfully stoped");
         }
     }
 
+    /**
+     * Pipelined request, which waits for response.
+     */
+    @RequiredArgsConstructor
+    private static final class PendingRequest {
+
+        /**
+         * Future of response, which is completed with whole response or with
+         * the last chunk of streamed response.
+         */
+        private final CompletableFuture<ServerResponseDto> response = new CompletableFuture<>();
+        /**
+         * Consumer of chunks of streamed response, null if response is not
+         * streamed.
+         */
+        private final Consumer<ServerResponseDto> chunkConsumer;
+    }
+
     /**
      * Properly closing of SocketChannel
      *
@@ -1,5 +1,6 @@
 package com.dataart.edu.client;
 
+import com.dataart.edu.message.codec.MessageCodecs;
 import com.dataart.edu.message.dto.request.BaseClientRequestDto;
 import java.io.IOException;
 import java.util.Arrays;
@@ -26,6 +27,7 @@ public class ClientApplication {
     private final List<String> avaliableArguments = Arrays.asList(
             "-serverPort", 
             "-serverHost", 
+            "-codec", 
             "-addbird", 
             "-addsighting", 
             "-listsightings", 
@@ -66,7 +68,7 @@ public class ClientApplication {
      * @see Client
      */
     private Client createClient(String commandLineParameters[]) throws NumberFormatException {
-        String currentOption = null, serverHost = null;
+        String currentOption = null, serverHost = null, codecName = null;
         int port = -1;
         Map<String, String> commanArgumentsMap = new HashMap(commandLineParameters.length);
         for (String commandLineArgument : commandLineParameters) {
@@ -86,6 +88,9 @@ public class ClientApplication {
                     case "-serverHost":
                         serverHost = commandLineArgument;
                         break;
+                    case "-codec":
+                        codecName = commandLineArgument;
+                        break;
                     default:
                 }
                 currentOption = null;
@@ -93,7 +98,15 @@ public class ClientApplication {
         }
         port = port == -1 ? defaultClientPort : port;
         serverHost = serverHost == null ? defaultHostToConnect : serverHost;
-        return new Client(port, serverHost);
+        Client client = new Client(port, serverHost);
+        if (codecName != null) {
+            try {
+                client.setCodec(MessageCodecs.byName(codecName));
+            } catch (IllegalArgumentException e) {
+                throw new NumberFormatException("Incorrect codec, kryo or binary expected.");
+            }
+        }
+        return client;
     }
 
     /**
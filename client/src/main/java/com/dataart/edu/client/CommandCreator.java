@@ -108,6 +108,12 @@ public class CommandCreator {
                     FunctionalUtil.CHECK_STRING_PREDICATE, 
                     FunctionalUtil.STRING_ERR_CONSUMER, 
                     FunctionalUtil.STRING_FUNCTION);            
+        } else {
+            location = readDatafromCommandLine(
+                    messages.getProperty("enter.sighting.location.filter"),
+                    FunctionalUtil.ANY_STRING_PREDICATE,
+                    FunctionalUtil.STRING_ERR_CONSUMER,
+                    FunctionalUtil.OPTIONAL_STRING_FUNCTION);
         }
         String message = isListSighting ?
                 messages.getProperty("enter.sighting.startdate") : 
@@ -64,6 +64,13 @@ public final class FunctionalUtil {
         return !string.isEmpty();
     };
 
+    /**
+     * Accept any string, including empty one.
+     */
+    public final static Predicate<String> ANY_STRING_PREDICATE = (string) -> {
+        return true;
+    };
+
     /**
      * Check string can be parsed as double;
      */
@@ -119,6 +126,13 @@ public final class FunctionalUtil {
         return string;
     };
 
+    /**
+     * Get string, or null for empty string.
+     */
+    public final static Function<String, String> OPTIONAL_STRING_FUNCTION = (string) -> {
+        return string.isEmpty() ? null : string;
+    };
+
     /**
      * Get double from string.
      */
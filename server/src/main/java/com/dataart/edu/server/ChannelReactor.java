@@ -0,0 +1,242 @@
+package com.dataart.edu.server;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Worker reactor, which owns its own Selector and processes reading from and
+ * writing to client channels, that were handed to it by acceptor.
+ * <p>
+ * Every reactor works in separate thread. Channels are registered with
+ * reactor Selector and written only from reactor thread, so acceptor puts new
+ * channels, and message processors put connections with new outbound
+ * messages or connections, which can be read again, to queues and wake up
+ * Selector.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ * @see SocketChannelsProcessor
+ * @see Selector
+ */
+@Slf4j
+public class ChannelReactor implements Runnable {
+
+    /**
+     * Period to wait reactor thread termination.
+     */
+    private final static int WAIT_TERMINATION_PERIOD_MILLIS = 5000;
+    /**
+     * Name of reactor, used as thread name.
+     */
+    @Getter
+    private final String name;
+    /**
+     * Selector, owned by this reactor.
+     */
+    private final Selector selector;
+    /**
+     * Processor, which does reading of data from client channels.
+     */
+    private final SocketChannelsProcessor channelsProcessor;
+    /**
+     * New channels, which must be registered with selector.
+     */
+    private final Queue<SocketChannel> pendingChannels = new ConcurrentLinkedQueue<>();
+    /**
+     * Connections, which have new outbound messages.
+     */
+    private final Queue<ClientConnection> pendingFlushes = new ConcurrentLinkedQueue<>();
+    /**
+     * Connections, reading of which must be resumed.
+     */
+    private final Queue<ClientConnection> pendingResumes = new ConcurrentLinkedQueue<>();
+    /**
+     * Need reactor process it's work or it should be stopped.
+     */
+    private final AtomicBoolean continueProcessing = new AtomicBoolean(true);
+    /**
+     * Thread of reactor.
+     */
+    private Thread reactorThread;
+
+    /**
+     * Create reactor.
+     *
+     * @param name name of reactor.
+     * @param channelsProcessor processor of client channels.
+     * @throws IOException if Selector can not be opened.
+     */
+    public ChannelReactor(String name, SocketChannelsProcessor channelsProcessor) throws IOException {
+        this.name = name;
+        this.channelsProcessor = channelsProcessor;
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Start reactor thread.
+     */
+    public void start() {
+        reactorThread = new Thread(this, name);
+        reactorThread.start();
+        log.info("Reactor {} started.", name);
+    }
+
+    /**
+     * Hand new client channel to this reactor.
+     *
+     * @param clientChannel client channel in non blocking mode.
+     */
+    public void registerChannel(SocketChannel clientChannel) {
+        pendingChannels.add(clientChannel);
+        selector.wakeup();
+    }
+
+    /**
+     * Ask reactor to write outbound messages of connection.
+     *
+     * @param connection connection with new outbound messages.
+     */
+    public void requestFlush(ClientConnection connection) {
+        pendingFlushes.add(connection);
+        selector.wakeup();
+    }
+
+    /**
+     * Ask reactor to resume reading of connection, which was suspended.
+     *
+     * @param connection connection with suspended reading.
+     */
+    public void requestResumeReading(ClientConnection connection) {
+        pendingResumes.add(connection);
+        selector.wakeup();
+    }
+
+    /**
+     * Reactor loop.
+     */
+    @Override
+    public void run() {
+        while (continueProcessing.get()) {
+            try {
+                selector.select(SocketChannelsProcessor.SELECTOR_TIMEOUT);
+            } catch (IOException e) {
+                log.error("Reactor " + name + " failed on select, it will be stopped.", e);
+                break;
+            }
+            registerPendingChannels();
+            flushPendingConnections();
+            resumePendingConnections();
+            Iterator<SelectionKey> chanelsWithAvaliableData = selector.selectedKeys().iterator();
+            while (chanelsWithAvaliableData.hasNext()) {
+                SelectionKey keyOfChannelWithAvaliableData = chanelsWithAvaliableData.next();
+                chanelsWithAvaliableData.remove();
+                if (keyOfChannelWithAvaliableData.isValid() && keyOfChannelWithAvaliableData.isReadable()) {
+                    channelsProcessor.processReadClientChannel(keyOfChannelWithAvaliableData);
+                }
+                if (keyOfChannelWithAvaliableData.isValid() && keyOfChannelWithAvaliableData.isWritable()) {
+                    channelsProcessor.processWriteClientChannel(keyOfChannelWithAvaliableData);
+                }
+            }
+        }
+        //answers, which were sent just before stop (for example on QUIT),
+        //must reach clients before channels are closed.
+        flushPendingConnections();
+        closeSelector();
+        log.info("Reactor {} successfully stoped.", name);
+    }
+
+    /**
+     * Register channels, handed by acceptor, with selector of this reactor.
+     */
+    private void registerPendingChannels() {
+        SocketChannel clientChannel;
+        while ((clientChannel = pendingChannels.poll()) != null) {
+            try {
+                SelectionKey clientSelectionKey = clientChannel.register(selector, SelectionKey.OP_READ);
+                clientSelectionKey.attach(new ClientConnection(clientSelectionKey, this, channelsProcessor.getBufferPool(),
+                        channelsProcessor.getMessageCodec(), channelsProcessor.getConfig().getMaxFrameLength()));
+            } catch (IOException e) {
+                log.info("IOException during registration of client channel: {}, connection will be closed.", e.getMessage());
+                closeQuietly(clientChannel);
+            }
+        }
+    }
+
+    /**
+     * Write outbound messages of connections, which requested it.
+     */
+    private void flushPendingConnections() {
+        ClientConnection connection;
+        while ((connection = pendingFlushes.poll()) != null) {
+            channelsProcessor.processWriteClientChannel(connection.getSelectionKey());
+        }
+    }
+
+    /**
+     * Resume reading of connections, which requested it.
+     */
+    private void resumePendingConnections() {
+        ClientConnection connection;
+        while ((connection = pendingResumes.poll()) != null) {
+            connection.resumeReading();
+        }
+    }
+
+    /**
+     * Close selector and all channels, which are still registered with it.
+     */
+    private void closeSelector() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof ClientConnection) {
+                ((ClientConnection) key.attachment()).release();
+            }
+            closeQuietly((SocketChannel) key.channel());
+        }
+        SocketChannel clientChannel;
+        while ((clientChannel = pendingChannels.poll()) != null) {
+            closeQuietly(clientChannel);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            log.info("Problem during closing selector of reactor {}: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * Close channel, ignoring errors.
+     *
+     * @param clientChannel channel to close.
+     */
+    private void closeQuietly(SocketChannel clientChannel) {
+        try {
+            clientChannel.close();
+        } catch (IOException e) {
+            log.debug("Problem during closing client channel: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Stop reactor and wait for termination of it's thread.
+     */
+    public void stop() {
+        continueProcessing.compareAndSet(true, false);
+        selector.wakeup();
+        if (reactorThread != null && reactorThread != Thread.currentThread()) {
+            try {
+                reactorThread.join(WAIT_TERMINATION_PERIOD_MILLIS);
+            } catch (InterruptedException e) {
+                log.info("Interrupted while waiting reactor {} termination.", name);
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.dataart.edu.server;
+
+import com.dataart.edu.message.codec.MessageCodec;
+import com.dataart.edu.message.codec.SightingRequestView;
+import com.dataart.edu.message.format.BinaryMessageReader;
+import com.dataart.edu.message.format.MessageFrame;
+import com.dataart.edu.message.format.util.ByteBufferPool;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+
+/**
+ * State of client connection, which is attached to SelectionKey of client
+ * channel.
+ * <p>
+ * Outbound messages are put to queue by any thread, but written to channel
+ * only by thread of reactor, which owns the channel. OP_WRITE interest is set
+ * only while there are bytes, which were not written yet. Written messages
+ * are returned to buffer pool.
+ * <p>
+ * Responses to ordered requests are registered in order of receiving, and
+ * moved to outbound queue only after responses to all previous ordered
+ * requests.
+ * <p>
+ * Number of requests of connection, which are in processing, is limited.
+ * Reading of connection is suspended by dropping of OP_READ interest, while
+ * limit is reached.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ * @see ChannelReactor
+ * @see PendingResponse
+ * @see InFlightLimiter
+ */
+public class ClientConnection {
+
+    /**
+     * Max number of buffers, which are written to channel by one gathering
+     * write.
+     */
+    private final static int MAX_GATHERED_BUFFERS = 16;
+    /**
+     * Key of client channel.
+     */
+    @Getter
+    private final SelectionKey selectionKey;
+    /**
+     * Reader of incoming messages.
+     */
+    @Getter
+    private final BinaryMessageReader messageReader;
+    /**
+     * Reactor, which owns client channel.
+     */
+    private final ChannelReactor reactor;
+    /**
+     * Pool of buffers for incoming and outbound messages.
+     */
+    @Getter
+    private final ByteBufferPool bufferPool;
+    /**
+     * Codec of requests and responses.
+     */
+    @Getter
+    private final MessageCodec codec;
+    /**
+     * View of sighting requests, reused for all requests of connection by
+     * reactor thread.
+     */
+    @Getter
+    private final SightingRequestView sightingView = new SightingRequestView();
+    /**
+     * Messages, which must be written to client.
+     */
+    private final Queue<ByteBuffer> outboundQueue = new ConcurrentLinkedQueue<>();
+    /**
+     * Responses to ordered requests, in order of receiving of requests.
+     */
+    private final Queue<PendingResponse> orderedResponses = new ConcurrentLinkedQueue<>();
+    /**
+     * Is flush of this connection already requested from reactor.
+     */
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    /**
+     * Buffers for gathering write, used only by reactor thread.
+     */
+    private final ByteBuffer[] gatheredBuffers = new ByteBuffer[MAX_GATHERED_BUFFERS];
+    /**
+     * Number of requests of connection, which are in processing.
+     */
+    private final AtomicInteger inFlightRequests = new AtomicInteger(0);
+    /**
+     * Is reading of connection suspended.
+     */
+    @Getter
+    private volatile boolean readingSuspended = false;
+
+    /**
+     * Create connection state.
+     *
+     * @param selectionKey key of client channel.
+     * @param reactor reactor, which owns client channel.
+     * @param bufferPool pool of buffers for incoming and outbound messages.
+     * @param codec codec of requests and responses.
+     */
+    public ClientConnection(SelectionKey selectionKey, ChannelReactor reactor, ByteBufferPool bufferPool, MessageCodec codec) {
+        this(selectionKey, reactor, bufferPool, codec, BinaryMessageReader.DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * Create connection state, which rejects requests longer then max length
+     * and compressed requests.
+     *
+     * @param selectionKey key of client channel.
+     * @param reactor reactor, which owns client channel.
+     * @param bufferPool pool of buffers for incoming and outbound messages.
+     * @param codec codec of requests and responses.
+     * @param maxFrameLength max length of request frame.
+     */
+    public ClientConnection(SelectionKey selectionKey, ChannelReactor reactor, ByteBufferPool bufferPool, MessageCodec codec,
+            int maxFrameLength) {
+        this.selectionKey = selectionKey;
+        this.reactor = reactor;
+        this.bufferPool = bufferPool;
+        this.codec = codec;
+        this.messageReader = new BinaryMessageReader(selectionKey, bufferPool, maxFrameLength, false);
+    }
+
+    /**
+     * Create slot for response to received request. Must be called by reactor
+     * thread in order of receiving of requests.
+     *
+     * @param request frame of request.
+     * @return slot for response.
+     */
+    public PendingResponse createPendingResponse(MessageFrame request) {
+        PendingResponse response = new PendingResponse(this, request);
+        if (response.isOrdered()) {
+            orderedResponses.add(response);
+        }
+        return response;
+    }
+
+    /**
+     * Move messages of ordered responses to outbound queue, from the oldest
+     * response, while responses are finished.
+     */
+    synchronized void drainOrderedResponses() {
+        PendingResponse head;
+        while ((head = orderedResponses.peek()) != null) {
+            //finished must be read before messages, otherwise message, which
+            //was added just before finish, can be lost.
+            boolean finished = head.isFinished();
+            head.sendAddedMessages();
+            if (!finished) {
+                return;
+            }
+            orderedResponses.poll();
+        }
+    }
+
+    /**
+     * Put message to outbound queue and ask reactor to write it. Can be called
+     * from any thread.
+     *
+     * @param message message with leading 4 bytes of length. It is returned to
+     * buffer pool after writing, so it must not be used by caller anymore.
+     */
+    public void send(ByteBuffer message) {
+        outboundQueue.add(message);
+        if (flushRequested.compareAndSet(false, true)) {
+            reactor.requestFlush(this);
+        }
+    }
+
+    /**
+     * Write as many queued bytes as channel accepts. Must be called only from
+     * reactor thread.
+     *
+     * @throws IOException if, for example, client terminated connection.
+     */
+    void flush() throws IOException {
+        flushRequested.set(false);
+        if (!selectionKey.isValid()) {
+            releaseOutboundQueue();
+            return;
+        }
+        SocketChannel clientChannel = (SocketChannel) selectionKey.channel();
+        boolean channelIsFull = false;
+        while (!outboundQueue.isEmpty() && !channelIsFull) {
+            int numberOfBuffers = 0;
+            Iterator<ByteBuffer> pending = outboundQueue.iterator();
+            while (pending.hasNext() && numberOfBuffers < MAX_GATHERED_BUFFERS) {
+                gatheredBuffers[numberOfBuffers++] = pending.next();
+            }
+            clientChannel.write(gatheredBuffers, 0, numberOfBuffers);
+            channelIsFull = gatheredBuffers[numberOfBuffers - 1].hasRemaining();
+            ByteBuffer head;
+            while ((head = outboundQueue.peek()) != null && !head.hasRemaining()) {
+                bufferPool.release(outboundQueue.poll());
+            }
+            for (int i = 0; i < numberOfBuffers; i++) {
+                gatheredBuffers[i] = null;
+            }
+        }
+        if (outboundQueue.isEmpty()) {
+            selectionKey.interestOps(selectionKey.interestOps() & ~SelectionKey.OP_WRITE);
+        } else {
+            selectionKey.interestOps(selectionKey.interestOps() | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Number of requests of connection, which are in processing.
+     *
+     * @return number of requests.
+     */
+    public int getInFlightRequests() {
+        return inFlightRequests.get();
+    }
+
+    /**
+     * Register start of request processing.
+     */
+    void requestStarted() {
+        inFlightRequests.incrementAndGet();
+    }
+
+    /**
+     * Register end of request processing.
+     */
+    void requestFinished() {
+        inFlightRequests.decrementAndGet();
+    }
+
+    /**
+     * Stop reading of connection. Must be called only from reactor thread.
+     */
+    void suspendReading() {
+        readingSuspended = true;
+        if (selectionKey.isValid()) {
+            selectionKey.interestOps(selectionKey.interestOps() & ~SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Ask reactor to resume reading of connection. Can be called from any
+     * thread.
+     */
+    void requestResumeReading() {
+        reactor.requestResumeReading(this);
+    }
+
+    /**
+     * Resume reading of connection. Must be called only from reactor thread.
+     */
+    void resumeReading() {
+        if (!readingSuspended) {
+            return;
+        }
+        readingSuspended = false;
+        if (selectionKey.isValid()) {
+            selectionKey.interestOps(selectionKey.interestOps() | SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Release resources of connection, when channel is closed.
+     */
+    public void release() {
+        messageReader.release();
+        orderedResponses.clear();
+        releaseOutboundQueue();
+    }
+
+    /**
+     * Return messages, which were not written, to buffer pool.
+     */
+    private void releaseOutboundQueue() {
+        ByteBuffer message;
+        while ((message = outboundQueue.poll()) != null) {
+            bufferPool.release(message);
+        }
+    }
+}
@@ -5,9 +5,18 @@
  */
 package com.dataart.edu.server;
 
+import com.dataart.edu.message.codec.KryoMessageCodec;
+import com.dataart.edu.message.codec.MessageCodecs;
+import com.dataart.edu.message.dto.request.ClientAction;
+import com.dataart.edu.message.format.BinaryMessageReader;
+import com.dataart.edu.message.format.MessageFrame;
+import com.dataart.edu.server.dao.BirdAndSightDaoImpl;
 import java.io.File;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
 import lombok.Getter;
 import lombok.ToString;
 
@@ -31,7 +40,11 @@ public class ConfigurationCreator {
     /**
      * Avaliable command line arguments.
      */
-    private final List<String> avaliableArguments = Arrays.asList("-port", "-data", "-proc_count");
+    private final List<String> avaliableArguments = Arrays.asList("-port", "-data", "-proc_count", "-io_threads", "-buffer_type",
+            "-max_in_flight", "-max_in_flight_per_connection", "-executor",
+            "-inline_actions", "-chunk_size", "-compress_threshold", "-compress_level", "-codec",
+            "-response_cache_bytes", "-change_log_size", "-parallel_query_threshold",
+            "-max_frame_length");
     /**
      * Default server port.
      */
@@ -44,11 +57,82 @@ public class ConfigurationCreator {
      * Default proc count.
      */
     private final static int DEFAULT_PROC_COUNT = 2;
+    /**
+     * Default number of io reactor threads.
+     */
+    private final static int DEFAULT_IO_THREADS = Runtime.getRuntime().availableProcessors();
+    /**
+     * Default max number of requests in processing for whole server.
+     */
+    private final static int DEFAULT_MAX_IN_FLIGHT = 1024;
+    /**
+     * Default max number of requests in processing for one connection.
+     */
+    private final static int DEFAULT_MAX_IN_FLIGHT_PER_CONNECTION = 64;
+    /**
+     * Default number of rows in one chunk of streamed response.
+     */
+    private final static int DEFAULT_CHUNK_SIZE = 1000;
+    /**
+     * Default min size of response body in bytes, which is compressed.
+     */
+    private final static int DEFAULT_COMPRESS_THRESHOLD = 4096;
+    /**
+     * Default level of compression of responses.
+     */
+    private final static int DEFAULT_COMPRESS_LEVEL = Deflater.BEST_SPEED;
+    /**
+     * Default name of codec of messages.
+     */
+    private final static String DEFAULT_CODEC = KryoMessageCodec.NAME;
+    /**
+     * Default max total size of cached responses in bytes.
+     */
+    private final static long DEFAULT_RESPONSE_CACHE_BYTES = 16 * 1024 * 1024;
+    /**
+     * Default max number of changes of birds, which are kept for delta LIST.
+     */
+    private final static int DEFAULT_CHANGE_LOG_SIZE = BirdAndSightDaoImpl.DEFAULT_CHANGE_LOG_SIZE;
+    /**
+     * Default min number of sightings, which are searched in parallel.
+     */
+    private final static int DEFAULT_PARALLEL_QUERY_THRESHOLD = 100000;
+    /**
+     * Default max length of request frame in bytes.
+     */
+    private final static int DEFAULT_MAX_FRAME_LENGTH = BinaryMessageReader.DEFAULT_MAX_FRAME_LENGTH;
+    /**
+     * Default size of the biggest size class of buffer pool.
+     */
+    private final static int DEFAULT_MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+    /**
+     * Default max number of free buffers in every size class of buffer pool.
+     */
+    private final static int DEFAULT_BUFFERS_PER_SIZE_CLASS = 128;
     /**
      * Default server directory
      */
     private final static String DEFAULT_DIRECTORY = System.getProperty("user.home") + File.separator + "serverdata";
 
+    /**
+     * Mode of executor, which processes requests.
+     */
+    public enum ExecutorMode {
+        /**
+         * Fixed thread pool with proc_count threads and bounded queue.
+         */
+        FIXED,
+        /**
+         * ForkJoinPool with proc_count parallelism.
+         */
+        FORKJOIN,
+        /**
+         * New virtual thread for every request, if JVM supports it, otherwise
+         * fixed thread pool.
+         */
+        VIRTUAL
+    }
+
     /**
      * Container with server configuration.
      */
@@ -58,6 +142,22 @@ public class ConfigurationCreator {
         private int port = DEFAULT_SERVER_PORT;
         private String dataDirectory = DEFAULT_DIRECTORY;
         private int procCount = DEFAULT_PROC_COUNT;
+        private int ioThreads = DEFAULT_IO_THREADS;
+        private boolean directBuffers = false;
+        private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        private int maxInFlightPerConnection = DEFAULT_MAX_IN_FLIGHT_PER_CONNECTION;
+        private ExecutorMode executorMode = ExecutorMode.FIXED;
+        private Set<ClientAction> inlineActions = EnumSet.noneOf(ClientAction.class);
+        private int chunkSize = DEFAULT_CHUNK_SIZE;
+        private int compressThreshold = DEFAULT_COMPRESS_THRESHOLD;
+        private int compressLevel = DEFAULT_COMPRESS_LEVEL;
+        private String codec = DEFAULT_CODEC;
+        private long responseCacheBytes = DEFAULT_RESPONSE_CACHE_BYTES;
+        private int changeLogSize = DEFAULT_CHANGE_LOG_SIZE;
+        private int parallelQueryThreshold = DEFAULT_PARALLEL_QUERY_THRESHOLD;
+        private int maxFrameLength = DEFAULT_MAX_FRAME_LENGTH;
+        private final int maxPooledBufferSize = DEFAULT_MAX_POOLED_BUFFER_SIZE;
+        private final int buffersPerSizeClass = DEFAULT_BUFFERS_PER_SIZE_CLASS;
         private final String host = DEFAULT_SERVER_HOST;
     }
 
@@ -108,6 +208,117 @@ public class ConfigurationCreator {
                     throw new NumberFormatException("Invalid value of proc_count parameter.");
                 }
                 break;
+            case "-io_threads":
+                configuration.ioThreads = Integer.parseInt(optionValue);
+                if (configuration.ioThreads <= 0) {
+                    throw new NumberFormatException("Invalid value of io_threads parameter.");
+                }
+                break;
+            case "-buffer_type":
+                if (!"heap".equals(optionValue) && !"direct".equals(optionValue)) {
+                    throw new NumberFormatException("Invalid value of buffer_type parameter, heap or direct expected.");
+                }
+                configuration.directBuffers = "direct".equals(optionValue);
+                break;
+            case "-max_in_flight":
+                configuration.maxInFlight = Integer.parseInt(optionValue);
+                if (configuration.maxInFlight <= 0) {
+                    throw new NumberFormatException("Invalid value of max_in_flight parameter.");
+                }
+                break;
+            case "-max_in_flight_per_connection":
+                configuration.maxInFlightPerConnection = Integer.parseInt(optionValue);
+                if (configuration.maxInFlightPerConnection <= 0) {
+                    throw new NumberFormatException("Invalid value of max_in_flight_per_connection parameter.");
+                }
+                break;
+            case "-executor":
+                try {
+                    configuration.executorMode = ExecutorMode.valueOf(optionValue.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new NumberFormatException("Invalid value of executor parameter, fixed, forkjoin or virtual expected.");
+                }
+                break;
+            case "-inline_actions":
+                configuration.inlineActions = parseInlineActions(optionValue);
+                break;
+            case "-chunk_size":
+                configuration.chunkSize = Integer.parseInt(optionValue);
+                if (configuration.chunkSize <= 0) {
+                    throw new NumberFormatException("Invalid value of chunk_size parameter.");
+                }
+                break;
+            case "-compress_threshold":
+                configuration.compressThreshold = Integer.parseInt(optionValue);
+                if (configuration.compressThreshold < 0) {
+                    throw new NumberFormatException("Invalid value of compress_threshold parameter.");
+                }
+                break;
+            case "-compress_level":
+                configuration.compressLevel = Integer.parseInt(optionValue);
+                if (configuration.compressLevel < Deflater.BEST_SPEED || configuration.compressLevel > Deflater.BEST_COMPRESSION) {
+                    throw new NumberFormatException("Invalid value of compress_level parameter, 1...9 expected.");
+                }
+                break;
+            case "-codec":
+                try {
+                    configuration.codec = MessageCodecs.byName(optionValue).getName();
+                } catch (IllegalArgumentException e) {
+                    throw new NumberFormatException("Invalid value of codec parameter, kryo or binary expected.");
+                }
+                break;
+            case "-response_cache_bytes":
+                configuration.responseCacheBytes = Long.parseLong(optionValue);
+                if (configuration.responseCacheBytes < 0) {
+                    throw new NumberFormatException("Invalid value of response_cache_bytes parameter.");
+                }
+                break;
+            case "-change_log_size":
+                configuration.changeLogSize = Integer.parseInt(optionValue);
+                if (configuration.changeLogSize < 0) {
+                    throw new NumberFormatException("Invalid value of change_log_size parameter.");
+                }
+                break;
+            case "-parallel_query_threshold":
+                configuration.parallelQueryThreshold = Integer.parseInt(optionValue);
+                if (configuration.parallelQueryThreshold < 0) {
+                    throw new NumberFormatException("Invalid value of parallel_query_threshold parameter.");
+                }
+                break;
+            case "-max_frame_length":
+                configuration.maxFrameLength = Integer.parseInt(optionValue);
+                if (configuration.maxFrameLength < MessageFrame.HEADER_SIZE) {
+                    throw new NumberFormatException("Invalid value of max_frame_length parameter.");
+                }
+                break;
+        }
+    }
+
+    /**
+     * Parse list of actions, which are executed in reactor thread.
+     *
+     * @param optionValue comma separated names of actions, for example
+     * LIST,REMOVE.
+     * @return set of actions.
+     */
+    private Set<ClientAction> parseInlineActions(String optionValue) {
+        Set<ClientAction> inlineActions = EnumSet.noneOf(ClientAction.class);
+        for (String actionName : optionValue.split(",")) {
+            if (actionName.trim().isEmpty()) {
+                continue;
+            }
+            ClientAction action;
+            try {
+                action = ClientAction.valueOf(actionName.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new NumberFormatException("Invalid value of inline_actions parameter, unknown action " + actionName + ".");
+            }
+            //QUIT stops reactors, so it can not be executed by one of them.
+            if (action == ClientAction.QUIT) {
+                throw new NumberFormatException("Invalid value of inline_actions parameter, QUIT can not be executed inline.");
+            }
+            inlineActions.add(action);
         }
+        return inlineActions;
     }
 }
@@ -0,0 +1,171 @@
+package com.dataart.edu.server;
+
+import com.dataart.edu.server.ConfigurationCreator.ServerConfiguration;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Limiter of requests, which are in processing (decoded, but not answered
+ * yet).
+ * <p>
+ * There are two limits: global for whole server and per connection. When one
+ * of them is reached, reading of connection is suspended, so new requests stay
+ * in socket buffers and TCP flow control slows down client. Suspended
+ * connections are resumed, when processing of requests is finished and limits
+ * allow it again.
+ * <p>
+ * Limits are checked after every read from channel, so number of requests in
+ * processing can exceed limit by number of requests in one read buffer.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ * @see ClientConnection
+ * @see ServerMetrics
+ */
+public class InFlightLimiter {
+
+    @Autowired
+    private ServerConfiguration config;
+    /**
+     * Max number of requests in processing for whole server.
+     */
+    @Getter
+    private int maxInFlight;
+    /**
+     * Max number of requests in processing for one connection.
+     */
+    @Getter
+    private int maxInFlightPerConnection;
+    /**
+     * Number of requests in processing for whole server.
+     */
+    private final AtomicInteger inFlightRequests = new AtomicInteger(0);
+    /**
+     * Number of connections, reading of which is suspended.
+     */
+    private final AtomicInteger suspendedConnections = new AtomicInteger(0);
+    /**
+     * Total number of suspensions of reading.
+     */
+    private final LongAdder suspensions = new LongAdder();
+    /**
+     * Connections, reading of which is suspended.
+     */
+    private final Queue<ClientConnection> suspendedQueue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Read limits from configuration after initialization of all properties.
+     */
+    @PostConstruct
+    private void initLimits() {
+        maxInFlight = config.getMaxInFlight();
+        maxInFlightPerConnection = config.getMaxInFlightPerConnection();
+    }
+
+    /**
+     * Register start of processing of request, which was read from
+     * connection.
+     *
+     * @param connection connection of client.
+     */
+    public void requestStarted(ClientConnection connection) {
+        inFlightRequests.incrementAndGet();
+        connection.requestStarted();
+    }
+
+    /**
+     * Register end of processing of request and resume connections, which can
+     * be read again.
+     *
+     * @param connection connection of client.
+     */
+    public void requestFinished(ClientConnection connection) {
+        connection.requestFinished();
+        inFlightRequests.decrementAndGet();
+        if (!suspendedQueue.isEmpty()) {
+            resumeSuspendedConnections();
+        }
+    }
+
+    /**
+     * Suspend reading of connection, if one of limits is reached. Must be
+     * called only from reactor thread of connection.
+     *
+     * @param connection connection of client.
+     * @return true - if reading was suspended.
+     */
+    public boolean suspendIfLimitReached(ClientConnection connection) {
+        if (!isLimitReached(connection)) {
+            return false;
+        }
+        connection.suspendReading();
+        suspendedConnections.incrementAndGet();
+        suspensions.increment();
+        suspendedQueue.add(connection);
+        //requests could be finished before connection was added to queue.
+        resumeSuspendedConnections();
+        return true;
+    }
+
+    /**
+     * Number of requests in processing for whole server.
+     *
+     * @return number of requests.
+     */
+    public int getInFlightRequests() {
+        return inFlightRequests.get();
+    }
+
+    /**
+     * Number of connections, reading of which is suspended.
+     *
+     * @return number of connections.
+     */
+    public int getSuspendedConnections() {
+        return suspendedConnections.get();
+    }
+
+    /**
+     * Total number of suspensions of reading.
+     *
+     * @return number of suspensions.
+     */
+    public long getSuspensions() {
+        return suspensions.sum();
+    }
+
+    /**
+     * Is one of limits reached for connection.
+     *
+     * @param connection connection of client.
+     * @return true - if new requests of connection must wait.
+     */
+    private boolean isLimitReached(ClientConnection connection) {
+        return inFlightRequests.get() >= maxInFlight
+                || connection.getInFlightRequests() >= maxInFlightPerConnection;
+    }
+
+    /**
+     * Ask reactors to resume reading of suspended connections, for which
+     * limits are not reached anymore. Closed connections are just removed.
+     */
+    private void resumeSuspendedConnections() {
+        Iterator<ClientConnection> suspended = suspendedQueue.iterator();
+        while (suspended.hasNext() && inFlightRequests.get() < maxInFlight) {
+            ClientConnection connection = suspended.next();
+            boolean closed = !connection.getSelectionKey().isValid();
+            if ((closed || !isLimitReached(connection)) && suspendedQueue.remove(connection)) {
+                suspendedConnections.decrementAndGet();
+                if (!closed) {
+                    connection.requestResumeReading();
+                }
+            }
+        }
+    }
+}
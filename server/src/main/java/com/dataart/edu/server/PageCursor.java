@@ -0,0 +1,114 @@
+package com.dataart.edu.server;
+
+import com.dataart.edu.message.dto.BirdDto;
+import com.dataart.edu.message.dto.BirdSightDto;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * Encoding of cursors of pages, which are opaque for client.
+ * <p>
+ * Cursor is key of the last row of page: 1 byte of type, and name of bird for
+ * LIST, or name, date (zigzag varlong) and location of sighting for
+ * LIST_SIGHTS.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ * @see com.dataart.edu.message.dto.request.PageRequest
+ */
+final class PageCursor {
+
+    /**
+     * Error, which is sent to client, if cursor can not be decoded.
+     */
+    final static String INVALID_CURSOR_ERROR = "Invalid cursor.";
+
+    private final static byte BIRD_CURSOR = 1;
+
+    private final static byte SIGHT_CURSOR = 2;
+
+    private final static int INITIAL_CURSOR_SIZE = 64;
+
+    private PageCursor() {
+    }
+
+    /**
+     * Create cursor, which points to bird.
+     *
+     * @param bird the last bird of page.
+     * @return cursor.
+     */
+    static byte[] ofBird(BirdDto bird) {
+        Output output = new Output(INITIAL_CURSOR_SIZE, -1);
+        output.writeByte(BIRD_CURSOR);
+        output.writeString(bird.getName());
+        return output.toBytes();
+    }
+
+    /**
+     * Create cursor, which points to sighting.
+     *
+     * @param sight the last sighting of page.
+     * @return cursor.
+     */
+    static byte[] ofSight(BirdSightDto sight) {
+        Output output = new Output(INITIAL_CURSOR_SIZE, -1);
+        output.writeByte(SIGHT_CURSOR);
+        output.writeString(sight.getName());
+        output.writeVarLong(sight.getStart(), false);
+        output.writeString(sight.getLocation());
+        return output.toBytes();
+    }
+
+    /**
+     * Read name of bird from cursor.
+     *
+     * @param cursor cursor, created by {@link #ofBird}.
+     * @return name of bird.
+     * @throws IllegalArgumentException if cursor is invalid.
+     */
+    static String toBirdName(byte[] cursor) {
+        try {
+            Input input = openCursor(cursor, BIRD_CURSOR);
+            String name = input.readString();
+            return checkNotNull(name);
+        } catch (KryoException e) {
+            throw new IllegalArgumentException(INVALID_CURSOR_ERROR, e);
+        }
+    }
+
+    /**
+     * Read key of sighting from cursor.
+     *
+     * @param cursor cursor, created by {@link #ofSight}.
+     * @return sighting with name, location and date.
+     * @throws IllegalArgumentException if cursor is invalid.
+     */
+    static BirdSightDto toSight(byte[] cursor) {
+        try {
+            Input input = openCursor(cursor, SIGHT_CURSOR);
+            String name = checkNotNull(input.readString());
+            long start = input.readVarLong(false);
+            String location = input.readString();
+            return new BirdSightDto(name, location, start);
+        } catch (KryoException e) {
+            throw new IllegalArgumentException(INVALID_CURSOR_ERROR, e);
+        }
+    }
+
+    private static Input openCursor(byte[] cursor, byte type) {
+        Input input = new Input(cursor);
+        if (input.readByte() != type) {
+            throw new IllegalArgumentException(INVALID_CURSOR_ERROR);
+        }
+        return input;
+    }
+
+    private static String checkNotNull(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException(INVALID_CURSOR_ERROR);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,164 @@
+package com.dataart.edu.server;
+
+import com.dataart.edu.message.dto.BaseMessageDto;
+import com.dataart.edu.message.format.MessageFrame;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import lombok.Getter;
+
+/**
+ * Slot for response to one request of client.
+ * <p>
+ * Requests without {@link MessageFrame#FLAG_OUT_OF_ORDER} are answered in the
+ * same order, in which they were received: messages of response are kept in
+ * slot, until responses to all previous ordered requests of connection are
+ * written. Responses to out of order requests are sent as soon as they are
+ * ready.
+ * <p>
+ * Requests with {@link MessageFrame#FLAG_STREAM} can be answered with many
+ * chunk frames, the last of them is marked with
+ * {@link MessageFrame#FLAG_LAST_CHUNK}.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ * @see ClientConnection
+ */
+public class PendingResponse {
+
+    /**
+     * Connection of client.
+     */
+    @Getter
+    private final ClientConnection connection;
+    /**
+     * Is request contains header, response is sent with header too.
+     */
+    @Getter
+    private final boolean headerPresent;
+    /**
+     * ID of request, which is returned in header of response.
+     */
+    @Getter
+    private final int requestId;
+    /**
+     * Flags of request, which are returned in header of response.
+     */
+    @Getter
+    private final byte flags;
+    /**
+     * Must response keep order of requests.
+     */
+    @Getter
+    private final boolean ordered;
+    /**
+     * Does client accept response as sequence of chunks.
+     */
+    @Getter
+    private final boolean streamed;
+    /**
+     * Does client accept compressed response.
+     */
+    @Getter
+    private final boolean compressionAccepted;
+    /**
+     * Messages of ordered response, which wait for previous responses.
+     */
+    private final Queue<ByteBuffer> messages = new ConcurrentLinkedQueue<>();
+    /**
+     * Is all messages of response added to slot.
+     */
+    @Getter
+    private volatile boolean finished = false;
+
+    /**
+     * Create slot for response to request.
+     *
+     * @param connection connection of client.
+     * @param request frame of request.
+     */
+    PendingResponse(ClientConnection connection, MessageFrame request) {
+        this.connection = connection;
+        this.headerPresent = request.isHeaderPresent();
+        this.requestId = request.getRequestId();
+        this.flags = request.getFlags();
+        this.ordered = !request.hasFlag(MessageFrame.FLAG_OUT_OF_ORDER);
+        this.streamed = request.isHeaderPresent() && request.hasFlag(MessageFrame.FLAG_STREAM);
+        this.compressionAccepted = request.isHeaderPresent() && request.hasFlag(MessageFrame.FLAG_ACCEPT_COMPRESSED);
+    }
+
+    /**
+     * Serialize whole response with header of request, if request had it,
+     * directly into buffer from pool of connection. Buffer is returned to
+     * pool, when it is written to channel.
+     *
+     * @param response response to serialize.
+     * @return frame of response with leading 4 bytes of length.
+     */
+    public ByteBuffer serialize(BaseMessageDto response) {
+        return serializeChunk(response, true);
+    }
+
+    /**
+     * Serialize one chunk of streamed response. If request is not streamed,
+     * chunk is serialized as usual response.
+     *
+     * @param chunk chunk of response.
+     * @param last is it the last chunk of response.
+     * @return frame of chunk with leading 4 bytes of length.
+     */
+    public ByteBuffer serializeChunk(BaseMessageDto chunk, boolean last) {
+        byte chunkFlags = streamed && last ? (byte) (flags | MessageFrame.FLAG_LAST_CHUNK) : flags;
+        return connection.getCodec().encode(chunk, headerPresent, requestId, chunkFlags, connection.getBufferPool());
+    }
+
+    /**
+     * Add message of response and finish response. Can be called from any
+     * thread.
+     *
+     * @param message message with leading 4 bytes of length.
+     */
+    public void complete(ByteBuffer message) {
+        send(message);
+        finish();
+    }
+
+    /**
+     * Add message of response. Can be called from any thread.
+     *
+     * @param message message with leading 4 bytes of length.
+     */
+    public void send(ByteBuffer message) {
+        if (!ordered) {
+            connection.send(message);
+            return;
+        }
+        messages.add(message);
+        connection.drainOrderedResponses();
+    }
+
+    /**
+     * Mark response as finished, so responses to next requests can be sent.
+     * Repeated calls have no effect.
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (ordered) {
+            connection.drainOrderedResponses();
+        }
+    }
+
+    /**
+     * Move messages, which were added to slot, to outbound queue of
+     * connection.
+     */
+    void sendAddedMessages() {
+        ByteBuffer message;
+        while ((message = messages.poll()) != null) {
+            connection.send(message);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.dataart.edu.server;
+
+import com.dataart.edu.message.format.MessageFrame;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Data;
+import lombok.Getter;
+
+/**
+ * Cache of encoded responses to queries, which are not paged and not
+ * streamed, for example LIST or LIST_SIGHTS with the same conditions.
+ * <p>
+ * Every response is stored together with version of data, on which it was
+ * built. Writes to DAO increase version, so response is valid only while
+ * version of data is the same, and stale response is rebuilt by the next
+ * query. Total size of responses is bounded, least recently used responses
+ * are evicted first.
+ * <p>
+ * Response is cached for every combination of header and compression, with
+ * flags and ID of request, which was answered first. On hit response is copied
+ * into buffer from pool of connection, and flags and ID of the current request
+ * are written into header of copy.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ * @see ServerMessageProcessor
+ * @see ServerMetrics
+ */
+public class ResponseCache {
+
+    /**
+     * Offset of flags in frame with header.
+     */
+    private final static int FLAGS_OFFSET = Integer.BYTES;
+    /**
+     * Offset of ID of request in frame with header.
+     */
+    private final static int REQUEST_ID_OFFSET = Integer.BYTES + Byte.BYTES;
+
+    /**
+     * Max total size of cached responses in bytes, 0 if cache is disabled.
+     */
+    @Getter
+    private final long maxBytes;
+    /**
+     * Cached responses in order of access, the least recently used first.
+     */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * Total size of cached responses in bytes.
+     */
+    private long usedBytes = 0;
+    /**
+     * Number of queries, which were answered from cache.
+     */
+    private final LongAdder hits = new LongAdder();
+    /**
+     * Number of queries, which were not found in cache or were stale.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Create cache.
+     *
+     * @param maxBytes max total size of cached responses in bytes, 0 disables
+     * cache.
+     */
+    public ResponseCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get cached response to query.
+     *
+     * @param query conditions of query, must implement equals and hashCode.
+     * @param version current version of data, which is read by query.
+     * @param response slot for response to query.
+     * @return frame of response with leading 4 bytes of length in buffer from
+     * pool of connection, or null, if there is no response for current version
+     * of data.
+     */
+    public ByteBuffer get(Object query, long version, PendingResponse response) {
+        if (maxBytes == 0) {
+            return null;
+        }
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(new Key(query, response.isHeaderPresent(), response.isCompressionAccepted()));
+        }
+        if (entry == null || entry.version != version) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        byte[] frame = entry.frame;
+        ByteBuffer buffer = response.getConnection().getBufferPool().acquire(frame.length);
+        buffer.put(frame).flip();
+        if (response.isHeaderPresent()) {
+            buffer.put(FLAGS_OFFSET, (byte) (response.getFlags() | frame[FLAGS_OFFSET] & MessageFrame.FLAG_COMPRESSED));
+            buffer.putInt(REQUEST_ID_OFFSET, response.getRequestId());
+        }
+        return buffer;
+    }
+
+    /**
+     * Put response to query into cache. Response, which is bigger then cache,
+     * is not cached. Position of frame is not changed.
+     *
+     * @param query conditions of query, must implement equals and hashCode.
+     * @param version version of data, which was read before query.
+     * @param response slot for response to query.
+     * @param frame frame of response with leading 4 bytes of length.
+     */
+    public void put(Object query, long version, PendingResponse response, ByteBuffer frame) {
+        int length = frame.remaining();
+        if (length > maxBytes) {
+            return;
+        }
+        byte[] copy = new byte[length];
+        frame.duplicate().get(copy);
+        Key key = new Key(query, response.isHeaderPresent(), response.isCompressionAccepted());
+        synchronized (this) {
+            Entry previous = entries.get(key);
+            if (previous != null && previous.version > version) {
+                return;
+            }
+            entries.put(key, new Entry(version, copy));
+            usedBytes += length - (previous == null ? 0 : previous.frame.length);
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (usedBytes > maxBytes) {
+                usedBytes -= eldest.next().frame.length;
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Number of cached responses.
+     *
+     * @return number of responses.
+     */
+    public synchronized int getEntries() {
+        return entries.size();
+    }
+
+    /**
+     * Total size of cached responses.
+     *
+     * @return size in bytes.
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Number of queries, which were answered from cache.
+     *
+     * @return number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Number of queries, which were not found in cache or were stale.
+     *
+     * @return number of misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Key of response: query and format of frame.
+     */
+    @Data
+    private static class Key {
+
+        private final Object query;
+        private final boolean headerPresent;
+        private final boolean compressionAccepted;
+    }
+
+    /**
+     * Encoded response with version of data.
+     */
+    private static class Entry {
+
+        private final long version;
+        private final byte[] frame;
+
+        private Entry(long version, byte[] frame) {
+            this.version = version;
+            this.frame = frame;
+        }
+    }
+}
@@ -1,31 +1,48 @@
 package com.dataart.edu.server;
 
-import com.dataart.edu.message.dto.BaseMessageDto;
 import com.dataart.edu.message.dto.BirdDto;
 import com.dataart.edu.message.dto.BirdSightDto;
 import com.dataart.edu.message.dto.request.AddBirdRequestDto;
 import com.dataart.edu.server.dao.IBirdsDao;
 import com.dataart.edu.message.dto.request.BaseClientRequestDto;
+import com.dataart.edu.message.dto.request.BatchRequestDto;
+import com.dataart.edu.message.dto.request.ClientAction;
 import static com.dataart.edu.message.dto.request.ClientAction.ADD;
+import static com.dataart.edu.message.dto.request.ClientAction.ADD_BATCH;
 import static com.dataart.edu.message.dto.request.ClientAction.ADD_SIGHT;
+import static com.dataart.edu.message.dto.request.ClientAction.ADD_SIGHT_BATCH;
 import static com.dataart.edu.message.dto.request.ClientAction.LIST;
 import static com.dataart.edu.message.dto.request.ClientAction.LIST_SIGHTS;
 import static com.dataart.edu.message.dto.request.ClientAction.QUIT;
 import static com.dataart.edu.message.dto.request.ClientAction.REMOVE;
+import com.dataart.edu.message.dto.request.PageRequest;
 import com.dataart.edu.message.dto.request.SightingRequestDto;
+import com.dataart.edu.message.dto.request.SyncListRequestDto;
 import com.dataart.edu.message.dto.response.ServerResponseDto;
+import com.dataart.edu.server.ConfigurationCreator.ExecutorMode;
 import com.dataart.edu.server.ConfigurationCreator.ServerConfiguration;
+import com.dataart.edu.server.dao.BirdChanges;
 import com.dataart.edu.server.dao.BirdsDaoWrapper;
+import com.dataart.edu.message.format.MessageFrame;
+import com.dataart.edu.message.format.util.FrameCompression;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
-import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 import javax.annotation.PostConstruct;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -43,8 +60,29 @@ public class ServerMessageProcessor {
      * Default period to wait executor termination.
      */
     public final static int WAIT_TERMINATION_PERIOD_SECONDS = 10;
+    /**
+     * Error, which is sent to client, when request can not be queued.
+     */
+    public final static String SERVER_OVERLOADED_ERROR = "Server overloaded.";
     
+    /**
+     * Name of factory method of virtual thread executor, which exists since
+     * Java 21.
+     */
+    private final static String VIRTUAL_THREAD_EXECUTOR_FACTORY = "newVirtualThreadPerTaskExecutor";
+
     private ExecutorService procCountExecutor;
+    /**
+     * Random ID of run of server, which is written to tokens of version of
+     * birds.
+     */
+    private final long runId = ThreadLocalRandom.current().nextLong();
+    /**
+     * Mode of executor, which is really used. It can differ from configured
+     * mode, if JVM does not support virtual threads.
+     */
+    @Getter
+    private ExecutorMode executorMode;
     @Autowired
     private Consumer<SelectionKey> writeErrorConsumer;
     @Autowired
@@ -55,73 +93,251 @@ public class ServerMessageProcessor {
     private ServerConfiguration config;
     @Autowired
     private BirdsDaoWrapper daoWrapper;
+    @Autowired
+    private InFlightLimiter inFlightLimiter;
+    @Autowired
+    private ServerMetrics metrics;
+    @Autowired
+    private ResponseCache responseCache;
+    @Autowired
+    private ForkJoinPool queryPool;
 
     /**
-     * Create executor with proc_count size after initialization of all
+     * Create executor of configured mode after initialization of all
      * properties.
      */
     @PostConstruct
     private void initExecutor() {
-        procCountExecutor = Executors.newFixedThreadPool(config.getProcCount());
-        log.info("Starting FixedThreadPool with size {} successfull", config.getProcCount());
+        executorMode = config.getExecutorMode();
+        if (executorMode == ExecutorMode.VIRTUAL) {
+            procCountExecutor = createVirtualThreadExecutor();
+            if (procCountExecutor != null) {
+                log.info("Starting virtual thread per task executor successfull");
+                return;
+            }
+            log.warn("Virtual threads are not supported by JVM, fixed thread pool is used.");
+            executorMode = ExecutorMode.FIXED;
+        }
+        if (executorMode == ExecutorMode.FORKJOIN) {
+            procCountExecutor = new ForkJoinPool(config.getProcCount(), ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+            log.info("Starting ForkJoinPool with parallelism {} successfull", config.getProcCount());
+            return;
+        }
+        procCountExecutor = createFixedThreadPool();
+    }
+
+    /**
+     * Create executor with proc_count size and bounded queue. Queue is twice
+     * bigger then limit of requests in processing, because limit is checked
+     * only after every read and can be exceeded a bit.
+     *
+     * @return ThreadPoolExecutor
+     */
+    private ExecutorService createFixedThreadPool() {
+        int queueCapacity = 2 * config.getMaxInFlight();
+        ExecutorService executor = new ThreadPoolExecutor(config.getProcCount(), config.getProcCount(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity));
+        log.info("Starting FixedThreadPool with size {} and queue capacity {} successfull", config.getProcCount(), queueCapacity);
+        return executor;
+    }
+
+    /**
+     * Create executor, which starts new virtual thread for every request.
+     * Executor is created through reflection, so server can be built and run
+     * on JVM without virtual threads. Number of requests in processing is
+     * bounded by InFlightLimiter.
+     *
+     * @return executor or null, if JVM does not support virtual threads.
+     */
+    private ExecutorService createVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod(VIRTUAL_THREAD_EXECUTOR_FACTORY).invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
     }
 
     /**
-     * Processing incoming message.
+     * Number of requests, which wait in queue of executor. Executor of virtual
+     * threads has no queue.
      *
-     * @param clientCommand command from client.
-     * @param selectionKey key of SocketChannel
-     * @param sourceMessageBody message body in bytes
+     * @return depth of queue.
+     */
+    public int getQueueDepth() {
+        if (procCountExecutor instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) procCountExecutor).getQueue().size();
+        }
+        if (procCountExecutor instanceof ForkJoinPool) {
+            ForkJoinPool pool = (ForkJoinPool) procCountExecutor;
+            return (int) (pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount());
+        }
+        return 0;
+    }
+
+    /**
+     * Processing incoming message. Actions, which are configured as inline, are
+     * processed in calling reactor thread, other actions are passed to
+     * executor. If queue of executor is full, client is answered with error.
+     *
+     * @param clientCommand command from client, instance of concrete request
+     * type.
+     * @param response slot for response to command.
      * @see BaseClientRequestDto
-     * @see SelectionKey
-     */
-    public void processMessage(final BaseClientRequestDto clientCommand, final SelectionKey selectionKey, byte[] sourceMessageBody) {
-        procCountExecutor.submit(() -> {
-            try {
-                this.processMessageNoConcurrent(clientCommand, selectionKey, sourceMessageBody);
-            } catch (IOException e) {
-                log.error("IOException during sending message to client. Connection will be closed.", e);
-                writeErrorConsumer.accept(selectionKey);
-            }
-        });
+     * @see PendingResponse
+     */
+    public void processMessage(final BaseClientRequestDto clientCommand, final PendingResponse response) {
+        dispatch(clientCommand.getCommand(), response, () -> this.processMessageNoConcurrent(clientCommand, response));
+    }
+
+    /**
+     * Processing of ADD_SIGHT, which was read from
+     * {@link com.dataart.edu.message.codec.SightingRequestView} without
+     * creating of request message. It is executed as other messages.
+     *
+     * @param sight sighting to add.
+     * @param response slot for response to command.
+     */
+    public void processSight(final BirdSightDto sight, final PendingResponse response) {
+        dispatch(ADD_SIGHT, response, () -> this.addSightNoConcurrent(sight, response));
+    }
+
+    /**
+     * Execute action in calling reactor thread, if it is configured as
+     * inline, otherwise pass it to executor.
+     *
+     * @param action action of request.
+     * @param response slot for response to request.
+     * @param execution processing of request.
+     */
+    private void dispatch(ClientAction action, PendingResponse response, RequestExecution execution) {
+        if (config.getInlineActions().contains(action)) {
+            this.executeMessage(action, execution, response, true);
+            return;
+        }
+        try {
+            procCountExecutor.execute(() -> this.executeMessage(action, execution, response, false));
+        } catch (RejectedExecutionException e) {
+            metrics.requestRejected();
+            ServerResponseDto serverAnswer = new ServerResponseDto();
+            serverAnswer.setSuccess(false);
+            serverAnswer.setError(SERVER_OVERLOADED_ERROR);
+            response.send(encodeAnswer(serverAnswer, response, true));
+            finishProcessing(response);
+        }
+    }
+
+    /**
+     * Execute command and measure time of execution.
+     *
+     * @param action action of request.
+     * @param execution processing of request.
+     * @param response slot for response to command.
+     * @param inline is command executed in reactor thread.
+     */
+    private void executeMessage(ClientAction action, RequestExecution execution, PendingResponse response, boolean inline) {
+        long start = System.nanoTime();
+        try {
+            execution.execute();
+        } catch (IOException e) {
+            log.error("IOException during processing of message. Connection will be closed.", e);
+            writeErrorConsumer.accept(response.getConnection().getSelectionKey());
+        } finally {
+            metrics.actionExecuted(action, inline, System.nanoTime() - start);
+            finishProcessing(response);
+        }
+    }
+
+    /**
+     * Finish processing of message: allow sending of next responses and let
+     * limiter resume reading.
+     *
+     * @param response slot for response.
+     */
+    private void finishProcessing(PendingResponse response) {
+        response.finish();
+        inFlightLimiter.requestFinished(response.getConnection());
+    }
+
+    /**
+     * Add sighting and answer to client.
+     *
+     * @param sight sighting to add.
+     * @param response slot for response to command.
+     * @throws IOException if problem during answering arise.
+     */
+    private void addSightNoConcurrent(BirdSightDto sight, PendingResponse response) throws IOException {
+        ServerResponseDto serverAnswer = new ServerResponseDto();
+        try {
+            daoComponent.addSight(sight);
+        } catch (IllegalArgumentException e) {
+            log.info("Logic exception during request execution:{}.", e.getMessage());
+            serverAnswer.setSuccess(false);
+            serverAnswer.setError(e.getMessage());
+        }
+        answerWithMessageToClient(serverAnswer, response, false);
     }
 
     /**
      * Processing of command from client.
      *
      * @param clientRequest command from client.
-     * @param selectionKey key of SocketChannel
-     * @throws IOException if, for example, client terminated connection.
+     * @param response slot for response to command.
+     * @throws IOException if problem during stopping of server arise.
      * @see BaseClientRequestDto
-     * @see SelectionKey
+     * @see PendingResponse
      */
-    private void processMessageNoConcurrent(final BaseClientRequestDto clientRequest, SelectionKey selectionKey, byte messageAsBytes[]) throws IOException {
+    private void processMessageNoConcurrent(final BaseClientRequestDto clientRequest, PendingResponse response) throws IOException {
         ServerResponseDto serverAnswer = new ServerResponseDto();
         try {
             switch (clientRequest.getCommand()) {
                 case ADD:
-                    AddBirdRequestDto addCommand = BaseMessageDto.deserialize(messageAsBytes, AddBirdRequestDto.class);
+                    AddBirdRequestDto addCommand = requestOfType(clientRequest, AddBirdRequestDto.class);
                     daoComponent.addBird(new BirdDto(clientRequest.getName(), addCommand.getColor(), addCommand.getHeight(), addCommand.getWeight()));
                     break;
                 case ADD_SIGHT:
-                    SightingRequestDto addSightingCommand = BaseMessageDto.deserialize(messageAsBytes, SightingRequestDto.class);
+                    SightingRequestDto addSightingCommand = requestOfType(clientRequest, SightingRequestDto.class);
                     daoComponent.addSight(new BirdSightDto(clientRequest.getName(), addSightingCommand.getLocation(), addSightingCommand.getStart()));
                     break;
                 case LIST:
-                    List<BirdDto> resultList = daoComponent.findAllBirds();
+                    if (clientRequest instanceof SyncListRequestDto) {
+                        serverAnswer.setResultData(findBirdChanges((SyncListRequestDto) clientRequest, serverAnswer));
+                        break;
+                    }
+                    if (isCacheable(clientRequest, response)) {
+                        answerCached(LIST, daoComponent::getBirdsVersion, response, daoComponent::findAllBirds);
+                        return;
+                    }
+                    List<BirdDto> resultList = clientRequest instanceof PageRequest
+                            ? findBirdsPage((PageRequest) clientRequest, serverAnswer)
+                            : daoComponent.findAllBirds();
                     serverAnswer.setResultData(resultList);
                     break;
                 case LIST_SIGHTS:
-                    SightingRequestDto listSightingCommand = BaseMessageDto.deserialize(messageAsBytes, SightingRequestDto.class);
-                    List<BirdSightDto> resultSet = daoComponent.findSight(new BirdSightDto(clientRequest.getName(), listSightingCommand.getLocation(), listSightingCommand.getStart(), listSightingCommand.getEnd()));
+                    SightingRequestDto listSightingCommand = requestOfType(clientRequest, SightingRequestDto.class);
+                    BirdSightDto sightToFind = new BirdSightDto(clientRequest.getName(), listSightingCommand.getLocation(), listSightingCommand.getStart(), listSightingCommand.getEnd());
+                    if (isCacheable(clientRequest, response)) {
+                        answerCached(sightToFind, daoComponent::getSightsVersion, response, () -> daoComponent.findSight(sightToFind));
+                        return;
+                    }
+                    List<BirdSightDto> resultSet = clientRequest instanceof PageRequest
+                            ? findSightsPage(sightToFind, (PageRequest) clientRequest, serverAnswer)
+                            : daoComponent.findSight(sightToFind);
                     serverAnswer.setResultData(resultSet);
                     break;
                 case REMOVE:
                     daoComponent.removeBird(clientRequest.getName());
                     break;
+                case ADD_BATCH:
+                    List<BirdDto> birds = itemsOfType(requestOfType(clientRequest, BatchRequestDto.class), BirdDto.class);
+                    setItemErrors(serverAnswer, daoComponent.addBirds(birds));
+                    break;
+                case ADD_SIGHT_BATCH:
+                    List<BirdSightDto> sights = itemsOfType(requestOfType(clientRequest, BatchRequestDto.class), BirdSightDto.class);
+                    setItemErrors(serverAnswer, daoComponent.addSights(sights));
+                    break;
                 case QUIT:
                     log.info("Recived command QUITE. Server will be stoped.");
-                    answerWithMessageToClient(serverAnswer, selectionKey, true);
+                    answerWithMessageToClient(serverAnswer, response, true);
                     return;
                 default:
                     serverAnswer.setSuccess(false);
@@ -132,26 +348,253 @@ public class ServerMessageProcessor {
             serverAnswer.setSuccess(false);
             serverAnswer.setError(e.getMessage());
         }
-        answerWithMessageToClient(serverAnswer, selectionKey, false);
+        if (response.isStreamed() && serverAnswer.getResultData() != null) {
+            answerWithChunksToClient(serverAnswer, response);
+            return;
+        }
+        answerWithMessageToClient(serverAnswer, response, false);
+    }
+
+    /**
+     * Can response to request be taken from cache of responses. Pages and
+     * streamed responses are always built from DAO.
+     *
+     * @param clientRequest command from client.
+     * @param response slot for response to command.
+     * @return true, if response can be cached.
+     */
+    private static boolean isCacheable(BaseClientRequestDto clientRequest, PendingResponse response) {
+        return !(clientRequest instanceof PageRequest) && !response.isStreamed();
+    }
+
+    /**
+     * Answer to query with response from cache, if data was not changed since
+     * response was cached, otherwise find result, answer and cache response.
+     * Response is cached, only if version of data is the same before and
+     * after query, so response, which was built during concurrent write, is
+     * neither copied to cache nor returned from it.
+     *
+     * @param query conditions of query.
+     * @param dataVersion version of data, which is read by query.
+     * @param response slot for response to query.
+     * @param finder search of result of query.
+     * @throws IllegalArgumentException if conditions of query are invalid.
+     */
+    private void answerCached(Object query, LongSupplier dataVersion, PendingResponse response, Supplier<List<?>> finder) {
+        long version = dataVersion.getAsLong();
+        ByteBuffer frame = responseCache.get(query, version, response);
+        if (frame == null) {
+            ServerResponseDto serverAnswer = new ServerResponseDto();
+            serverAnswer.setResultData(finder.get());
+            frame = encodeAnswer(serverAnswer, response, true);
+            if (dataVersion.getAsLong() == version) {
+                responseCache.put(query, version, response, frame);
+            }
+        }
+        response.complete(frame);
+    }
+
+    /**
+     * Find changes of birds since version of token of request, or all birds,
+     * if there is no token, or changes are not known.
+     *
+     * @param request request of changes.
+     * @param serverAnswer answer, to which token of the current version and
+     * names of removed birds are set.
+     * @return added birds, or all birds.
+     * @throws IllegalArgumentException if token is invalid.
+     */
+    private List<BirdDto> findBirdChanges(SyncListRequestDto request, ServerResponseDto serverAnswer) {
+        BirdChanges changes = daoComponent.findBirdChanges(SyncToken.toVersion(request.getToken(), runId));
+        serverAnswer.setSyncToken(SyncToken.of(runId, changes.getVersion()));
+        serverAnswer.setRemovedNames(changes.getRemovedNames());
+        return changes.getBirds();
+    }
+
+    /**
+     * Find page of birds. One bird more then page size is read to know, if
+     * there is the next page.
+     *
+     * @param page page request.
+     * @param serverAnswer answer, to which cursor of the next page is set.
+     * @return birds of page.
+     * @throws IllegalArgumentException if size of page or cursor is invalid.
+     */
+    private List<BirdDto> findBirdsPage(PageRequest page, ServerResponseDto serverAnswer) {
+        int pageSize = checkPageSize(page);
+        String afterName = page.getCursor() == null ? null : PageCursor.toBirdName(page.getCursor());
+        List<BirdDto> birds = daoComponent.findAllBirds(afterName, pageSizeWithNext(pageSize));
+        if (birds.size() <= pageSize) {
+            return birds;
+        }
+        serverAnswer.setCursor(PageCursor.ofBird(birds.get(pageSize - 1)));
+        return birds.subList(0, pageSize);
+    }
+
+    /**
+     * Find page of sightings. One sighting more then page size is read to
+     * know, if there is the next page.
+     *
+     * @param sightToFind conditions of search.
+     * @param page page request.
+     * @param serverAnswer answer, to which cursor of the next page is set.
+     * @return sightings of page.
+     * @throws IllegalArgumentException if size of page or cursor is invalid.
+     */
+    private List<BirdSightDto> findSightsPage(BirdSightDto sightToFind, PageRequest page, ServerResponseDto serverAnswer) {
+        int pageSize = checkPageSize(page);
+        BirdSightDto after = page.getCursor() == null ? null : PageCursor.toSight(page.getCursor());
+        List<BirdSightDto> sights = daoComponent.findSight(sightToFind, after, pageSizeWithNext(pageSize));
+        if (sights.size() <= pageSize) {
+            return sights;
+        }
+        serverAnswer.setCursor(PageCursor.ofSight(sights.get(pageSize - 1)));
+        return sights.subList(0, pageSize);
+    }
+
+    private static int checkPageSize(PageRequest page) {
+        if (page.getPageSize() <= 0) {
+            throw new IllegalArgumentException("Invalid size of page.");
+        }
+        return page.getPageSize();
+    }
+
+    private static int pageSizeWithNext(int pageSize) {
+        return pageSize == Integer.MAX_VALUE ? pageSize : pageSize + 1;
+    }
+
+    /**
+     * Check, that request has type, which is required by its command.
+     *
+     * @param <T> required type of request.
+     * @param clientRequest request from client.
+     * @param requestType required type of request.
+     * @return request with required type.
+     * @throws IllegalArgumentException if request has other type.
+     */
+    private <T extends BaseClientRequestDto> T requestOfType(BaseClientRequestDto clientRequest, Class<T> requestType) {
+        if (!requestType.isInstance(clientRequest)) {
+            throw new IllegalArgumentException("Invalid request for command " + clientRequest.getCommand() + ".");
+        }
+        return requestType.cast(clientRequest);
+    }
+
+    /**
+     * Copy items of batch request, so only fields, which are set by ADD and
+     * ADD_SIGHT, are added.
+     *
+     * @param <T> BirdDto or BirdSightDto.
+     * @param request batch request.
+     * @param itemType required type of items.
+     * @return copies of items.
+     * @throws IllegalArgumentException if there are no items, or they have
+     * other type.
+     */
+    private <T> List<T> itemsOfType(BatchRequestDto request, Class<T> itemType) {
+        if (request.getItems() == null) {
+            throw new IllegalArgumentException("Invalid request for command " + request.getCommand() + ".");
+        }
+        List<T> items = new ArrayList<>(request.getItems().size());
+        for (Object item : request.getItems()) {
+            if (!itemType.isInstance(item)) {
+                throw new IllegalArgumentException("Invalid request for command " + request.getCommand() + ".");
+            }
+            if (item instanceof BirdDto) {
+                BirdDto bird = (BirdDto) item;
+                items.add(itemType.cast(new BirdDto(bird.getName(), bird.getColor(), bird.getHeight(), bird.getWeight())));
+            } else {
+                BirdSightDto sight = (BirdSightDto) item;
+                items.add(itemType.cast(new BirdSightDto(sight.getName(), sight.getLocation(), sight.getStart())));
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Set errors of items of batch to answer. If some items were not added,
+     * answer is not successful.
+     *
+     * @param serverAnswer answer to batch request.
+     * @param itemErrors errors of items, null for added items.
+     */
+    private static void setItemErrors(ServerResponseDto serverAnswer, List<String> itemErrors) {
+        serverAnswer.setItemErrors(itemErrors);
+        long failed = itemErrors.stream().filter(error -> error != null).count();
+        if (failed > 0) {
+            serverAnswer.setSuccess(false);
+            serverAnswer.setError(String.format("%d of %d items were not added.", failed, itemErrors.size()));
+        }
     }
 
     /**
-     * Answer to client.
+     * Answer to client. Answer is put to response slot, and written to
+     * channel by reactor thread, when order of responses allows it.
      *
      * @param serverAnswer answer which will be send to client.
-     * @param selectionKey key of client channel.
+     * @param response slot for response.
      * @param withServerStop if true - this means that QUITE must be processed.
-     * @throws IOException if, for example, client terminated connection.
+     * @throws IOException if problem during stopping of server arise.
      * @see ServerResponseDto
-     * @see SelectionKey
+     * @see PendingResponse
      */
-    private void answerWithMessageToClient(ServerResponseDto serverAnswer, SelectionKey selectionKey, boolean withServerStop) throws IOException {
-        ((SocketChannel) selectionKey.channel()).write(ByteBuffer.wrap(BaseMessageDto.serialize(serverAnswer)));
+    private void answerWithMessageToClient(ServerResponseDto serverAnswer, PendingResponse response, boolean withServerStop) throws IOException {
+        response.complete(encodeAnswer(serverAnswer, response, true));
         if (withServerStop) {
             stop();
         }
     }
 
+    /**
+     * Answer to client with result as sequence of chunks of chunk_size rows.
+     * Every chunk is serialized into its own buffer and put to response slot
+     * as soon as it is ready, so client gets first rows before whole result is
+     * encoded, and no buffer is bigger then one chunk. Result is always sent
+     * as at least one chunk, the last chunk is marked with
+     * {@link MessageFrame#FLAG_LAST_CHUNK} and contains cursor of the next
+     * page, if result is page, or token and removed birds, if result is
+     * changes of birds.
+     *
+     * @param serverAnswer answer with result of command.
+     * @param response slot for streamed response.
+     */
+    private void answerWithChunksToClient(ServerResponseDto serverAnswer, PendingResponse response) {
+        List<?> resultData = serverAnswer.getResultData();
+        int chunkSize = config.getChunkSize();
+        int from = 0;
+        do {
+            int to = Math.min(from + chunkSize, resultData.size());
+            ServerResponseDto chunk = new ServerResponseDto();
+            chunk.setResultData(resultData.subList(from, to));
+            if (to == resultData.size()) {
+                chunk.setCursor(serverAnswer.getCursor());
+                chunk.setSyncToken(serverAnswer.getSyncToken());
+                chunk.setRemovedNames(serverAnswer.getRemovedNames());
+            }
+            response.send(encodeAnswer(chunk, response, to == resultData.size()));
+            from = to;
+        } while (from < resultData.size() && response.getConnection().getSelectionKey().isValid());
+        response.finish();
+    }
+
+    /**
+     * Serialize answer into buffer from pool of connection. If client accepts
+     * compressed responses and body is bigger then compress_threshold, body
+     * is compressed.
+     *
+     * @param serverAnswer answer or chunk of answer.
+     * @param response slot for response.
+     * @param last is it the last chunk of response.
+     * @return frame of answer with leading 4 bytes of length.
+     */
+    private ByteBuffer encodeAnswer(ServerResponseDto serverAnswer, PendingResponse response, boolean last) {
+        ByteBuffer frame = response.serializeChunk(serverAnswer, last);
+        int bodyLength = frame.remaining() - Integer.BYTES - MessageFrame.HEADER_SIZE;
+        if (response.isCompressionAccepted() && bodyLength > config.getCompressThreshold()) {
+            return FrameCompression.compress(frame, config.getCompressLevel(), response.getConnection().getBufferPool());
+        }
+        return frame;
+    }
+
     /**
      * Stop all components.
      *
@@ -173,5 +616,15 @@ public class ServerMessageProcessor {
             log.info("Failed stop executor. {}", ie.getMessage());
         }
         log.info("Executor stopped {}", procCountExecutorStoped);
+        queryPool.shutdownNow();
+    }
+
+    /**
+     * Processing of one request, which can fail with IOException.
+     */
+    @FunctionalInterface
+    private interface RequestExecution {
+
+        void execute() throws IOException;
     }
 }
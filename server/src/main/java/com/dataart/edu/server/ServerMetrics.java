@@ -0,0 +1,212 @@
+package com.dataart.edu.server;
+
+import com.dataart.edu.message.dto.request.ClientAction;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * Metrics of server, which are exposed through JMX.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ * @see InFlightLimiter
+ * @see ServerMessageProcessor
+ */
+@ManagedResource(objectName = "com.dataart.edu.server:type=ServerMetrics", description = "Metrics of server")
+public class ServerMetrics {
+
+    @Autowired
+    private InFlightLimiter inFlightLimiter;
+    @Autowired
+    private ServerMessageProcessor messageProcessor;
+    @Autowired
+    private ResponseCache responseCache;
+    /**
+     * Number of requests, which were rejected because of overload.
+     */
+    private final LongAdder rejectedRequests = new LongAdder();
+    /**
+     * Timings of execution of every action.
+     */
+    private final Map<ClientAction, ActionTimings> actionTimings = new EnumMap<>(ClientAction.class);
+
+    /**
+     * Create metrics.
+     */
+    public ServerMetrics() {
+        for (ClientAction action : ClientAction.values()) {
+            actionTimings.put(action, new ActionTimings());
+        }
+    }
+
+    /**
+     * Register request, which was rejected because of overload.
+     */
+    public void requestRejected() {
+        rejectedRequests.increment();
+    }
+
+    /**
+     * Register execution of action.
+     *
+     * @param action executed action.
+     * @param inline was action executed in reactor thread.
+     * @param nanos time of execution in nanoseconds.
+     */
+    public void actionExecuted(ClientAction action, boolean inline, long nanos) {
+        ActionTimings timings = actionTimings.get(action);
+        (inline ? timings.inlineCount : timings.pooledCount).increment();
+        timings.totalNanos.add(nanos);
+        timings.maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Number of executions of action.
+     *
+     * @param action name of action, for example LIST.
+     * @return number of executions, inline and in executor.
+     */
+    @ManagedOperation(description = "Number of executions of action")
+    public long getActionCount(String action) {
+        ActionTimings timings = actionTimings.get(ClientAction.valueOf(action));
+        return timings.inlineCount.sum() + timings.pooledCount.sum();
+    }
+
+    /**
+     * Average time of execution of action.
+     *
+     * @param action name of action, for example LIST.
+     * @return average time in microseconds, 0 if action was not executed.
+     */
+    @ManagedOperation(description = "Average time of execution of action in microseconds")
+    public double getActionAverageMicros(String action) {
+        return actionTimings.get(ClientAction.valueOf(action)).getAverageMicros();
+    }
+
+    /**
+     * Timings of all actions as text, one action per line.
+     *
+     * @return timings of actions.
+     */
+    @ManagedAttribute(description = "Count, average and max time of execution of every action")
+    public String getActionTimings() {
+        StringBuilder result = new StringBuilder();
+        actionTimings.forEach((action, timings) -> result.append(String.format(
+                "%s: inline=%d, pooled=%d, avg=%.1fus, max=%.1fus%n", action, timings.inlineCount.sum(),
+                timings.pooledCount.sum(), timings.getAverageMicros(), timings.maxNanos.get() / 1e3)));
+        return result.toString();
+    }
+
+    /**
+     * Mode of executor, which processes requests.
+     *
+     * @return fixed, forkjoin or virtual.
+     */
+    @ManagedAttribute(description = "Mode of executor, which processes requests")
+    public String getExecutorMode() {
+        return messageProcessor.getExecutorMode().name().toLowerCase();
+    }
+
+    /**
+     * Number of requests, which wait in queue of executor.
+     *
+     * @return depth of queue.
+     */
+    @ManagedAttribute(description = "Number of requests, which wait in queue of executor")
+    public int getQueueDepth() {
+        return messageProcessor.getQueueDepth();
+    }
+
+    /**
+     * Number of requests in processing for whole server.
+     *
+     * @return number of requests.
+     */
+    @ManagedAttribute(description = "Number of requests, which are decoded, but not answered yet")
+    public int getInFlightRequests() {
+        return inFlightLimiter.getInFlightRequests();
+    }
+
+    /**
+     * Number of connections, reading of which is suspended.
+     *
+     * @return number of connections.
+     */
+    @ManagedAttribute(description = "Number of connections, reading of which is suspended")
+    public int getSuspendedConnections() {
+        return inFlightLimiter.getSuspendedConnections();
+    }
+
+    /**
+     * Total number of suspensions of reading.
+     *
+     * @return number of suspensions.
+     */
+    @ManagedAttribute(description = "Total number of suspensions of reading")
+    public long getSuspensions() {
+        return inFlightLimiter.getSuspensions();
+    }
+
+    /**
+     * Number of requests, which were rejected because of overload.
+     *
+     * @return number of requests.
+     */
+    @ManagedAttribute(description = "Number of requests, which were rejected because of overload")
+    public long getRejectedRequests() {
+        return rejectedRequests.sum();
+    }
+
+    /**
+     * Number of LIST and LIST_SIGHTS queries, which were answered from cache.
+     *
+     * @return number of hits.
+     */
+    @ManagedAttribute(description = "Number of queries, which were answered from cache of responses")
+    public long getResponseCacheHits() {
+        return responseCache.getHits();
+    }
+
+    /**
+     * Number of LIST and LIST_SIGHTS queries, which were not found in cache or
+     * were stale.
+     *
+     * @return number of misses.
+     */
+    @ManagedAttribute(description = "Number of queries, which were not answered from cache of responses")
+    public long getResponseCacheMisses() {
+        return responseCache.getMisses();
+    }
+
+    /**
+     * Total size of cached responses.
+     *
+     * @return size in bytes.
+     */
+    @ManagedAttribute(description = "Total size of cached responses in bytes")
+    public long getResponseCacheBytes() {
+        return responseCache.getUsedBytes();
+    }
+
+    /**
+     * Timings of execution of one action.
+     */
+    private static class ActionTimings {
+
+        private final LongAdder inlineCount = new LongAdder();
+        private final LongAdder pooledCount = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong(0);
+
+        private double getAverageMicros() {
+            long count = inlineCount.sum() + pooledCount.sum();
+            return count == 0 ? 0 : totalNanos.sum() / 1e3 / count;
+        }
+    }
+}
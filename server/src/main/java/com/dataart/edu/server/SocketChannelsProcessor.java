@@ -1,8 +1,13 @@
 package com.dataart.edu.server;
 
-import com.dataart.edu.message.dto.BaseMessageDto;
+import com.dataart.edu.message.codec.MessageCodec;
+import com.dataart.edu.message.codec.SightingRequestView;
+import com.dataart.edu.message.dto.BirdSightDto;
 import com.dataart.edu.message.dto.request.BaseClientRequestDto;
+import com.dataart.edu.message.dto.request.ClientAction;
 import com.dataart.edu.message.format.BinaryMessageReader;
+import com.dataart.edu.message.format.util.ByteBufferPool;
+import com.dataart.edu.server.ConfigurationCreator.ServerConfiguration;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
@@ -12,11 +17,16 @@ import java.nio.channels.SocketChannel;
 import java.util.Iterator;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * Processing of channels, which was registered with Selector.
+ * <p>
+ * Works as boss/worker reactor: Selector of server socket only accepts new
+ * clients, and hands every new client channel to one of io_threads worker
+ * reactors, which do reading from client channels.
  *
  * @author alitvinov
  * @version 1.0.0
@@ -29,11 +39,12 @@ public class SocketChannelsProcessor {
     /**
      * Default timeout for Selector select method.
      */
-    private final static int SELECTOR_TIMEOUT = 5000;
+    final static int SELECTOR_TIMEOUT = 5000;
     /**
-     * Default buffer size for reading messages.
+     * Default buffer size for reading messages. One read can contain several
+     * messages.
      */
-    private final static int BUFFER_DEFAULT_SIZE = 256;
+    private final static int BUFFER_DEFAULT_SIZE = 4096;
     /**
      * Processor of incoming messages.
      */
@@ -49,6 +60,47 @@ public class SocketChannelsProcessor {
      */
     @Autowired
     private Consumer<SelectionKey> readErrorConsumer;
+    /**
+     * Consumer, which will accept IOException, if error during writing data
+     * arise.
+     */
+    @Autowired
+    private Consumer<SelectionKey> writeErrorConsumer;
+    /**
+     * Configuration.
+     */
+    @Autowired
+    @Getter
+    private ServerConfiguration config;
+    /**
+     * Pool of buffers for reading from channels and for message bodies.
+     */
+    @Autowired
+    @Getter
+    private ByteBufferPool bufferPool;
+    /**
+     * Codec of requests and responses.
+     */
+    @Autowired
+    @Getter
+    private MessageCodec messageCodec;
+    /**
+     * Limiter of requests in processing.
+     */
+    @Autowired
+    private InFlightLimiter inFlightLimiter;
+    /**
+     * Worker reactors, which process reading from client channels.
+     */
+    private ChannelReactor[] reactors;
+    /**
+     * Index of reactor, which will get next accepted client.
+     */
+    private int nextReactorIndex = 0;
+    /**
+     * Selector of server socket, it is used to wake up acceptor during stop.
+     */
+    private volatile Selector acceptorSelector;
 
     /**
      * Processing of channels, registered with Selector.
@@ -60,81 +112,163 @@ public class SocketChannelsProcessor {
     public void processRegisteredChannels(Selector selector, ServerSocketChannel serverSocket) throws IOException {
         log.info("Starting dao background savers.");
         log.info("DAO background savers started.");
+        acceptorSelector = selector;
+        startReactors();
         SelectionKey keyOfChannelWithAvaliableData;
-        while (continueProcessing.get()) {
-            try {
-                selector.select(SELECTOR_TIMEOUT);
-            } catch (IllegalArgumentException timeoutException) {
-                //it is not error, it used to periodically check,
-                //need selector be terminated or not.              
-                log.debug("Selector timeout occured.");
-                continue;
-            }
-            Iterator<SelectionKey> chanelsWithAvaliableData = selector.selectedKeys().iterator();
-            while (chanelsWithAvaliableData.hasNext()) {
-                keyOfChannelWithAvaliableData = chanelsWithAvaliableData.next();
-                if (keyOfChannelWithAvaliableData.isAcceptable()) {
-                    processConnectNewClient(serverSocket, selector);
-                    log.info("New client connected to server.");
-                } else if (keyOfChannelWithAvaliableData.isReadable()) {
-                    processReadClientChannel(keyOfChannelWithAvaliableData);
+        try {
+            while (continueProcessing.get()) {
+                try {
+                    selector.select(SELECTOR_TIMEOUT);
+                } catch (IllegalArgumentException timeoutException) {
+                    //it is not error, it used to periodically check,
+                    //need selector be terminated or not.              
+                    log.debug("Selector timeout occured.");
+                    continue;
+                }
+                Iterator<SelectionKey> chanelsWithAvaliableData = selector.selectedKeys().iterator();
+                while (chanelsWithAvaliableData.hasNext()) {
+                    keyOfChannelWithAvaliableData = chanelsWithAvaliableData.next();
+                    if (keyOfChannelWithAvaliableData.isAcceptable()) {
+                        processConnectNewClient(serverSocket);
+                    }
+                    chanelsWithAvaliableData.remove();
                 }
-                chanelsWithAvaliableData.remove();
-            }
 
+            }
+        } finally {
+            stopReactors();
         }
-        log.info("Channel processor successfully stoped.");
+        log.info("Channel processor successfully stoped. Buffer pool hits {}, misses {}.", bufferPool.getHits(), bufferPool.getMisses());
         log.info("Try close server socket.");
         if (serverSocket != null) {
             serverSocket.close();
         }
+        selector.close();
         log.info("Server socket closed.");
     }
 
     /**
-     * New client is connected.
+     * Create and start io_threads worker reactors.
+     *
+     * @throws IOException if Selector of reactor can not be opened.
+     */
+    private void startReactors() throws IOException {
+        reactors = new ChannelReactor[config.getIoThreads()];
+        for (int i = 0; i < reactors.length; i++) {
+            reactors[i] = new ChannelReactor("io-reactor-" + i, this);
+            reactors[i].start();
+        }
+        log.info("Started {} io reactor(s).", reactors.length);
+    }
+
+    /**
+     * Stop all worker reactors.
+     */
+    private void stopReactors() {
+        if (reactors != null) {
+            for (ChannelReactor reactor : reactors) {
+                if (reactor != null) {
+                    reactor.stop();
+                }
+            }
+        }
+    }
+
+    /**
+     * New client is connected. Client channel is handed to next reactor in
+     * round-robin order.
      *
      * @param serverSocket server socket
-     * @param channelSelector selector
      * @throws IOException if exception during connect arise.
      */
-    private void processConnectNewClient(ServerSocketChannel serverSocket, Selector channelSelector) throws IOException {
+    private void processConnectNewClient(ServerSocketChannel serverSocket) throws IOException {
         SocketChannel clientChannel;
-        SelectionKey clientSelectionKey;
-        clientChannel = serverSocket.accept();
-        clientChannel.configureBlocking(false);
-        clientSelectionKey = clientChannel.register(channelSelector, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
-        clientSelectionKey.attach(new BinaryMessageReader(clientSelectionKey));
+        while ((clientChannel = serverSocket.accept()) != null) {
+            clientChannel.configureBlocking(false);
+            reactors[nextReactorIndex].registerChannel(clientChannel);
+            nextReactorIndex = (nextReactorIndex + 1) % reactors.length;
+            log.info("New client connected to server.");
+        }
     }
 
     /**
-     * reading from channel
+     * reading from channel. Reading is stopped and suspended, when limit of
+     * requests in processing is reached.
      *
      * @param clientKey key of client
      */
-    private void processReadClientChannel(SelectionKey clientKey) {
+    void processReadClientChannel(SelectionKey clientKey) {
         SocketChannel clientChannel;
+        ClientConnection connection;
         BinaryMessageReader binaryReader;
         ByteBuffer buffer;
         int numberOfBytesRead;
         clientChannel = (SocketChannel) clientKey.channel();
-        binaryReader = (BinaryMessageReader) clientKey.attachment();
+        connection = (ClientConnection) clientKey.attachment();
+        binaryReader = connection.getMessageReader();
+        buffer = bufferPool.acquire(BUFFER_DEFAULT_SIZE);
         try {
-            buffer = ByteBuffer.allocate(BUFFER_DEFAULT_SIZE);
             while ((numberOfBytesRead = clientChannel.read(buffer)) > 0) {
                 buffer.flip();
-                byte[] message = binaryReader.readMessageFromByteBuffer(buffer, numberOfBytesRead);
-                if (message != null) {
-                    messageProcessor.processMessage(BaseMessageDto.deserialize(message, BaseClientRequestDto.class), binaryReader.getSelectionKey(), message);
-                }
+                binaryReader.readMessagesFromByteBuffer(buffer, (message) -> {
+                    SightingRequestView sightingView = connection.getSightingView();
+                    if (connection.getCodec().wrapSighting(message.getBody(), sightingView)
+                            && sightingView.getCommand() == ClientAction.ADD_SIGHT) {
+                        //only strings, which are kept by DAO, are created.
+                        BirdSightDto sight;
+                        try {
+                            sight = new BirdSightDto(sightingView.getName(), sightingView.getLocation(), sightingView.getStart());
+                        } finally {
+                            bufferPool.release(message.getBody());
+                        }
+                        inFlightLimiter.requestStarted(connection);
+                        messageProcessor.processSight(sight, connection.createPendingResponse(message));
+                        return;
+                    }
+                    BaseClientRequestDto request;
+                    try {
+                        request = connection.getCodec().decode(message.getBody(), BaseClientRequestDto.class);
+                    } finally {
+                        bufferPool.release(message.getBody());
+                    }
+                    inFlightLimiter.requestStarted(connection);
+                    messageProcessor.processMessage(request, connection.createPendingResponse(message));
+                });
                 buffer.clear();
+                if (inFlightLimiter.suspendIfLimitReached(connection)) {
+                    return;
+                }
             }
             if (numberOfBytesRead < 0) {
+                connection.release();
                 clientKey.channel().close();
             }
         } catch (IOException e) {
             log.info("IOException occures: {}, connection will be closed.", e.getMessage());
             readErrorConsumer.accept(clientKey);
+        } catch (RuntimeException e) {
+            log.info("Incorrect message received: {}, connection will be closed.", e.getMessage());
+            readErrorConsumer.accept(clientKey);
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * Writing of queued messages to channel.
+     *
+     * @param clientKey key of client
+     */
+    void processWriteClientChannel(SelectionKey clientKey) {
+        ClientConnection connection = (ClientConnection) clientKey.attachment();
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.flush();
+        } catch (IOException e) {
+            log.info("IOException occures during writing: {}, connection will be closed.", e.getMessage());
+            writeErrorConsumer.accept(clientKey);
         }
     }
 
@@ -144,5 +278,9 @@ public class SocketChannelsProcessor {
     public void stop() {
         log.info("Stoping server.....");
         continueProcessing.compareAndSet(true, false);
+        Selector selector = acceptorSelector;
+        if (selector != null) {
+            selector.wakeup();
+        }
     }        
 }
@@ -0,0 +1,69 @@
+package com.dataart.edu.server;
+
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * Encoding of tokens of version of birds, which are opaque for client.
+ * <p>
+ * Token contains ID of run of server and version of birds (varlongs).
+ * Versions start from zero on every run, so token of other run is not used
+ * as version, and client gets all birds.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ * @see com.dataart.edu.message.dto.request.SyncListRequestDto
+ */
+final class SyncToken {
+
+    /**
+     * Error, which is sent to client, if token can not be decoded.
+     */
+    final static String INVALID_TOKEN_ERROR = "Invalid token.";
+
+    private final static int TOKEN_SIZE = 2 * (Long.BYTES + 2);
+
+    private SyncToken() {
+    }
+
+    /**
+     * Create token of version.
+     *
+     * @param runId ID of run of server.
+     * @param version version of birds.
+     * @return token.
+     */
+    static byte[] of(long runId, long version) {
+        Output output = new Output(TOKEN_SIZE, -1);
+        output.writeVarLong(runId, false);
+        output.writeVarLong(version, true);
+        return output.toBytes();
+    }
+
+    /**
+     * Read version from token.
+     *
+     * @param token token, created by {@link #of}, or null.
+     * @param runId ID of the current run of server.
+     * @return version of birds, or -1, if there is no token, or token was
+     * created by other run of server.
+     * @throws IllegalArgumentException if token is invalid.
+     */
+    static long toVersion(byte[] token, long runId) {
+        if (token == null) {
+            return -1;
+        }
+        try {
+            Input input = new Input(token);
+            long tokenRunId = input.readVarLong(false);
+            long version = input.readVarLong(true);
+            if (input.position() != token.length) {
+                throw new IllegalArgumentException(INVALID_TOKEN_ERROR);
+            }
+            return tokenRunId == runId ? version : -1;
+        } catch (KryoException e) {
+            throw new IllegalArgumentException(INVALID_TOKEN_ERROR, e);
+        }
+    }
+}
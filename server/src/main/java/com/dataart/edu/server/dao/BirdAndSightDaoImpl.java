@@ -2,21 +2,64 @@ package com.dataart.edu.server.dao;
 
 import com.dataart.edu.message.dto.BirdSightDto;
 import com.dataart.edu.message.dto.BirdDto;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Data Access Object, which stores all data in memory.
+ * <p>
+ * Birds and sightings are kept in maps sorted by bird name, so pages of
+ * results are read from position of cursor without scanning and sorting of
+ * previous birds. Sightings of every bird are kept in set ordered by date, so
+ * sightings in range of dates are read from view of set without scanning of
+ * other sightings, and they are already sorted.
+ * <p>
+ * Sightings are indexed by location in maps of the same structure, so search
+ * at location reads only sightings at that location. Sightings without
+ * location are not indexed.
+ * <p>
+ * Big searches are executed in pool of threads: matched birds are split to
+ * segments, which are searched in parallel. Size of search is estimated by
+ * number of matched birds and average number of sightings of bird. Segments are ranges of birds
+ * sorted by name, so result is concatenation of results of segments in their
+ * order.
+ * <p>
+ * Adds and removes of birds are written to bounded log of changes, so client,
+ * which knows birds of some version, can read only changes since it. Changes
+ * of birds are serialized by monitor of log, so order of changes in log is
+ * the same, as order of changes in map. Adds of sightings and removes of
+ * birds are serialized by striped monitor of bird name, because compute
+ * methods of sorted maps are not atomic: sighting is never added to bird,
+ * which is being removed.
+ * <p>
+ * Patterns of names in queries are parsed once and kept in bounded LRU
+ * cache. Only names with literal prefix of pattern are matched, and literal
+ * name is just found in map, see {@link NamePattern}.
  *
  * @author alitvinov
  * @version 1.0.0
@@ -25,8 +68,95 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class BirdAndSightDaoImpl implements IBirdsDao {
 
-    private final ConcurrentMap<String, BirdDto> birdsMemoryStore = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, Set<BirdSightDto>> sightingMemoryStore = new ConcurrentHashMap<>();
+    /**
+     * Order of sightings in result of search.
+     */
+    private static final Comparator<BirdSightDto> SIGHT_ORDER = Comparator
+            .comparing(BirdSightDto::getName)
+            .thenComparingLong(BirdSightDto::getStart)
+            .thenComparing(BirdSightDto::getLocation, Comparator.nullsFirst(Comparator.naturalOrder()));
+    /**
+     * Default max number of changes of birds in log.
+     */
+    public static final int DEFAULT_CHANGE_LOG_SIZE = 10000;
+    /**
+     * Max number of parsed patterns of names in cache.
+     */
+    private static final int PATTERN_CACHE_SIZE = 1024;
+    /**
+     * Number of segments per thread of pool in parallel search, more segments
+     * balance uneven birds better.
+     */
+    private static final int SEGMENTS_PER_THREAD = 4;
+    /**
+     * Number of stripes of locks of birds.
+     */
+    private static final int BIRD_LOCK_STRIPES = 64;
+
+    private final ConcurrentNavigableMap<String, BirdDto> birdsMemoryStore = new ConcurrentSkipListMap<>();
+    /**
+     * Sightings of every bird in order of {@link #SIGHT_ORDER}: by date and
+     * location.
+     */
+    private final ConcurrentNavigableMap<String, NavigableSet<BirdSightDto>> sightingMemoryStore = new ConcurrentSkipListMap<>();
+    /**
+     * Sightings by location: sightings at every location are kept in the same
+     * way, as in {@link #sightingMemoryStore}. Map of location is changed only
+     * in its computation, so it is removed, when it becomes empty.
+     */
+    private final ConcurrentMap<String, ConcurrentNavigableMap<String, NavigableSet<BirdSightDto>>> locationIndex = new ConcurrentHashMap<>();
+    /**
+     * Version of birds, it is increased after change of birds is visible.
+     */
+    private final AtomicLong birdsVersion = new AtomicLong();
+    /**
+     * Version of sightings, it is increased after change of sightings is
+     * visible.
+     */
+    private final AtomicLong sightsVersion = new AtomicLong();
+    /**
+     * Monitors, which serialize adds of sightings and remove of bird with
+     * the same name.
+     */
+    private final Object[] birdLocks = Stream.generate(Object::new).limit(BIRD_LOCK_STRIPES).toArray();
+    /**
+     * Number of stored sightings.
+     */
+    private final AtomicLong sightsCount = new AtomicLong();
+    /**
+     * Number of birds, which have sightings.
+     */
+    private final AtomicLong sightedBirdsCount = new AtomicLong();
+    /**
+     * The last changes of birds in order of versions.
+     */
+    private final Deque<BirdChange> changeLog = new ArrayDeque<>();
+    /**
+     * Version of the newest change, which was dropped from log. Changes since
+     * older versions are not known.
+     */
+    private long droppedVersion = 0;
+    /**
+     * Max number of changes of birds in log.
+     */
+    private int changeLogSize = DEFAULT_CHANGE_LOG_SIZE;
+    /**
+     * Parsed patterns of names in order of access, guarded by itself.
+     */
+    private final Map<String, NamePattern> patternCache = new LinkedHashMap<String, NamePattern>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, NamePattern> eldest) {
+            return size() > PATTERN_CACHE_SIZE;
+        }
+    };
+    /**
+     * Pool of parallel search, null if search is sequential.
+     */
+    private ForkJoinPool queryPool;
+    /**
+     * Min number of sightings, which can be returned, for parallel search.
+     */
+    private int parallelQueryThreshold;
     /**
      * ReadWriteLock that used to synchronize DAO and DAO wrapper.
      */
@@ -41,12 +171,43 @@ public class BirdAndSightDaoImpl implements IBirdsDao {
         this.readWriteLock = readWriteLock;
     }
 
+    /**
+     * Set max number of changes of birds, which are kept in log.
+     *
+     * @param changeLogSize max number of changes, 0 disables log.
+     */
+    public void setChangeLogSize(int changeLogSize) {
+        synchronized (changeLog) {
+            this.changeLogSize = changeLogSize;
+            trimChangeLog();
+        }
+    }
+
+    /**
+     * Enable parallel search of sightings. Search is parallel, if it matches
+     * more than one bird, and both limit of result and estimated number of
+     * sightings of matched birds are greater than threshold.
+     *
+     * @param queryPool pool, which executes segments of search.
+     * @param parallelQueryThreshold min number of sightings for parallel
+     * search, 0 disables parallel search.
+     */
+    public void setParallelQuery(ForkJoinPool queryPool, int parallelQueryThreshold) {
+        this.queryPool = queryPool;
+        this.parallelQueryThreshold = parallelQueryThreshold;
+    }
+
     @Override
     public List<BirdDto> findAllBirds() {
-        return birdsMemoryStore
+        return new ArrayList<>(birdsMemoryStore.values());
+    }
+
+    @Override
+    public List<BirdDto> findAllBirds(String afterName, int limit) {
+        return (afterName == null ? birdsMemoryStore : birdsMemoryStore.tailMap(afterName, false))
                 .values()
                 .stream()
-                .sorted(Comparator.comparing((BirdDto b) -> b.getName()))
+                .limit(limit)
                 .collect(Collectors.toList());
     }
 
@@ -54,6 +215,30 @@ public class BirdAndSightDaoImpl implements IBirdsDao {
     public BirdDto addBird(final BirdDto elementToAdd) throws IllegalArgumentException {
         lock();
         try {
+            return addBirdLocked(elementToAdd);
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public List<String> addBirds(List<BirdDto> elementsToAdd) {
+        List<String> errors = new ArrayList<>(elementsToAdd.size());
+        lock();
+        try {
+            synchronized (changeLog) {
+                for (BirdDto elementToAdd : elementsToAdd) {
+                    errors.add(addItem(this::addBirdLocked, elementToAdd));
+                }
+            }
+        } finally {
+            unlock();
+        }
+        return errors;
+    }
+
+    private BirdDto addBirdLocked(final BirdDto elementToAdd) {
+        synchronized (changeLog) {
             BirdDto bird = birdsMemoryStore.computeIfAbsent(elementToAdd.getName(), (a) -> {
                 elementToAdd.setStored(true);
                 return elementToAdd;
@@ -61,23 +246,30 @@ public class BirdAndSightDaoImpl implements IBirdsDao {
             if (!bird.equals(elementToAdd)) {
                 throw new IllegalArgumentException("try duplicate key bird with name");
             }
-            return elementToAdd;
-        } finally {
-            unlock();
+            logBirdChange(elementToAdd.getName(), elementToAdd);
         }
+        return elementToAdd;
     }
 
     @Override
     public void removeBird(String birdToRemoveName) throws IllegalArgumentException {
         lock();
         try {
-            birdsMemoryStore.compute(birdToRemoveName, (birdName, bird) -> {
-                if (bird == null) {
-                    throw new IllegalArgumentException("Bird with such name not exists.");
+            synchronized (changeLog) {
+                synchronized (birdLock(birdToRemoveName)) {
+                    if (birdsMemoryStore.remove(birdToRemoveName) == null) {
+                        throw new IllegalArgumentException("Bird with such name not exists.");
+                    }
+                    NavigableSet<BirdSightDto> sightings = sightingMemoryStore.remove(birdToRemoveName);
+                    if (sightings != null) {
+                        sightsCount.addAndGet(-sightings.size());
+                        sightedBirdsCount.decrementAndGet();
+                        unindexSightings(birdToRemoveName, sightings);
+                    }
                 }
-                sightingMemoryStore.remove(birdName);
-                return null;
-            });
+                logBirdChange(birdToRemoveName, null);
+            }
+            sightsVersion.incrementAndGet();
         } finally {
             unlock();
         }
@@ -87,55 +279,330 @@ public class BirdAndSightDaoImpl implements IBirdsDao {
     public BirdSightDto addSight(BirdSightDto elementToAdd) throws IllegalArgumentException {
         lock();
         try {
-            BirdDto birdEntry = birdsMemoryStore.computeIfPresent(elementToAdd.getName(), (birdname, bird) -> {
-                if (!sightingMemoryStore.containsKey(birdname)) {
-                    sightingMemoryStore.put(birdname, new HashSet<>());
-                }
-                if (!sightingMemoryStore.get(birdname).add(elementToAdd)) {
-                    throw new IllegalArgumentException("bird sight with such location, date and time already exists");
-                }
-                return bird;
-            });
-            if (birdEntry == null) {
-                throw new IllegalArgumentException("bird not found");
+            return addSightLocked(elementToAdd);
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public List<String> addSights(List<BirdSightDto> elementsToAdd) {
+        List<String> errors = new ArrayList<>(elementsToAdd.size());
+        lock();
+        try {
+            for (BirdSightDto elementToAdd : elementsToAdd) {
+                errors.add(addItem(this::addSightLocked, elementToAdd));
             }
-            return elementToAdd;
         } finally {
             unlock();
         }
+        return errors;
+    }
+
+    private BirdSightDto addSightLocked(BirdSightDto elementToAdd) {
+        String birdName = elementToAdd.getName();
+        synchronized (birdLock(birdName)) {
+            if (!birdsMemoryStore.containsKey(birdName)) {
+                throw new IllegalArgumentException("bird not found");
+            }
+            NavigableSet<BirdSightDto> sightings = sightingMemoryStore.get(birdName);
+            if (sightings == null) {
+                sightings = new ConcurrentSkipListSet<>(SIGHT_ORDER);
+                sightingMemoryStore.put(birdName, sightings);
+                sightedBirdsCount.incrementAndGet();
+            }
+            if (!sightings.add(elementToAdd)) {
+                throw new IllegalArgumentException("bird sight with such location, date and time already exists");
+            }
+            if (elementToAdd.getLocation() != null) {
+                locationIndex.compute(elementToAdd.getLocation(), (location, birdsAtLocation) -> {
+                    if (birdsAtLocation == null) {
+                        birdsAtLocation = new ConcurrentSkipListMap<>();
+                    }
+                    birdsAtLocation.computeIfAbsent(birdName, (name) -> new ConcurrentSkipListSet<>(SIGHT_ORDER)).add(elementToAdd);
+                    return birdsAtLocation;
+                });
+            }
+        }
+        sightsCount.incrementAndGet();
+        sightsVersion.incrementAndGet();
+        return elementToAdd;
+    }
+
+    /**
+     * Get lock of changes of sightings of bird.
+     *
+     * @param birdName name of bird.
+     * @return monitor of stripe of bird.
+     */
+    private Object birdLock(String birdName) {
+        return birdLocks[(birdName.hashCode() & Integer.MAX_VALUE) % birdLocks.length];
+    }
+
+    /**
+     * Remove sightings of removed bird from index of locations.
+     *
+     * @param birdName name of bird.
+     * @param sightings all sightings of bird.
+     */
+    private void unindexSightings(String birdName, NavigableSet<BirdSightDto> sightings) {
+        Set<String> locations = sightings.stream()
+                .map(BirdSightDto::getLocation)
+                .filter(location -> location != null)
+                .collect(Collectors.toSet());
+        for (String location : locations) {
+            locationIndex.computeIfPresent(location, (key, birdsAtLocation) -> {
+                birdsAtLocation.remove(birdName);
+                return birdsAtLocation.isEmpty() ? null : birdsAtLocation;
+            });
+        }
+    }
+
+    /**
+     * Add one item of batch.
+     *
+     * @param adding adding of item under lock.
+     * @param item item to add.
+     * @return error or null, if item was added.
+     */
+    private static <T> String addItem(UnaryOperator<T> adding, T item) {
+        try {
+            adding.apply(item);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
     }
 
     @Override
     public List<BirdSightDto> findSight(BirdSightDto elementToFind) {
-        Pattern pattern = Pattern.compile(elementToFind.getName());
+        return findSight(elementToFind, null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<BirdSightDto> findSight(BirdSightDto elementToFind, BirdSightDto after, int limit) {
+        NamePattern pattern = namePattern(elementToFind.getName());
         final List<BirdSightDto> returnList = new ArrayList<>();
-        sightingMemoryStore.keySet().stream().filter((bsight) -> {
-            Matcher matcher = pattern.matcher(bsight);
-            return matcher.matches();
-        }).forEach((bsight) -> {
-            Set<BirdSightDto> set = sightingMemoryStore.get(bsight);
-            if (set != null) {
-                set
-                        .stream()
-                        .filter((bsightItem) -> {
-                            return bsightItem.getStart() >= elementToFind.getStart() && bsightItem.getStart() <= elementToFind.getEnd();
-                        })
-                        .sorted(Comparator
-                                .comparing((BirdSightDto b) -> b.getName())
-                                .thenComparing(b -> b.getStart()))
-                        .forEach((bsightItem) -> {
-                            returnList.add(bsightItem);
-                        });
-            }
-        });
+        NavigableMap<String, NavigableSet<BirdSightDto>> sightings = sightingMemoryStore;
+        if (elementToFind.getLocation() != null) {
+            sightings = locationIndex.get(elementToFind.getLocation());
+            if (sightings == null) {
+                return returnList;
+            }
+        }
+        NavigableMap<String, NavigableSet<BirdSightDto>> birdsToScan = pattern.candidates(sightings,
+                after == null ? null : after.getName());
+        if (queryPool != null && parallelQueryThreshold > 0 && limit > parallelQueryThreshold) {
+            List<Map.Entry<String, NavigableSet<BirdSightDto>>> matchedBirds = birdsToScan.entrySet().stream()
+                    .filter(birdSightings -> pattern.matches(birdSightings.getKey()))
+                    .collect(Collectors.toList());
+            if (matchedBirds.size() > 1 && estimateSights(matchedBirds.size()) > parallelQueryThreshold) {
+                return findSightParallel(matchedBirds, elementToFind, after, limit);
+            }
+            for (Map.Entry<String, NavigableSet<BirdSightDto>> birdSightings : matchedBirds) {
+                if (returnList.size() >= limit) {
+                    break;
+                }
+                addSightsInRange(returnList, birdSightings, elementToFind, after, limit);
+            }
+            return returnList;
+        }
+        for (Map.Entry<String, NavigableSet<BirdSightDto>> birdSightings : birdsToScan.entrySet()) {
+            if (returnList.size() >= limit) {
+                break;
+            }
+            if (pattern.matches(birdSightings.getKey())) {
+                addSightsInRange(returnList, birdSightings, elementToFind, after, limit);
+            }
+        }
+        return returnList;
+    }
+
+    /**
+     * Add sightings of bird, which are found by query, to result, until it
+     * is full.
+     *
+     * @param returnList result.
+     * @param birdSightings name and all sightings of bird.
+     * @param elementToFind query with range of dates.
+     * @param after the last sighting of previous page or null.
+     * @param limit max size of result.
+     */
+    private static void addSightsInRange(List<BirdSightDto> returnList, Map.Entry<String, NavigableSet<BirdSightDto>> birdSightings,
+            BirdSightDto elementToFind, BirdSightDto after, int limit) {
+        for (BirdSightDto sight : sightsInRange(birdSightings.getKey(), birdSightings.getValue(), elementToFind, after)) {
+            if (returnList.size() >= limit) {
+                break;
+            }
+            returnList.add(sight);
+        }
+    }
+
+    /**
+     * Estimate number of sightings of birds by average number of sightings
+     * of bird.
+     *
+     * @param birdCount number of birds.
+     * @return estimated number of sightings.
+     */
+    private long estimateSights(int birdCount) {
+        return birdCount * sightsCount.get() / Math.max(1, sightedBirdsCount.get());
+    }
+
+    /**
+     * Search sightings of birds in parallel segments.
+     *
+     * @param birds sightings of matched birds sorted by name.
+     * @param elementToFind query with range of dates.
+     * @param after the last sighting of previous page or null.
+     * @param limit max number of sightings.
+     * @return sightings sorted by name, date and location.
+     */
+    private List<BirdSightDto> findSightParallel(List<Map.Entry<String, NavigableSet<BirdSightDto>>> birds,
+            BirdSightDto elementToFind, BirdSightDto after, int limit) {
+        int segmentCount = Math.min(birds.size(), queryPool.getParallelism() * SEGMENTS_PER_THREAD);
+        FindSightSegments search = new FindSightSegments(birds, elementToFind, after, limit, segmentCount);
+        queryPool.invoke(search);
+        List<BirdSightDto> returnList = new ArrayList<>();
+        for (List<BirdSightDto> segment : search.results) {
+            if (returnList.size() + segment.size() >= limit) {
+                returnList.addAll(segment.subList(0, limit - returnList.size()));
+                break;
+            }
+            returnList.addAll(segment);
+        }
         return returnList;
     }
 
+    /**
+     * Get parsed pattern of names from cache, or parse it.
+     *
+     * @param regex regular expression of names.
+     * @return parsed pattern.
+     * @throws java.util.regex.PatternSyntaxException if expression is
+     * invalid.
+     */
+    private NamePattern namePattern(String regex) {
+        synchronized (patternCache) {
+            NamePattern pattern = patternCache.get(regex);
+            if (pattern != null) {
+                return pattern;
+            }
+        }
+        NamePattern pattern = NamePattern.parse(regex);
+        synchronized (patternCache) {
+            patternCache.put(regex, pattern);
+        }
+        return pattern;
+    }
+
+    /**
+     * View of sightings of bird, which started in range of dates of query and
+     * are after cursor.
+     *
+     * @param birdName name of bird.
+     * @param sightings all sightings of bird.
+     * @param elementToFind query with range of dates.
+     * @param after the last sighting of previous page or null.
+     * @return sightings sorted by date and location.
+     */
+    private static NavigableSet<BirdSightDto> sightsInRange(String birdName, NavigableSet<BirdSightDto> sightings,
+            BirdSightDto elementToFind, BirdSightDto after) {
+        if (elementToFind.getStart() > elementToFind.getEnd()) {
+            return Collections.emptyNavigableSet();
+        }
+        //sighting without location is the first one of its date.
+        BirdSightDto from = new BirdSightDto(birdName, null, elementToFind.getStart());
+        boolean fromInclusive = true;
+        if (after != null && after.getName().equals(birdName) && SIGHT_ORDER.compare(after, from) >= 0) {
+            from = after;
+            fromInclusive = false;
+        }
+        if (elementToFind.getEnd() == Long.MAX_VALUE) {
+            return sightings.tailSet(from, fromInclusive);
+        }
+        BirdSightDto to = new BirdSightDto(birdName, null, elementToFind.getEnd() + 1);
+        if (SIGHT_ORDER.compare(from, to) >= 0) {
+            return Collections.emptyNavigableSet();
+        }
+        return sightings.subSet(from, fromInclusive, to, false);
+    }
+
     @Override
     public Set<BirdSightDto> findSightings(String birdName) {
         return sightingMemoryStore.get(birdName);
     }
 
+    /**
+     * Only changes are read under monitor of log. All birds are read after
+     * version, so they can contain changes of newer versions too, which are
+     * returned again with the next changes.
+     */
+    @Override
+    public BirdChanges findBirdChanges(long version) {
+        TreeMap<String, BirdDto> changes = new TreeMap<>();
+        long currentVersion;
+        synchronized (changeLog) {
+            currentVersion = birdsVersion.get();
+            if (version < droppedVersion || version > currentVersion) {
+                changes = null;
+            } else {
+                //the newest change of every bird wins.
+                Iterator<BirdChange> newestFirst = changeLog.descendingIterator();
+                while (newestFirst.hasNext()) {
+                    BirdChange change = newestFirst.next();
+                    if (change.version <= version) {
+                        break;
+                    }
+                    if (!changes.containsKey(change.name)) {
+                        changes.put(change.name, change.bird);
+                    }
+                }
+            }
+        }
+        if (changes == null) {
+            return new BirdChanges(currentVersion, findAllBirds(), null);
+        }
+        List<BirdDto> addedBirds = new ArrayList<>();
+        List<String> removedNames = new ArrayList<>();
+        for (Map.Entry<String, BirdDto> change : changes.entrySet()) {
+            if (change.getValue() == null) {
+                removedNames.add(change.getKey());
+            } else {
+                addedBirds.add(change.getValue());
+            }
+        }
+        return new BirdChanges(currentVersion, addedBirds, removedNames);
+    }
+
+    /**
+     * Increase version of birds and write change to log. Must be called under
+     * monitor of log after change of map.
+     *
+     * @param name name of bird.
+     * @param bird added bird or null, if bird was removed.
+     */
+    private void logBirdChange(String name, BirdDto bird) {
+        changeLog.addLast(new BirdChange(birdsVersion.incrementAndGet(), name, bird));
+        trimChangeLog();
+    }
+
+    private void trimChangeLog() {
+        while (changeLog.size() > changeLogSize) {
+            droppedVersion = changeLog.removeFirst().version;
+        }
+    }
+
+    @Override
+    public long getBirdsVersion() {
+        return birdsVersion.get();
+    }
+
+    @Override
+    public long getSightsVersion() {
+        return sightsVersion.get();
+    }
+
     private void lock() {
         if (readWriteLock != null) {
             readWriteLock.readLock().lock();
@@ -147,4 +614,106 @@ public class BirdAndSightDaoImpl implements IBirdsDao {
             readWriteLock.readLock().unlock();
         }
     }
+
+    /**
+     * Parallel search of sightings in segments of birds. Segments are split in
+     * halves, until one segment is left, which is searched in the current
+     * thread. Segment stops, when earlier segments have found enough
+     * sightings, because its sightings are not in result then.
+     */
+    private static class FindSightSegments extends RecursiveAction {
+
+        /**
+         * Sightings of matched birds sorted by name.
+         */
+        private final List<Map.Entry<String, NavigableSet<BirdSightDto>>> birds;
+        private final BirdSightDto elementToFind;
+        private final BirdSightDto after;
+        private final int limit;
+        /**
+         * Results of all segments in order of segments, shared by subtasks.
+         */
+        private final List<BirdSightDto>[] results;
+        /**
+         * Number of sightings, which every segment has found so far, shared by
+         * subtasks.
+         */
+        private final AtomicIntegerArray found;
+        /**
+         * Range of segments of this task.
+         */
+        private final int fromSegment;
+        private final int toSegment;
+
+        @SuppressWarnings("unchecked")
+        private FindSightSegments(List<Map.Entry<String, NavigableSet<BirdSightDto>>> birds,
+                BirdSightDto elementToFind, BirdSightDto after, int limit, int segmentCount) {
+            this(birds, elementToFind, after, limit, new List[segmentCount], new AtomicIntegerArray(segmentCount), 0, segmentCount);
+        }
+
+        private FindSightSegments(List<Map.Entry<String, NavigableSet<BirdSightDto>>> birds,
+                BirdSightDto elementToFind, BirdSightDto after, int limit, List<BirdSightDto>[] results,
+                AtomicIntegerArray found, int fromSegment, int toSegment) {
+            this.birds = birds;
+            this.elementToFind = elementToFind;
+            this.after = after;
+            this.limit = limit;
+            this.results = results;
+            this.found = found;
+            this.fromSegment = fromSegment;
+            this.toSegment = toSegment;
+        }
+
+        @Override
+        protected void compute() {
+            if (toSegment - fromSegment > 1) {
+                int middle = (fromSegment + toSegment) >>> 1;
+                invokeAll(new FindSightSegments(birds, elementToFind, after, limit, results, found, fromSegment, middle),
+                        new FindSightSegments(birds, elementToFind, after, limit, results, found, middle, toSegment));
+                return;
+            }
+            List<BirdSightDto> segment = new ArrayList<>();
+            int toBird = (int) ((long) birds.size() * toSegment / results.length);
+            for (int i = (int) ((long) birds.size() * fromSegment / results.length); i < toBird; i++) {
+                if (segment.size() >= limit || isFoundBefore()) {
+                    break;
+                }
+                addSightsInRange(segment, birds.get(i), elementToFind, after, limit);
+                found.set(fromSegment, segment.size());
+            }
+            results[fromSegment] = segment;
+        }
+
+        /**
+         * Check, that earlier segments have found the whole result.
+         *
+         * @return true, if sightings of this segment are not needed.
+         */
+        private boolean isFoundBefore() {
+            long foundBefore = 0;
+            for (int i = 0; i < fromSegment; i++) {
+                foundBefore += found.get(i);
+            }
+            return foundBefore >= limit;
+        }
+    }
+
+    /**
+     * Change of bird in log.
+     */
+    private static class BirdChange {
+
+        private final long version;
+        private final String name;
+        /**
+         * Added bird, null if bird was removed.
+         */
+        private final BirdDto bird;
+
+        private BirdChange(long version, String name, BirdDto bird) {
+            this.version = version;
+            this.name = name;
+            this.bird = bird;
+        }
+    }
 }
@@ -0,0 +1,42 @@
+package com.dataart.edu.server.dao;
+
+import com.dataart.edu.message.dto.BirdDto;
+import java.util.List;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Changes of birds since some version: birds, which were added, and names of
+ * birds, which were removed, or all birds, if changes since that version are
+ * not known.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ * @see IBirdsDao#findBirdChanges(long)
+ */
+@Getter
+@RequiredArgsConstructor
+public class BirdChanges {
+
+    /**
+     * Version of birds, to which changes lead.
+     */
+    private final long version;
+    /**
+     * Added birds sorted by name, or all birds.
+     */
+    private final List<BirdDto> birds;
+    /**
+     * Names of removed birds sorted by name, null if birds contain all birds.
+     */
+    private final List<String> removedNames;
+
+    /**
+     * Are all birds returned instead of changes.
+     *
+     * @return true, if birds contain all birds.
+     */
+    public boolean isFull() {
+        return removedNames == null;
+    }
+}
@@ -23,6 +23,18 @@ public interface IBirdsDao {
      */
     public List<BirdDto> findAllBirds();
 
+    /**
+     * Get page of birds, sorted by bird name. Page starts right after bird
+     * with name afterName, birds before it are not scanned.
+     *
+     * @param afterName name of the last bird of previous page, or null for the
+     * first page.
+     * @param limit max number of birds in page.
+     * @return List of BirdDto
+     * @see BirdDto
+     */
+    public List<BirdDto> findAllBirds(String afterName, int limit);
+
     /**
      * Add new bird.
      *
@@ -58,18 +70,85 @@ public interface IBirdsDao {
      *
      * @param elementToFind find sightings which name are match as Regular
      * Expression to elementToFind.name and date are between elementToFind.start
-     * and elementToFind.end
+     * and elementToFind.end. If elementToFind.location is not null, only
+     * sightings at this location are found.
      * @return List of BirdSightDto
      * @see BirdSightDto
      */
     public List<BirdSightDto> findSight(BirdSightDto elementToFind);
 
+    /**
+     * Find page of sightings. Sightings are sorted by name, date and location,
+     * page starts right after sighting after, birds with smaller names are not
+     * scanned.
+     *
+     * @param elementToFind conditions of search, the same as for
+     * {@link #findSight(BirdSightDto)}.
+     * @param after the last sighting of previous page, or null for the first
+     * page.
+     * @param limit max number of sightings in page.
+     * @return List of BirdSightDto
+     * @see BirdSightDto
+     */
+    public List<BirdSightDto> findSight(BirdSightDto elementToFind, BirdSightDto after, int limit);
+
     /**
      * Find all sightings for bird.
      *
      * @param birdName name of bird.
-     * @return Set of BirdSightDto
+     * @return Set of BirdSightDto sorted by date and location, or null, if
+     * bird has no sightings.
      * @see BirdSightDto
      */
     public Set<BirdSightDto> findSightings(String birdName);
+
+    /**
+     * Add birds at once: lock of DAO is acquired once for all birds. Birds,
+     * which can not be added, do not prevent adding of other birds.
+     *
+     * @param elementsToAdd birds to add.
+     * @return errors in order of birds, null for birds, which were added.
+     */
+    public List<String> addBirds(List<BirdDto> elementsToAdd);
+
+    /**
+     * Add sightings at once: lock of DAO is acquired once for all sightings.
+     * Sightings, which can not be added, do not prevent adding of other
+     * sightings.
+     *
+     * @param elementsToAdd sightings to add.
+     * @return errors in order of sightings, null for sightings, which were
+     * added.
+     */
+    public List<String> addSights(List<BirdSightDto> elementsToAdd);
+
+    /**
+     * Find changes of birds since version. Changes of the last birds are kept
+     * in bounded log, if version is older then log, or is unknown, all birds
+     * are returned.
+     *
+     * @param version version of birds, which is known to client, negative if
+     * client does not know birds.
+     * @return added and removed birds, or all birds, with version, to which
+     * they lead.
+     */
+    public BirdChanges findBirdChanges(long version);
+
+    /**
+     * Get version of birds, which is increased on every change of list of
+     * birds. If version is not changed, result of {@link #findAllBirds()} is
+     * the same.
+     *
+     * @return version of birds.
+     */
+    public long getBirdsVersion();
+
+    /**
+     * Get version of sightings, which is increased on every change of
+     * sightings. If version is not changed, result of
+     * {@link #findSight(BirdSightDto)} is the same.
+     *
+     * @return version of sightings.
+     */
+    public long getSightsVersion();
 }
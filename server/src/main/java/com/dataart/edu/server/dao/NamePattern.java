@@ -0,0 +1,145 @@
+package com.dataart.edu.server.dao;
+
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.regex.Pattern;
+import lombok.Getter;
+
+/**
+ * Regular expression of bird names with its literal prefix, which is used to
+ * find names in sorted map without matching of every name.
+ * <p>
+ * Expression without metacharacters is literal name: it is found by lookup
+ * and is not compiled at all. Expression, which starts with literal
+ * characters, can match only names, which start with them, so only range of
+ * map with such names is checked. Prefix is not used, if expression
+ * contains alternation.
+ *
+ * @author alitvinov
+ * @version 1.0.0
+ * @see BirdAndSightDaoImpl
+ */
+final class NamePattern {
+
+    /**
+     * Characters, which have special meaning outside of character class.
+     */
+    private final static String METACHARACTERS = "\\^$.|?*+()[]{}";
+    /**
+     * Metacharacters, which make previous character optional or repeated.
+     */
+    private final static String QUANTIFIERS = "?*+{";
+
+    /**
+     * Compiled expression, null if expression is literal.
+     */
+    private final Pattern pattern;
+    /**
+     * Name, which is matched by literal expression, otherwise null.
+     */
+    @Getter
+    private final String literal;
+    /**
+     * Literal prefix of all matched names, can be empty.
+     */
+    @Getter
+    private final String prefix;
+    /**
+     * The least string, which is greater then all strings with prefix, null
+     * if there is no such string.
+     */
+    private final String prefixEnd;
+
+    private NamePattern(Pattern pattern, String literal, String prefix) {
+        this.pattern = pattern;
+        this.literal = literal;
+        this.prefix = prefix;
+        this.prefixEnd = prefixEnd(prefix);
+    }
+
+    /**
+     * Parse regular expression of names.
+     *
+     * @param regex regular expression.
+     * @return parsed expression.
+     * @throws java.util.regex.PatternSyntaxException if expression is
+     * invalid.
+     */
+    static NamePattern parse(String regex) {
+        if (regex.indexOf('|') >= 0) {
+            return new NamePattern(Pattern.compile(regex), null, "");
+        }
+        StringBuilder prefix = new StringBuilder();
+        int lastCharStart = 0;
+        int i = 0;
+        while (i < regex.length()) {
+            int c = regex.codePointAt(i);
+            if (QUANTIFIERS.indexOf(c) >= 0) {
+                prefix.setLength(lastCharStart);
+                break;
+            }
+            if (c == '\\' && i + 1 < regex.length() && !Character.isLetterOrDigit(regex.codePointAt(i + 1))) {
+                i++;
+                c = regex.codePointAt(i);
+            } else if (METACHARACTERS.indexOf(c) >= 0) {
+                break;
+            }
+            lastCharStart = prefix.length();
+            prefix.appendCodePoint(c);
+            i += Character.charCount(c);
+        }
+        if (i == regex.length()) {
+            return new NamePattern(null, prefix.toString(), prefix.toString());
+        }
+        return new NamePattern(Pattern.compile(regex), null, prefix.toString());
+    }
+
+    /**
+     * Check, that name is matched by expression.
+     *
+     * @param name name of bird.
+     * @return true, if whole name is matched.
+     */
+    boolean matches(String name) {
+        return pattern == null ? literal.equals(name) : pattern.matcher(name).matches();
+    }
+
+    /**
+     * Get range of map, which contains all names, which can be matched by
+     * expression.
+     *
+     * @param <V> type of values.
+     * @param map map sorted by natural order of names.
+     * @param fromName the least name to return, null if all names are
+     * returned.
+     * @return view of map.
+     */
+    <V> NavigableMap<String, V> candidates(NavigableMap<String, V> map, String fromName) {
+        String from = fromName != null && fromName.compareTo(prefix) > 0 ? fromName : prefix;
+        if (literal != null) {
+            return from.compareTo(literal) > 0 ? Collections.emptyNavigableMap() : map.subMap(literal, true, literal, true);
+        }
+        if (prefixEnd == null) {
+            return map.tailMap(from, true);
+        }
+        return from.compareTo(prefixEnd) >= 0 ? Collections.emptyNavigableMap() : map.subMap(from, true, prefixEnd, false);
+    }
+
+    /**
+     * Get the least string, which is greater then all strings with prefix:
+     * prefix with the last not maximal character increased.
+     *
+     * @param prefix prefix.
+     * @return string or null, if prefix is empty or contains only maximal
+     * characters.
+     */
+    private static String prefixEnd(String prefix) {
+        for (int i = prefix.length() - 1; i >= 0; i--) {
+            char c = prefix.charAt(i);
+            if (c != Character.MAX_VALUE) {
+                return prefix.substring(0, i) + (char) (c + 1);
+            }
+        }
+        return null;
+    }
+}
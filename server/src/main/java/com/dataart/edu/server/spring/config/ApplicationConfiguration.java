@@ -1,9 +1,16 @@
 package com.dataart.edu.server.spring.config;
 
+import com.dataart.edu.message.codec.MessageCodec;
+import com.dataart.edu.message.codec.MessageCodecs;
+import com.dataart.edu.message.format.util.ByteBufferPool;
+import com.dataart.edu.server.ClientConnection;
 import com.dataart.edu.server.ConfigurationCreator.ServerConfiguration;
+import com.dataart.edu.server.InFlightLimiter;
 import com.dataart.edu.server.NioBasedServer;
+import com.dataart.edu.server.ResponseCache;
 import com.dataart.edu.server.ServerApplication;
 import com.dataart.edu.server.ServerMessageProcessor;
+import com.dataart.edu.server.ServerMetrics;
 import com.dataart.edu.server.SocketChannelsProcessor;
 import com.dataart.edu.server.dao.BirdAndSightDaoImpl;
 import com.dataart.edu.server.dao.BirdsDaoWrapper;
@@ -11,12 +18,15 @@ import com.dataart.edu.server.dao.IBirdsDao;
 import java.io.IOException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableMBeanExport;
+import org.springframework.jmx.support.RegistrationPolicy;
 
 /**
  * Spring configuration of application components.
@@ -25,6 +35,7 @@ import org.springframework.context.annotation.Configuration;
  * @version 1.0.0
  */
 @Configuration
+@EnableMBeanExport(registration = RegistrationPolicy.REPLACE_EXISTING)
 @Slf4j
 public class ApplicationConfiguration {
 
@@ -55,7 +66,21 @@ public class ApplicationConfiguration {
      */
     @Bean
     public IBirdsDao getDao() {
-        return new BirdAndSightDaoImpl();
+        BirdAndSightDaoImpl dao = new BirdAndSightDaoImpl();
+        dao.setChangeLogSize(getConfiguration().getChangeLogSize());
+        dao.setParallelQuery(getQueryPool(), getConfiguration().getParallelQueryThreshold());
+        return dao;
+    }
+
+    /**
+     * Create pool of parallel search of sightings with thread per processor.
+     * Threads are started only by parallel search.
+     *
+     * @return ForkJoinPool
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ForkJoinPool getQueryPool() {
+        return new ForkJoinPool(Runtime.getRuntime().availableProcessors());
     }
 
     /**
@@ -97,6 +122,9 @@ public class ApplicationConfiguration {
     public Consumer<SelectionKey> getIoErrorConsumer() {
         return (key) -> {
             SelectionKey selectionKey = (SelectionKey) key;
+            if (selectionKey.attachment() instanceof ClientConnection) {
+                ((ClientConnection) selectionKey.attachment()).release();
+            }
             selectionKey.attach(null);
             try {
                 log.info("Try to close client connection during IOException.");
@@ -108,6 +136,58 @@ public class ApplicationConfiguration {
         };
     }
 
+    /**
+     * Create pool of buffers, which is shared by reactors and readers of
+     * messages.
+     *
+     * @return ByteBufferPool
+     */
+    @Bean
+    public ByteBufferPool getBufferPool() {
+        ServerConfiguration config = getConfiguration();
+        return new ByteBufferPool(config.isDirectBuffers(), config.getMaxPooledBufferSize(), config.getBuffersPerSizeClass());
+    }
+
+    /**
+     * Create codec of messages, which is selected by configuration.
+     *
+     * @return MessageCodec
+     */
+    @Bean
+    public MessageCodec getMessageCodec() {
+        return MessageCodecs.byName(getConfiguration().getCodec());
+    }
+
+    /**
+     * Create limiter of requests in processing.
+     *
+     * @return InFlightLimiter
+     */
+    @Bean
+    public InFlightLimiter getInFlightLimiter() {
+        return new InFlightLimiter();
+    }
+
+    /**
+     * Create cache of encoded responses, which is bounded by configuration.
+     *
+     * @return ResponseCache
+     */
+    @Bean
+    public ResponseCache getResponseCache() {
+        return new ResponseCache(getConfiguration().getResponseCacheBytes());
+    }
+
+    /**
+     * Create metrics of server, which are exposed through JMX.
+     *
+     * @return ServerMetrics
+     */
+    @Bean
+    public ServerMetrics getServerMetrics() {
+        return new ServerMetrics();
+    }
+
     /**
      * Get ServerConfiguration.
      *
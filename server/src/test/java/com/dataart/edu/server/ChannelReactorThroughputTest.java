@@ -0,0 +1,98 @@
+package com.dataart.edu.server;
+
+import com.dataart.edu.client.Client;
+import com.dataart.edu.message.dto.request.BaseClientRequestDto;
+import com.dataart.edu.message.dto.request.ClientAction;
+import com.dataart.edu.message.dto.response.ServerResponseDto;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Integration benchmark, which measures connection and request throughput of
+ * server with different number of io reactor threads.
+ *
+ * @author alitvinov
+ */
+public class ChannelReactorThroughputTest {
+
+    private static final int BASE_TEST_PORT = 9900;
+
+    private static final int[] IO_THREADS_TO_CHECK = {1, 2, 4};
+
+    private static final int NUMBER_OF_TEST_CLIENT = 16;
+
+    private static final int REQUESTS_PER_CLIENT = 50;
+
+    /**
+     * Run load against server and return {connections per second, requests
+     * per second}.
+     */
+    private double[] measureThroughput(int port) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_TEST_CLIENT);
+        try {
+            List<Client> clients = new ArrayList<>();
+            List<Callable<Client>> connectTasks = new ArrayList<>();
+            for (int i = 0; i < NUMBER_OF_TEST_CLIENT; i++) {
+                connectTasks.add(() -> {
+                    Client client = new Client(port, ServerTestHarness.TEST_HOST);
+                    client.connectToServer();
+                    return client;
+                });
+            }
+            long connectStart = System.nanoTime();
+            for (Future<Client> connected : executor.invokeAll(connectTasks)) {
+                clients.add(connected.get());
+            }
+            long connectNanos = System.nanoTime() - connectStart;
+
+            List<Callable<Integer>> requestTasks = new ArrayList<>();
+            for (Client client : clients) {
+                requestTasks.add(() -> {
+                    int successful = 0;
+                    for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                        ServerResponseDto response = client.execute(new BaseClientRequestDto(ClientAction.LIST));
+                        if (response != null && response.isSuccess()) {
+                            successful++;
+                        }
+                    }
+                    return successful;
+                });
+            }
+            long requestStart = System.nanoTime();
+            int successful = 0;
+            for (Future<Integer> result : executor.invokeAll(requestTasks)) {
+                successful += result.get();
+            }
+            long requestNanos = System.nanoTime() - requestStart;
+            for (Client client : clients) {
+                client.close();
+            }
+            Assert.assertEquals(NUMBER_OF_TEST_CLIENT * REQUESTS_PER_CLIENT, successful);
+            return new double[]{
+                NUMBER_OF_TEST_CLIENT / (connectNanos / 1e9),
+                successful / (requestNanos / 1e9)};
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testThroughputWithDifferentIoThreads() throws Exception {
+        StringBuilder report = new StringBuilder("io_threads | connections/s | requests/s\n");
+        for (int ioThreads : IO_THREADS_TO_CHECK) {
+            int port = BASE_TEST_PORT + ioThreads;
+            Thread serverThread = ServerTestHarness.startServer(port, "reactordata" + ioThreads,
+                    "-io_threads", String.valueOf(ioThreads), "-proc_count", "4");
+            double[] throughput = measureThroughput(port);
+            ServerTestHarness.stopServer(port, serverThread);
+            report.append(String.format("%10d | %13.0f | %10.0f%n", ioThreads, throughput[0], throughput[1]));
+        }
+        System.out.println(report);
+    }
+}
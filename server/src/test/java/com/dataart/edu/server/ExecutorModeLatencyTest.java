@@ -0,0 +1,94 @@
+package com.dataart.edu.server;
+
+import com.dataart.edu.client.Client;
+import com.dataart.edu.message.dto.request.AddBirdRequestDto;
+import com.dataart.edu.message.dto.request.BaseClientRequestDto;
+import com.dataart.edu.message.dto.request.ClientAction;
+import com.dataart.edu.message.dto.response.ServerResponseDto;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Integration load test, which compares p50/p99 latency of requests for
+ * different executor modes.
+ *
+ * @author alitvinov
+ */
+public class ExecutorModeLatencyTest {
+
+    private static final int BASE_TEST_PORT = 9910;
+
+    private static final String[] EXECUTOR_MODES_TO_CHECK = {"fixed", "forkjoin", "virtual"};
+
+    private static final int NUMBER_OF_TEST_CLIENT = 16;
+
+    private static final int REQUESTS_PER_CLIENT = 50;
+
+    /**
+     * Run mixed load of ADD and LIST requests against server and return
+     * latencies of all requests in nanoseconds, sorted.
+     */
+    private long[] measureLatencies(int port) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_TEST_CLIENT);
+        try {
+            List<Callable<long[]>> requestTasks = new ArrayList<>();
+            for (int clientNumber = 0; clientNumber < NUMBER_OF_TEST_CLIENT; clientNumber++) {
+                final int clientId = clientNumber;
+                requestTasks.add(() -> {
+                    long[] latencies = new long[REQUESTS_PER_CLIENT];
+                    try (Client client = new Client(port, ServerTestHarness.TEST_HOST)) {
+                        client.connectToServer();
+                        for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                            BaseClientRequestDto request = i % 2 == 0
+                                    ? new AddBirdRequestDto(ClientAction.ADD, "bird" + clientId + "_" + i, "color", 1.0, 2.0)
+                                    : new BaseClientRequestDto(ClientAction.LIST);
+                            long start = System.nanoTime();
+                            ServerResponseDto response = client.execute(request);
+                            latencies[i] = System.nanoTime() - start;
+                            Assert.assertTrue(response.isSuccess());
+                        }
+                    }
+                    return latencies;
+                });
+            }
+            long[] allLatencies = new long[NUMBER_OF_TEST_CLIENT * REQUESTS_PER_CLIENT];
+            int index = 0;
+            for (Future<long[]> result : executor.invokeAll(requestTasks)) {
+                for (long latency : result.get()) {
+                    allLatencies[index++] = latency;
+                }
+            }
+            Arrays.sort(allLatencies);
+            return allLatencies;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private double percentileMillis(long[] sortedLatencies, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(index, 0)] / 1e6;
+    }
+
+    @Test
+    public void testLatencyWithDifferentExecutors() throws Exception {
+        StringBuilder report = new StringBuilder("executor | p50, ms | p99, ms\n");
+        for (int i = 0; i < EXECUTOR_MODES_TO_CHECK.length; i++) {
+            int port = BASE_TEST_PORT + i;
+            Thread serverThread = ServerTestHarness.startServer(port, "executordata" + EXECUTOR_MODES_TO_CHECK[i],
+                    "-executor", EXECUTOR_MODES_TO_CHECK[i], "-proc_count", "4");
+            long[] latencies = measureLatencies(port);
+            ServerTestHarness.stopServer(port, serverThread);
+            report.append(String.format("%8s | %7.3f | %7.3f%n", EXECUTOR_MODES_TO_CHECK[i],
+                    percentileMillis(latencies, 50), percentileMillis(latencies, 99)));
+        }
+        System.out.println(report);
+    }
+}
@@ -0,0 +1,89 @@
+package com.dataart.edu.server;
+
+import com.dataart.edu.message.codec.KryoMessageCodec;
+import com.dataart.edu.message.dto.BirdDto;
+import com.dataart.edu.message.dto.request.ClientAction;
+import com.dataart.edu.message.dto.response.ServerResponseDto;
+import com.dataart.edu.message.format.MessageFrame;
+import com.dataart.edu.message.format.util.ByteBufferPool;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Check caching of encoded responses.
+ *
+ * @see ResponseCache
+ * @author alitvinov
+ */
+public class ResponseCacheTest {
+
+    private final ClientConnection connection = new ClientConnection(null, null, new ByteBufferPool(false, 64 * 1024, 4), new KryoMessageCodec());
+
+    /**
+     * Cached response must be returned with flags and ID of the current
+     * request only while version of data is the same.
+     */
+    @Test
+    public void testHitAndInvalidation() {
+        ResponseCache cache = new ResponseCache(1024 * 1024);
+        ServerResponseDto answer = answer("bird");
+        PendingResponse first = response(true, 1, (byte) 0);
+        Assert.assertNull(cache.get(ClientAction.LIST, 1, first));
+        ByteBuffer frame = first.serialize(answer);
+        cache.put(ClientAction.LIST, 1, first, frame);
+        Assert.assertEquals(0, frame.position());
+
+        PendingResponse second = response(true, 7, MessageFrame.FLAG_OUT_OF_ORDER);
+        Assert.assertEquals(second.serialize(answer), cache.get(ClientAction.LIST, 1, second));
+        //frame without header is cached separately.
+        Assert.assertNull(cache.get(ClientAction.LIST, 1, response(false, 0, (byte) 0)));
+        //the same query on changed data is not answered from cache.
+        Assert.assertNull(cache.get(ClientAction.LIST, 2, second));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(3, cache.getMisses());
+
+        //response to older version does not replace newer one.
+        cache.put(ClientAction.LIST, 2, first, first.serialize(answer("new bird")));
+        cache.put(ClientAction.LIST, 1, first, frame);
+        Assert.assertEquals(second.serialize(answer("new bird")), cache.get(ClientAction.LIST, 2, second));
+        Assert.assertEquals(1, cache.getEntries());
+    }
+
+    /**
+     * The least recently used responses must be evicted, when size of cache
+     * is exceeded.
+     */
+    @Test
+    public void testEviction() {
+        PendingResponse response = response(true, 1, (byte) 0);
+        int frameSize = response.serialize(answer("bird0")).remaining();
+        ResponseCache cache = new ResponseCache(2 * frameSize);
+        cache.put("query0", 1, response, response.serialize(answer("bird0")));
+        cache.put("query1", 1, response, response.serialize(answer("bird1")));
+        Assert.assertNotNull(cache.get("query0", 1, response));
+        cache.put("query2", 1, response, response.serialize(answer("bird2")));
+        Assert.assertEquals(2, cache.getEntries());
+        Assert.assertEquals(2 * frameSize, cache.getUsedBytes());
+        Assert.assertNotNull(cache.get("query0", 1, response));
+        Assert.assertNull(cache.get("query1", 1, response));
+        Assert.assertNotNull(cache.get("query2", 1, response));
+
+        ResponseCache disabled = new ResponseCache(0);
+        disabled.put("query0", 1, response, response.serialize(answer("bird0")));
+        Assert.assertNull(disabled.get("query0", 1, response));
+        Assert.assertEquals(0, disabled.getEntries());
+        Assert.assertEquals(0, disabled.getMisses());
+    }
+
+    private PendingResponse response(boolean headerPresent, int requestId, byte flags) {
+        return new PendingResponse(connection, new MessageFrame(headerPresent, flags, requestId, null));
+    }
+
+    private static ServerResponseDto answer(String birdName) {
+        ServerResponseDto answer = new ServerResponseDto();
+        answer.setResultData(Collections.singletonList(new BirdDto(birdName, "blue", 0.04, 0.17)));
+        return answer;
+    }
+}
@@ -5,24 +5,41 @@
  */
 package com.dataart.edu.server;
 
+import com.dataart.edu.client.BatchSender;
 import com.dataart.edu.client.Client;
+import com.dataart.edu.message.codec.BinaryMessageCodec;
+import com.dataart.edu.message.codec.MessageCodec;
+import com.dataart.edu.message.codec.MessageCodecs;
+import com.dataart.edu.message.dto.BirdDto;
+import com.dataart.edu.message.dto.BirdSightDto;
 import com.dataart.edu.message.dto.request.AddBirdRequestDto;
 import com.dataart.edu.message.dto.request.ClientAction;
 import com.dataart.edu.message.dto.request.BaseClientRequestDto;
+import com.dataart.edu.message.dto.request.BatchRequestDto;
+import com.dataart.edu.message.dto.request.PagedListRequestDto;
+import com.dataart.edu.message.dto.request.SightingRequestDto;
+import com.dataart.edu.message.dto.request.SyncListRequestDto;
 import com.dataart.edu.message.dto.response.ServerResponseDto;
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Assert;
@@ -40,6 +57,32 @@ public class ServerApplicationTest {
 
     private static final String TEST_PORT = "9999";
 
+    private static final String PIPELINED_TEST_PORT = "9998";
+
+    private static final int NUMBER_OF_PIPELINED_REQUESTS = 200;
+
+    private static final String BACKPRESSURE_TEST_PORT = "9997";
+
+    private static final String INLINE_TEST_PORT = "9996";
+
+    private static final String STREAM_TEST_PORT = "9995";
+
+    private static final int NUMBER_OF_STREAMED_BIRDS = 25;
+
+    private static final int STREAM_CHUNK_SIZE = 10;
+
+    private static final String PAGED_TEST_PORT = "9994";
+
+    private static final String SYNC_TEST_PORT = "9993";
+
+    private static final String BATCH_TEST_PORT = "9992";
+
+    private static final String BINARY_CODEC_TEST_PORT = "9991";
+
+    private static final String SIGHTING_VIEW_TEST_PORT = "9990";
+
+    private static final String LOCATION_TEST_PORT = "9989";
+
     private final static int NUMBER_OF_TEST_CLIENT = 10;
 
     private static final String TEST_HOST = "localhost";
@@ -78,10 +121,15 @@ public class ServerApplicationTest {
     }
 
     private void startServerInSeparateThread() {
+        startServerInSeparateThread(TEST_PORT);
+    }
+
+    private void startServerInSeparateThread(String port, String... extraArgs) {
         Thread serverThread = new Thread(() -> {
             try {
-                String[] args = new String[]{"-port", TEST_PORT, "-data", getTestDataDirectory()};
-                ServerApplication.main(args);
+                List<String> args = new ArrayList<>(Arrays.asList("-port", port, "-data", getTestDataDirectory()));
+                args.addAll(Arrays.asList(extraArgs));
+                ServerApplication.main(args.toArray(new String[0]));
             } catch (URISyntaxException e) {
                 throw new RuntimeException(e);
             }
@@ -94,8 +142,32 @@ public class ServerApplicationTest {
         return req;
     }
 
+    private List<Object> readAllPages(Client client) throws IOException {
+        List<Object> rows = new ArrayList<>();
+        int pages = 0;
+        byte[] cursor = null;
+        do {
+            ServerResponseDto page = client.execute(new PagedListRequestDto(3, cursor));
+            Assert.assertTrue(page.isSuccess());
+            rows.addAll(page.getResultData());
+            cursor = page.getCursor();
+            pages++;
+        } while (cursor != null);
+        Assert.assertEquals((rows.size() + 2) / 3, pages);
+        return rows;
+    }
+
     private void stopServer() throws IOException {
-        Client client = new Client(Integer.parseInt(TEST_PORT), TEST_HOST);
+        stopServer(TEST_PORT);
+    }
+
+    private void stopServer(String port) throws IOException {
+        stopServer(port, MessageCodecs.defaultCodec());
+    }
+
+    private void stopServer(String port, MessageCodec codec) throws IOException {
+        Client client = new Client(Integer.parseInt(port), TEST_HOST);
+        client.setCodec(codec);
         client.connectToServer();
         client.execute(new BaseClientRequestDto(ClientAction.QUIT));
     }
@@ -130,4 +202,278 @@ public class ServerApplicationTest {
         stopServer();
     }
 
+    @Test
+    public void testPipelinedRequests() throws Exception {
+        startServerInSeparateThread(PIPELINED_TEST_PORT);
+        //wait untill server starts
+        Thread.sleep(3000);
+        try (Client client = new Client(Integer.parseInt(PIPELINED_TEST_PORT), TEST_HOST)) {
+            client.connectToServer();
+            //ordered responses must be received in order of requests
+            List<Integer> completionOrder = Collections.synchronizedList(new ArrayList<>());
+            List<CompletableFuture<ServerResponseDto>> result = new ArrayList<>();
+            for (int i = 0; i < NUMBER_OF_PIPELINED_REQUESTS; i++) {
+                final int requestNumber = i;
+                CompletableFuture<ServerResponseDto> expected = client.submit(getClientRequest(i));
+                expected.thenRun(() -> completionOrder.add(requestNumber));
+                result.add(expected);
+            }
+            for (CompletableFuture<ServerResponseDto> expected : result) {
+                Assert.assertTrue(expected.get(30, TimeUnit.SECONDS).isSuccess());
+            }
+            for (int i = 0; i < NUMBER_OF_PIPELINED_REQUESTS; i++) {
+                Assert.assertEquals(i, completionOrder.get(i).intValue());
+            }
+            //out of order responses must be matched with requests by ID
+            client.setOutOfOrder(true);
+            result.clear();
+            for (int i = 0; i < NUMBER_OF_PIPELINED_REQUESTS; i++) {
+                result.add(client.submit(new BaseClientRequestDto(ClientAction.REMOVE, "test name" + i)));
+            }
+            for (CompletableFuture<ServerResponseDto> expected : result) {
+                Assert.assertTrue(expected.get(30, TimeUnit.SECONDS).isSuccess());
+            }
+            Assert.assertTrue(client.execute(new BaseClientRequestDto(ClientAction.LIST)).getResultData().isEmpty());
+        }
+        stopServer(PIPELINED_TEST_PORT);
+    }
+
+    @Test
+    public void testReadingIsSuspendedOnLimit() throws Exception {
+        startServerInSeparateThread(BACKPRESSURE_TEST_PORT, "-proc_count", "1", "-max_in_flight", "64", "-max_in_flight_per_connection", "8");
+        //wait untill server starts
+        Thread.sleep(3000);
+        try (Client client = new Client(Integer.parseInt(BACKPRESSURE_TEST_PORT), TEST_HOST)) {
+            client.connectToServer();
+            List<CompletableFuture<ServerResponseDto>> result = new ArrayList<>();
+            for (int i = 0; i < NUMBER_OF_PIPELINED_REQUESTS; i++) {
+                result.add(client.submit(getClientRequest(i)));
+            }
+            for (CompletableFuture<ServerResponseDto> expected : result) {
+                ServerResponseDto response = expected.get(30, TimeUnit.SECONDS);
+                //requests over limit of one read can be rejected, but never lost
+                Assert.assertTrue(response.isSuccess() || ServerMessageProcessor.SERVER_OVERLOADED_ERROR.equals(response.getError()));
+            }
+        }
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName metrics = new ObjectName("com.dataart.edu.server:type=ServerMetrics");
+        Assert.assertTrue((Long) mBeanServer.getAttribute(metrics, "Suspensions") > 0);
+        //counter is decreased just after response is sent
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((Integer) mBeanServer.getAttribute(metrics, "InFlightRequests") > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(0, mBeanServer.getAttribute(metrics, "InFlightRequests"));
+        stopServer(BACKPRESSURE_TEST_PORT);
+    }
+
+    @Test
+    public void testInlineActions() throws Exception {
+        startServerInSeparateThread(INLINE_TEST_PORT, "-inline_actions", "LIST,REMOVE");
+        //wait untill server starts
+        Thread.sleep(3000);
+        try (Client client = new Client(Integer.parseInt(INLINE_TEST_PORT), TEST_HOST)) {
+            client.connectToServer();
+            Assert.assertTrue(client.execute(getClientRequest(1)).isSuccess());
+            Assert.assertEquals(1, client.execute(new BaseClientRequestDto(ClientAction.LIST)).getResultData().size());
+            Assert.assertTrue(client.execute(new BaseClientRequestDto(ClientAction.REMOVE, "test name1")).isSuccess());
+            Assert.assertTrue(client.execute(new BaseClientRequestDto(ClientAction.LIST)).getResultData().isEmpty());
+        }
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName metrics = new ObjectName("com.dataart.edu.server:type=ServerMetrics");
+        String[] signature = new String[]{String.class.getName()};
+        Assert.assertEquals(2L, mBeanServer.invoke(metrics, "getActionCount", new Object[]{"LIST"}, signature));
+        Assert.assertEquals(1L, mBeanServer.invoke(metrics, "getActionCount", new Object[]{"ADD"}, signature));
+        String timings = (String) mBeanServer.getAttribute(metrics, "ActionTimings");
+        Assert.assertTrue(timings, timings.contains("LIST: inline=2, pooled=0"));
+        Assert.assertTrue(timings, timings.contains("ADD: inline=0, pooled=1"));
+        stopServer(INLINE_TEST_PORT);
+    }
+
+    @Test
+    public void testStreamedList() throws Exception {
+        startServerInSeparateThread(STREAM_TEST_PORT, "-chunk_size", String.valueOf(STREAM_CHUNK_SIZE), "-compress_threshold", "64");
+        //wait untill server starts
+        Thread.sleep(3000);
+        try (Client client = new Client(Integer.parseInt(STREAM_TEST_PORT), TEST_HOST)) {
+            client.connectToServer();
+            for (int i = 0; i < NUMBER_OF_STREAMED_BIRDS; i++) {
+                Assert.assertTrue(client.execute(getClientRequest(i)).isSuccess());
+            }
+            //chunks of 10 birds are bigger then threshold and are compressed.
+            client.setCompressionAccepted(true);
+            List<Integer> chunkSizes = new ArrayList<>();
+            List<Object> rows = new ArrayList<>();
+            ServerResponseDto last = client.stream(new BaseClientRequestDto(ClientAction.LIST), chunk -> {
+                chunkSizes.add(chunk.getResultData().size());
+                rows.addAll(chunk.getResultData());
+            }).get(10, TimeUnit.SECONDS);
+            Assert.assertTrue(last.isSuccess());
+            Assert.assertEquals(Arrays.asList(10, 10, 5), chunkSizes);
+            Assert.assertEquals(NUMBER_OF_STREAMED_BIRDS, rows.size());
+            //empty result is streamed as one last chunk.
+            chunkSizes.clear();
+            ServerResponseDto empty = client.stream(new SightingRequestDto(ClientAction.LIST_SIGHTS, "test name0", "nowhere", 0, Long.MAX_VALUE),
+                    chunk -> chunkSizes.add(chunk.getResultData().size())).get(10, TimeUnit.SECONDS);
+            Assert.assertTrue(empty.isSuccess());
+            Assert.assertEquals(Collections.singletonList(0), chunkSizes);
+            //error is sent as one last chunk without result.
+            chunkSizes.clear();
+            ServerResponseDto error = client.stream(new BaseClientRequestDto(ClientAction.LIST_SIGHTS, "test name0"),
+                    chunk -> chunkSizes.add(chunk.getResultData() == null ? -1 : chunk.getResultData().size()))
+                    .get(10, TimeUnit.SECONDS);
+            Assert.assertFalse(error.isSuccess());
+            Assert.assertEquals(Collections.singletonList(-1), chunkSizes);
+            //not streamed request on the same connection gets whole result.
+            Assert.assertEquals(NUMBER_OF_STREAMED_BIRDS, client.execute(new BaseClientRequestDto(ClientAction.LIST)).getResultData().size());
+        }
+        stopServer(STREAM_TEST_PORT);
+    }
+
+    @Test
+    public void testPagedList() throws Exception {
+        startServerInSeparateThread(PAGED_TEST_PORT);
+        //wait untill server starts
+        Thread.sleep(3000);
+        try (Client client = new Client(Integer.parseInt(PAGED_TEST_PORT), TEST_HOST)) {
+            client.connectToServer();
+            for (int i = 0; i < 7; i++) {
+                Assert.assertTrue(client.execute(getClientRequest(i)).isSuccess());
+            }
+            Assert.assertEquals(client.execute(new BaseClientRequestDto(ClientAction.LIST)).getResultData(), readAllPages(client));
+            ServerResponseDto invalidCursor = client.execute(new PagedListRequestDto(3, new byte[]{2, 0}));
+            Assert.assertFalse(invalidCursor.isSuccess());
+        }
+        stopServer(PAGED_TEST_PORT);
+    }
+
+    @Test
+    public void testBinaryCodec() throws Exception {
+        startServerInSeparateThread(BINARY_CODEC_TEST_PORT, "-codec", BinaryMessageCodec.NAME);
+        //wait untill server starts
+        Thread.sleep(3000);
+        try (Client client = new Client(Integer.parseInt(BINARY_CODEC_TEST_PORT), TEST_HOST)) {
+            client.setCodec(new BinaryMessageCodec());
+            client.connectToServer();
+            for (int i = 0; i < 7; i++) {
+                Assert.assertTrue(client.execute(getClientRequest(i)).isSuccess());
+            }
+            //cursors are opaque for codec and must be passed as is.
+            Assert.assertEquals(client.execute(new BaseClientRequestDto(ClientAction.LIST)).getResultData(), readAllPages(client));
+            Assert.assertFalse(client.execute(new PagedListRequestDto(3, new byte[]{2, 0})).isSuccess());
+        }
+        stopServer(BINARY_CODEC_TEST_PORT, new BinaryMessageCodec());
+    }
+
+    @Test
+    public void testSightingView() throws Exception {
+        //sightings are read by server through view of request only with binary codec.
+        startServerInSeparateThread(SIGHTING_VIEW_TEST_PORT, "-codec", BinaryMessageCodec.NAME);
+        //wait untill server starts
+        Thread.sleep(3000);
+        try (Client client = new Client(Integer.parseInt(SIGHTING_VIEW_TEST_PORT), TEST_HOST)) {
+            client.setCodec(new BinaryMessageCodec());
+            client.connectToServer();
+            Assert.assertTrue(client.execute(getClientRequest(1)).isSuccess());
+            Assert.assertTrue(client.execute(new SightingRequestDto(ClientAction.ADD_SIGHT, "test name1", "river bank", 1505001600000L)).isSuccess());
+            Assert.assertFalse(client.execute(new SightingRequestDto(ClientAction.ADD_SIGHT, "unknown", "river bank", 1505001600000L)).isSuccess());
+            List<?> sights = client.execute(new SightingRequestDto(ClientAction.LIST_SIGHTS, "test name1", null, 0L, Long.MAX_VALUE)).getResultData();
+            Assert.assertEquals(Collections.singletonList(new BirdSightDto("test name1", "river bank", 1505001600000L)), sights);
+        }
+        stopServer(SIGHTING_VIEW_TEST_PORT, new BinaryMessageCodec());
+    }
+
+    @Test
+    public void testSightingsByLocation() throws Exception {
+        startServerInSeparateThread(LOCATION_TEST_PORT);
+        //wait untill server starts
+        Thread.sleep(3000);
+        try (Client client = new Client(Integer.parseInt(LOCATION_TEST_PORT), TEST_HOST)) {
+            client.connectToServer();
+            for (int i = 1; i <= 2; i++) {
+                Assert.assertTrue(client.execute(getClientRequest(i)).isSuccess());
+                Assert.assertTrue(client.execute(new SightingRequestDto(ClientAction.ADD_SIGHT, "test name" + i, "river bank", 1505001600000L)).isSuccess());
+            }
+            Assert.assertTrue(client.execute(new SightingRequestDto(ClientAction.ADD_SIGHT, "test name2", "lake", 1505001600000L)).isSuccess());
+            Assert.assertEquals(2, client.execute(new SightingRequestDto(ClientAction.LIST_SIGHTS, "test name.*", "river bank", 0L, Long.MAX_VALUE)).getResultData().size());
+            Assert.assertEquals(Collections.singletonList(new BirdSightDto("test name2", "lake", 1505001600000L)),
+                    client.execute(new SightingRequestDto(ClientAction.LIST_SIGHTS, "test name.*", "lake", 0L, Long.MAX_VALUE)).getResultData());
+            Assert.assertTrue(client.execute(new SightingRequestDto(ClientAction.LIST_SIGHTS, "test name.*", "sea", 0L, Long.MAX_VALUE)).getResultData().isEmpty());
+        }
+        stopServer(LOCATION_TEST_PORT);
+    }
+
+    @Test
+    public void testSyncList() throws Exception {
+        startServerInSeparateThread(SYNC_TEST_PORT, "-change_log_size", "100");
+        //wait untill server starts
+        Thread.sleep(3000);
+        try (Client client = new Client(Integer.parseInt(SYNC_TEST_PORT), TEST_HOST)) {
+            client.connectToServer();
+            for (int i = 0; i < 3; i++) {
+                Assert.assertTrue(client.execute(getClientRequest(i)).isSuccess());
+            }
+            //the first request gets all birds.
+            ServerResponseDto full = client.execute(new SyncListRequestDto(null));
+            Assert.assertTrue(full.isSuccess());
+            Assert.assertNull(full.getRemovedNames());
+            Assert.assertEquals(3, full.getResultData().size());
+            Assert.assertNotNull(full.getSyncToken());
+            //the next requests get only changes.
+            Assert.assertTrue(client.execute(getClientRequest(3)).isSuccess());
+            Assert.assertTrue(client.execute(new BaseClientRequestDto(ClientAction.REMOVE, "test name0")).isSuccess());
+            ServerResponseDto delta = client.execute(new SyncListRequestDto(full.getSyncToken()));
+            Assert.assertEquals(1, delta.getResultData().size());
+            Assert.assertEquals(Collections.singletonList("test name0"), delta.getRemovedNames());
+            ServerResponseDto noChanges = client.stream(new SyncListRequestDto(delta.getSyncToken()), chunk -> {
+            }).get(10, TimeUnit.SECONDS);
+            Assert.assertTrue(noChanges.getResultData().isEmpty());
+            Assert.assertTrue(noChanges.getRemovedNames().isEmpty());
+            Assert.assertArrayEquals(delta.getSyncToken(), noChanges.getSyncToken());
+            ServerResponseDto invalidToken = client.execute(new SyncListRequestDto(new byte[]{1}));
+            Assert.assertFalse(invalidToken.isSuccess());
+        }
+        stopServer(SYNC_TEST_PORT);
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        startServerInSeparateThread(BATCH_TEST_PORT);
+        //wait untill server starts
+        Thread.sleep(3000);
+        try (Client client = new Client(Integer.parseInt(BATCH_TEST_PORT), TEST_HOST)) {
+            client.connectToServer();
+            BatchSender<BirdDto> birds = client.batchBirds(2);
+            List<CompletableFuture<Void>> birdResults = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                birdResults.add(birds.add(new BirdDto("test name" + i, "color", 1, 1)));
+            }
+            birds.flush();
+            CompletableFuture.allOf(birdResults.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+            //sighting of unknown bird fails, other sightings of its batch are added.
+            BatchSender<BirdSightDto> sights = client.batchSights(10);
+            List<CompletableFuture<Void>> sightResults = new ArrayList<>();
+            for (int i = 0; i < 25; i++) {
+                String name = i == 12 ? "unknown" : "test name" + i % 3;
+                sightResults.add(sights.add(new BirdSightDto(name, "river bank", 1505001600000L + i)));
+            }
+            sights.flush();
+            for (int i = 0; i < sightResults.size(); i++) {
+                try {
+                    sightResults.get(i).get(10, TimeUnit.SECONDS);
+                    Assert.assertNotEquals(12, i);
+                } catch (ExecutionException e) {
+                    Assert.assertEquals(12, i);
+                    Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+                }
+            }
+            List<?> added = client.execute(new SightingRequestDto(ClientAction.LIST_SIGHTS, "test name.*", null, 0L, Long.MAX_VALUE)).getResultData();
+            Assert.assertEquals(24, added.size());
+            ServerResponseDto invalid = client.execute(new BatchRequestDto(ClientAction.ADD_BATCH, Collections.singletonList(added.get(0))));
+            Assert.assertFalse(invalid.isSuccess());
+            Assert.assertNull(invalid.getItemErrors());
+        }
+        stopServer(BATCH_TEST_PORT);
+    }
+
 }
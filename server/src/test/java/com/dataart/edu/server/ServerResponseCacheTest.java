@@ -0,0 +1,80 @@
+package com.dataart.edu.server;
+
+import com.dataart.edu.client.Client;
+import com.dataart.edu.message.dto.request.AddBirdRequestDto;
+import com.dataart.edu.message.dto.request.BaseClientRequestDto;
+import com.dataart.edu.message.dto.request.ClientAction;
+import com.dataart.edu.message.dto.request.SightingRequestDto;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import javax.management.ObjectName;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Integration test of caching of LIST and LIST_SIGHTS responses by server:
+ * repeated query is answered from cache, until data, which it reads, is
+ * changed. Counters are read from ServerMetrics of the started server.
+ *
+ * @see ResponseCache
+ * @author alitvinov
+ */
+public class ServerResponseCacheTest {
+
+    private static final int BASE_TEST_PORT = 9930;
+
+    /**
+     * Repeated LIST must be answered from cache, LIST after change of birds
+     * must not.
+     */
+    @Test
+    public void testListIsCachedUntilBirdsChange() throws Exception {
+        int port = BASE_TEST_PORT;
+        Thread serverThread = ServerTestHarness.startServer(port, "cachelistdata");
+        try (Client client = new Client(port, ServerTestHarness.TEST_HOST)) {
+            client.connectToServer();
+            Assert.assertTrue(client.execute(new AddBirdRequestDto(ClientAction.ADD, "bird1", "color", 1.0, 2.0)).isSuccess());
+            List<?> birds = client.execute(new BaseClientRequestDto(ClientAction.LIST)).getResultData();
+            Assert.assertEquals(birds, client.execute(new BaseClientRequestDto(ClientAction.LIST)).getResultData());
+            assertCacheCounters(1, 1);
+            Assert.assertTrue(client.execute(new BaseClientRequestDto(ClientAction.REMOVE, "bird1")).isSuccess());
+            Assert.assertTrue(client.execute(new BaseClientRequestDto(ClientAction.LIST)).getResultData().isEmpty());
+            assertCacheCounters(1, 2);
+        } finally {
+            ServerTestHarness.stopServer(port, serverThread);
+        }
+    }
+
+    /**
+     * Repeated LIST_SIGHTS must be answered from cache, LIST_SIGHTS after new
+     * sighting must not.
+     */
+    @Test
+    public void testSightingsAreCachedUntilSightingsChange() throws Exception {
+        int port = BASE_TEST_PORT + 1;
+        Thread serverThread = ServerTestHarness.startServer(port, "cachesightsdata");
+        try (Client client = new Client(port, ServerTestHarness.TEST_HOST)) {
+            client.connectToServer();
+            for (int i = 1; i <= 2; i++) {
+                Assert.assertTrue(client.execute(new AddBirdRequestDto(ClientAction.ADD, "bird" + i, "color", 1.0, 2.0)).isSuccess());
+            }
+            Assert.assertTrue(client.execute(new SightingRequestDto(ClientAction.ADD_SIGHT, "bird1", "river bank", 1505001600000L)).isSuccess());
+            SightingRequestDto listSights = new SightingRequestDto(ClientAction.LIST_SIGHTS, "bird.*", null, 0L, Long.MAX_VALUE);
+            List<?> sights = client.execute(listSights).getResultData();
+            Assert.assertEquals(1, sights.size());
+            Assert.assertEquals(sights, client.execute(listSights).getResultData());
+            assertCacheCounters(1, 1);
+            Assert.assertTrue(client.execute(new SightingRequestDto(ClientAction.ADD_SIGHT, "bird2", "river bank", 1505001600000L)).isSuccess());
+            Assert.assertEquals(2, client.execute(listSights).getResultData().size());
+            assertCacheCounters(1, 2);
+        } finally {
+            ServerTestHarness.stopServer(port, serverThread);
+        }
+    }
+
+    private static void assertCacheCounters(long hits, long misses) throws Exception {
+        ObjectName metrics = new ObjectName("com.dataart.edu.server:type=ServerMetrics");
+        Assert.assertEquals(hits, ManagementFactory.getPlatformMBeanServer().getAttribute(metrics, "ResponseCacheHits"));
+        Assert.assertEquals(misses, ManagementFactory.getPlatformMBeanServer().getAttribute(metrics, "ResponseCacheMisses"));
+    }
+}
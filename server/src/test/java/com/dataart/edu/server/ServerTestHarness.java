@@ -0,0 +1,108 @@
+package com.dataart.edu.server;
+
+import com.dataart.edu.client.Client;
+import com.dataart.edu.message.codec.MessageCodec;
+import com.dataart.edu.message.codec.MessageCodecs;
+import com.dataart.edu.message.dto.request.BaseClientRequestDto;
+import com.dataart.edu.message.dto.request.ClientAction;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.Assert;
+
+/**
+ * Starting and stopping of server in separate thread for load tests.
+ *
+ * @author alitvinov
+ */
+final class ServerTestHarness {
+
+    static final String TEST_HOST = "localhost";
+
+    private static final int SERVER_START_TIMEOUT_MILLIS = 10000;
+
+    private ServerTestHarness() {
+    }
+
+    /**
+     * Get clean data directory of test in directory of test classes.
+     *
+     * @param dataName name of directory.
+     * @return absolute path of directory without data files.
+     */
+    static String getTestDataDirectory(String dataName) throws URISyntaxException, IOException {
+        String dir = Paths.get(ServerTestHarness.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toFile().getAbsolutePath()
+                + File.separator + dataName;
+        for (String fileName : new String[]{"birds", "sights"}) {
+            Path file = Paths.get(dir + File.separator + fileName);
+            if (Files.exists(file)) {
+                Files.delete(file);
+            }
+        }
+        return dir;
+    }
+
+    /**
+     * Start server in separate thread and wait, until it accepts
+     * connections.
+     *
+     * @param port port of server.
+     * @param dataName name of data directory.
+     * @param extraArgs other arguments of server.
+     * @return thread of server.
+     */
+    static Thread startServer(int port, String dataName, String... extraArgs) throws URISyntaxException, IOException, InterruptedException {
+        String[] args = Stream.concat(Stream.of("-port", String.valueOf(port), "-data", getTestDataDirectory(dataName)),
+                Arrays.stream(extraArgs)).toArray(String[]::new);
+        Thread serverThread = new Thread(() -> ServerApplication.main(args));
+        serverThread.start();
+        waitUntilServerStarts(port);
+        return serverThread;
+    }
+
+    private static void waitUntilServerStarts(int port) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + SERVER_START_TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            try (SocketChannel probe = SocketChannel.open(new InetSocketAddress(TEST_HOST, port))) {
+                return;
+            } catch (IOException notStartedYet) {
+                Thread.sleep(100);
+            }
+        }
+        Assert.fail("Server was not started on port " + port);
+    }
+
+    /**
+     * Send QUIT to server and wait for its thread.
+     *
+     * @param port port of server.
+     * @param serverThread thread of server.
+     */
+    static void stopServer(int port, Thread serverThread) throws IOException, InterruptedException {
+        stopServer(port, serverThread, MessageCodecs.defaultCodec());
+    }
+
+    /**
+     * Send QUIT to server, which uses codec, and wait for its thread.
+     *
+     * @param port port of server.
+     * @param serverThread thread of server.
+     * @param codec codec of server.
+     */
+    static void stopServer(int port, Thread serverThread, MessageCodec codec) throws IOException, InterruptedException {
+        try (Client client = new Client(port, TEST_HOST)) {
+            client.setCodec(codec);
+            client.connectToServer();
+            client.execute(new BaseClientRequestDto(ClientAction.QUIT));
+        }
+        serverThread.join(TimeUnit.SECONDS.toMillis(30));
+    }
+}
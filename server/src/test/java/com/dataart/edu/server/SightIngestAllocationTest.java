@@ -0,0 +1,97 @@
+package com.dataart.edu.server;
+
+import com.dataart.edu.client.Client;
+import com.dataart.edu.message.codec.BinaryMessageCodec;
+import com.dataart.edu.message.codec.KryoMessageCodec;
+import com.dataart.edu.message.codec.MessageCodec;
+import com.dataart.edu.message.dto.request.AddBirdRequestDto;
+import com.dataart.edu.message.dto.request.ClientAction;
+import com.dataart.edu.message.dto.request.SightingRequestDto;
+import java.lang.management.ManagementFactory;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Integration test, which measures memory, allocated by server for every
+ * ADD_SIGHT request: reading of frame, wrapSighting or decoding, creation of
+ * sighting, processSight, addSight and writing of response. Requests are
+ * executed inline, so the whole path runs in the only reactor thread, which
+ * allocation is measured.
+ * <p>
+ * Measured bytes include objects, which are kept by DAO, and garbage of the
+ * rest of the path, which are the same for view and decoding. So view path is
+ * not zero garbage: it only avoids request object and buffers of decoding,
+ * which is checked as difference of both paths.
+ *
+ * @author alitvinov
+ */
+public class SightIngestAllocationTest {
+
+    private static final int BASE_TEST_PORT = 9920;
+
+    private static final int WARM_UP_REQUESTS = 5000;
+
+    private static final int MEASURED_REQUESTS = 5000;
+
+    /**
+     * Upper bound of allocation per request through view, about 10% above
+     * measured 810 bytes. It includes objects, which are kept by DAO:
+     * sighting, its two strings and nodes of sets and index.
+     */
+    private static final long MAX_VIEW_BYTES_PER_REQUEST = 900;
+    /**
+     * Lower bound of bytes per request, which view saves against decoding,
+     * measured about 165 bytes.
+     */
+    private static final long MIN_SAVED_BYTES_PER_REQUEST = 120;
+
+    @Test
+    public void testAllocationPerSight() throws Exception {
+        long viewBytes = measureBytesPerSight(BASE_TEST_PORT, new BinaryMessageCodec());
+        long decodeBytes = measureBytesPerSight(BASE_TEST_PORT + 1, new KryoMessageCodec());
+        String report = String.format("view: %d bytes per request, decode: %d bytes per request", viewBytes, decodeBytes);
+        Assert.assertTrue(report, viewBytes < MAX_VIEW_BYTES_PER_REQUEST);
+        Assert.assertTrue(report, decodeBytes - viewBytes >= MIN_SAVED_BYTES_PER_REQUEST);
+    }
+
+    private long measureBytesPerSight(int port, MessageCodec codec) throws Exception {
+        com.sun.management.ThreadMXBean threadBean = threadBean();
+        Thread serverThread = ServerTestHarness.startServer(port, "ingestdata" + codec.getName(), "-codec", codec.getName(),
+                "-io_threads", "1", "-inline_actions", "ADD_SIGHT");
+        try (Client client = new Client(port, ServerTestHarness.TEST_HOST)) {
+            client.setCodec(codec);
+            client.connectToServer();
+            Assert.assertTrue(client.execute(new AddBirdRequestDto(ClientAction.ADD, "Сойка", "color", 1.0, 2.0)).isSuccess());
+            long reactorThreadId = reactorThreadId();
+            addSights(client, 0, WARM_UP_REQUESTS);
+            long before = threadBean.getThreadAllocatedBytes(reactorThreadId);
+            addSights(client, WARM_UP_REQUESTS, MEASURED_REQUESTS);
+            return (threadBean.getThreadAllocatedBytes(reactorThreadId) - before) / MEASURED_REQUESTS;
+        } finally {
+            ServerTestHarness.stopServer(port, serverThread, codec);
+        }
+    }
+
+    private void addSights(Client client, int from, int count) throws Exception {
+        for (int i = from; i < from + count; i++) {
+            SightingRequestDto request = new SightingRequestDto(ClientAction.ADD_SIGHT, "Сойка", "river bank " + i % 10, 1505001600000L + i);
+            Assert.assertTrue(client.execute(request).isSuccess());
+        }
+    }
+
+    private static long reactorThreadId() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("io-reactor-0"))
+                .mapToLong(Thread::getId)
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Reactor thread is not found."));
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+        return threadBean;
+    }
+}
@@ -2,9 +2,20 @@ package com.dataart.edu.server.dao;
 
 import com.dataart.edu.message.dto.BirdDto;
 import com.dataart.edu.message.dto.BirdSightDto;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 import org.joda.time.format.DateTimeFormatterBuilder;
@@ -150,4 +161,393 @@ public class BirdAndSightDaoImplTest {
         assertTrue(expectedResult.isEmpty());
     }
     
+    /**
+     * Pages of birds and sightings, read by cursor, must give the same rows
+     * in the same order as full result.
+     */
+    @Test
+    public void testFindPages() {
+        System.out.println("findPages");
+        long date = FORMATTER.parseMillis("2017-09-01");
+        for (String name : new String[]{"owl", "crow", "eagle", "swan", "duck"}) {
+            dao.addBird(new BirdDto(name, "color", 1, 1));
+            dao.addSight(new BirdSightDto(name, "lake", date + 1));
+            dao.addSight(new BirdSightDto(name, "forest", date));
+            dao.addSight(new BirdSightDto(name, "field", date + 1));
+        }
+        List<BirdDto> birdPages = new ArrayList<>();
+        List<BirdDto> birdPage = dao.findAllBirds(null, 2);
+        while (!birdPage.isEmpty()) {
+            birdPages.addAll(birdPage);
+            birdPage = dao.findAllBirds(birdPage.get(birdPage.size() - 1).getName(), 2);
+        }
+        assertEquals(dao.findAllBirds(), birdPages);
+        assertEquals("crow", birdPages.get(0).getName());
+
+        BirdSightDto elementToFind = new BirdSightDto("(?!swan).*", null, date, date + 1);
+        List<BirdSightDto> sightPages = new ArrayList<>();
+        List<BirdSightDto> sightPage = dao.findSight(elementToFind, null, 4);
+        while (!sightPage.isEmpty()) {
+            sightPages.addAll(sightPage);
+            sightPage = dao.findSight(elementToFind, sightPage.get(sightPage.size() - 1), 4);
+        }
+        assertEquals(12, sightPages.size());
+        assertEquals(dao.findSight(elementToFind), sightPages);
+        assertEquals(Arrays.asList("forest", "field", "lake"), Arrays.asList(sightPages.get(0).getLocation(),
+                sightPages.get(1).getLocation(), sightPages.get(2).getLocation()));
+    }
+
+    /**
+     * Sightings in range of dates must be the same, as found by filter of all
+     * sightings, including bounds of range, and must be sorted by date.
+     */
+    @Test
+    public void testFindSightRange() {
+        System.out.println("findSightRange");
+        Random random = new Random(17);
+        List<BirdSightDto> all = new ArrayList<>();
+        for (String name : new String[]{"owl", "crow"}) {
+            dao.addBird(new BirdDto(name, "color", 1, 1));
+            for (int i = 0; i < 500; i++) {
+                BirdSightDto sight = new BirdSightDto(name, "location" + random.nextInt(3), random.nextInt(1000));
+                if (!all.contains(sight)) {
+                    dao.addSight(sight);
+                    all.add(sight);
+                }
+            }
+        }
+        long[][] ranges = {{100, 200}, {0, 0}, {999, Long.MAX_VALUE}, {Long.MIN_VALUE, 10}, {500, 400}, {-5, -1}};
+        for (long[] range : ranges) {
+            List<BirdSightDto> expected = all.stream()
+                    .filter(sight -> sight.getStart() >= range[0] && sight.getStart() <= range[1])
+                    .sorted(Comparator.comparing(BirdSightDto::getName).thenComparingLong(BirdSightDto::getStart)
+                            .thenComparing(BirdSightDto::getLocation))
+                    .collect(Collectors.toList());
+            BirdSightDto elementToFind = new BirdSightDto(".*", null, range[0], range[1]);
+            assertEquals(expected, dao.findSight(elementToFind));
+            List<BirdSightDto> pages = new ArrayList<>();
+            List<BirdSightDto> page = dao.findSight(elementToFind, null, 7);
+            while (!page.isEmpty()) {
+                pages.addAll(page);
+                page = dao.findSight(elementToFind, page.get(page.size() - 1), 7);
+            }
+            assertEquals(expected, pages);
+        }
+    }
+
+    /**
+     * Literal names, patterns with literal prefix and other patterns must
+     * find the same birds, as matching of every name, and pages of them must
+     * not depend on narrowed range of names.
+     */
+    @Test
+    public void testFindSightNamePatterns() {
+        System.out.println("findSightNamePatterns");
+        long date = FORMATTER.parseMillis("2017-09-01");
+        List<String> names = Arrays.asList("owl", "owlet", "ow", "o", "crow", "crane", "a.b", "axb", "sw\uffffan",
+                "sw\uffff", "sx", "\ud83d\udc26", "\ud83d\udc26\ud83d\udc26", "");
+        for (String name : names) {
+            dao.addBird(new BirdDto(name, "color", 1, 1));
+            dao.addSight(new BirdSightDto(name, "lake", date));
+            dao.addSight(new BirdSightDto(name, "field", date));
+        }
+        String[] patterns = {"owl", "ow.*", "owl?", "owl*et", "o+", "ow|crow", "cr(ow|ane)", "a\\.b", "a.b",
+            "a\\.*b", "sw\uffff.*", "s.*", "\ud83d\udc26*", "\ud83d\udc26+", "", ".*", "(?i)OWL", "[oc]row",
+            "eagle", "o\\w+", "owl{0,1}"};
+        for (String regex : patterns) {
+            List<String> expected = names.stream().filter(name -> name.matches(regex)).sorted()
+                    .collect(Collectors.toList());
+            BirdSightDto elementToFind = new BirdSightDto(regex, null, date, date);
+            List<BirdSightDto> found = dao.findSight(elementToFind);
+            assertEquals(regex, expected, found.stream().map(BirdSightDto::getName).distinct()
+                    .collect(Collectors.toList()));
+            assertEquals(regex, expected.size() * 2, found.size());
+            List<BirdSightDto> pages = new ArrayList<>();
+            List<BirdSightDto> page = dao.findSight(elementToFind, null, 1);
+            while (!page.isEmpty()) {
+                pages.addAll(page);
+                page = dao.findSight(elementToFind, page.get(page.size() - 1), 1);
+            }
+            assertEquals(regex, found, pages);
+        }
+        //cursor from other range of names.
+        assertTrue(dao.findSight(new BirdSightDto("ow.*", null, date, date), new BirdSightDto("sx", "lake", date), 10).isEmpty());
+        assertTrue(dao.findSight(new BirdSightDto("crow", null, date, date), new BirdSightDto("owl", "lake", date), 10).isEmpty());
+        assertEquals(2, dao.findSight(new BirdSightDto("owl", null, date, date), new BirdSightDto("crow", "lake", date), 10).size());
+        try {
+            dao.findSight(new BirdSightDto("ow(", null, date, date));
+            fail("Invalid pattern is found.");
+        } catch (PatternSyntaxException e) {
+            assertEquals("ow(", e.getPattern());
+        }
+    }
+
+    /**
+     * Sightings found by location, with and without range of dates and by
+     * pages, must be the same, as found by filter of all sightings, while
+     * sightings are added and birds are removed.
+     */
+    @Test
+    public void testFindSightLocation() {
+        System.out.println("findSightLocation");
+        Random random = new Random(23);
+        List<BirdSightDto> all = new ArrayList<>();
+        String[] names = {"owl", "owlet", "crow", "crane", "swan", "duck"};
+        for (int round = 0; round < 20; round++) {
+            for (String name : names) {
+                if (dao.findAllBirds().stream().noneMatch(bird -> bird.getName().equals(name))) {
+                    dao.addBird(new BirdDto(name, "color", 1, 1));
+                }
+            }
+            for (int i = 0; i < 50; i++) {
+                String location = random.nextInt(10) == 0 ? null : "location" + random.nextInt(4);
+                BirdSightDto sight = new BirdSightDto(names[random.nextInt(names.length)], location, random.nextInt(100));
+                if (!all.contains(sight)) {
+                    dao.addSight(sight);
+                    all.add(sight);
+                }
+            }
+            String removed = names[random.nextInt(names.length)];
+            dao.removeBird(removed);
+            all.removeIf(sight -> sight.getName().equals(removed));
+            for (int query = 0; query < 20; query++) {
+                String regex = new String[]{".*", "owl.*", "crow", "cr.*", "(?!swan).*"}[random.nextInt(5)];
+                String location = random.nextInt(5) == 0 ? null : "location" + random.nextInt(5);
+                long start = random.nextBoolean() ? Long.MIN_VALUE : random.nextInt(100);
+                long end = random.nextBoolean() ? Long.MAX_VALUE : start + random.nextInt(50);
+                List<BirdSightDto> expected = all.stream()
+                        .filter(sight -> sight.getName().matches(regex))
+                        .filter(sight -> location == null || location.equals(sight.getLocation()))
+                        .filter(sight -> sight.getStart() >= start && sight.getStart() <= end)
+                        .sorted(Comparator.comparing(BirdSightDto::getName).thenComparingLong(BirdSightDto::getStart)
+                                .thenComparing(BirdSightDto::getLocation, Comparator.nullsFirst(Comparator.naturalOrder())))
+                        .collect(Collectors.toList());
+                BirdSightDto elementToFind = new BirdSightDto(regex, location, start, end);
+                assertEquals(expected, dao.findSight(elementToFind));
+                List<BirdSightDto> pages = new ArrayList<>();
+                List<BirdSightDto> page = dao.findSight(elementToFind, null, 3);
+                while (!page.isEmpty()) {
+                    pages.addAll(page);
+                    page = dao.findSight(elementToFind, page.get(page.size() - 1), 3);
+                }
+                assertEquals(expected, pages);
+            }
+        }
+    }
+
+    /**
+     * Index of locations, which is changed by concurrent adds of sightings
+     * and removes and adds of birds, must give the same sightings, as filter
+     * of all stored sightings.
+     */
+    @Test
+    public void testFindSightLocationConcurrent() throws Exception {
+        System.out.println("findSightLocationConcurrent");
+        String[] names = {"owl", "crow", "swan"};
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 200; round++) {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> writers = new ArrayList<>();
+                for (int writer = 0; writer < 4; writer++) {
+                    long seed = round * 4 + writer;
+                    boolean birdWriter = writer == 0;
+                    writers.add(executor.submit(() -> {
+                        Random random = new Random(seed);
+                        start.await();
+                        for (int i = 0; i < 200; i++) {
+                            String name = names[random.nextInt(names.length)];
+                            try {
+                                if (!birdWriter) {
+                                    dao.addSight(new BirdSightDto(name, "location" + random.nextInt(4), random.nextInt(200)));
+                                } else if (random.nextBoolean()) {
+                                    dao.removeBird(name);
+                                } else {
+                                    dao.addBird(new BirdDto(name, "color", 1, 1));
+                                }
+                            } catch (IllegalArgumentException e) {
+                                //bird is absent or already exists, sighting already exists.
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> writer : writers) {
+                    writer.get();
+                }
+                List<BirdSightDto> all = dao.findSight(new BirdSightDto(".*", null, Long.MIN_VALUE, Long.MAX_VALUE));
+                List<String> birds = dao.findAllBirds().stream().map(BirdDto::getName).collect(Collectors.toList());
+                assertTrue(all.stream().allMatch(sight -> birds.contains(sight.getName())));
+                Random random = new Random(round);
+                for (int query = 0; query < 5; query++) {
+                    String regex = new String[]{".*", "owl.*", "crow", "(?!swan).*"}[random.nextInt(4)];
+                    String location = "location" + random.nextInt(5);
+                    long from = random.nextBoolean() ? Long.MIN_VALUE : random.nextInt(200);
+                    long to = random.nextBoolean() ? Long.MAX_VALUE : from + random.nextInt(100);
+                    List<BirdSightDto> expected = all.stream()
+                            .filter(sight -> sight.getName().matches(regex))
+                            .filter(sight -> location.equals(sight.getLocation()))
+                            .filter(sight -> sight.getStart() >= from && sight.getStart() <= to)
+                            .collect(Collectors.toList());
+                    assertEquals(expected, dao.findSight(new BirdSightDto(regex, location, from, to)));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Parallel search must give the same sightings in the same order, as
+     * sequential search, including pages and limits, which end inside of
+     * segment. Search of one bird must not use pool.
+     */
+    @Test
+    public void testFindSightParallel() {
+        System.out.println("findSightParallel");
+        Random random = new Random(31);
+        BirdAndSightDaoImpl sequentialDao = new BirdAndSightDaoImpl();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        dao.setParallelQuery(pool, 10);
+        try {
+            //small query is not executed in pool.
+            dao.addBird(new BirdDto("owl", "color", 1, 1));
+            for (int i = 0; i < 100; i++) {
+                dao.addSight(new BirdSightDto("owl", "lake", i));
+            }
+            assertEquals(100, dao.findSight(new BirdSightDto("owl", null, 0, 100)).size());
+            assertEquals(0, pool.getPoolSize());
+            dao.removeBird("owl");
+            for (int i = 0; i < 200; i++) {
+                BirdDto bird = new BirdDto("bird" + random.nextInt(1000), "color", 1, 1);
+                if (sequentialDao.findAllBirds().stream().noneMatch(added -> added.getName().equals(bird.getName()))) {
+                    dao.addBird(bird);
+                    sequentialDao.addBird(new BirdDto(bird.getName(), "color", 1, 1));
+                }
+                for (int j = random.nextInt(20); j > 0; j--) {
+                    BirdSightDto sight = new BirdSightDto(bird.getName(), "location" + random.nextInt(3), random.nextInt(100));
+                    if (sequentialDao.findSightings(bird.getName()) == null || !sequentialDao.findSightings(bird.getName()).contains(sight)) {
+                        dao.addSight(sight);
+                        sequentialDao.addSight(sight);
+                    }
+                }
+            }
+            for (String regex : new String[]{".*", "bird1.*", "bird[0-4].*", "none"}) {
+                for (String location : new String[]{null, "location1"}) {
+                    BirdSightDto elementToFind = new BirdSightDto(regex, location, 10, 80);
+                    List<BirdSightDto> expected = sequentialDao.findSight(elementToFind);
+                    assertEquals(expected, dao.findSight(elementToFind));
+                    if (expected.size() > 30) {
+                        assertEquals(expected.subList(0, 30), dao.findSight(elementToFind, null, 30));
+                        assertEquals(expected.subList(21, expected.size()), dao.findSight(elementToFind, expected.get(20), Integer.MAX_VALUE));
+                    }
+                    if (expected.size() > 100) {
+                        assertTrue(pool.getPoolSize() > 0);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Sightings, which are added concurrently with remove of their bird, must
+     * be either rejected or removed with bird, they must never outlive it.
+     */
+    @Test
+    public void testConcurrentAddSightAndRemoveBird() throws Exception {
+        System.out.println("concurrentAddSightAndRemoveBird");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 500; round++) {
+                dao.addBird(new BirdDto("owl", "color", 1, 1));
+                CountDownLatch start = new CountDownLatch(1);
+                Future<?> adding = executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 200; i++) {
+                        try {
+                            dao.addSight(new BirdSightDto("owl", "location" + (i % 3), i));
+                        } catch (IllegalArgumentException birdIsRemoved) {
+                            break;
+                        }
+                    }
+                    return null;
+                });
+                Future<?> removing = executor.submit(() -> {
+                    start.await();
+                    dao.removeBird("owl");
+                    return null;
+                });
+                start.countDown();
+                adding.get();
+                removing.get();
+                assertNull(dao.findSightings("owl"));
+                assertTrue(dao.findSight(new BirdSightDto(".*", null, Long.MIN_VALUE, Long.MAX_VALUE)).isEmpty());
+                assertTrue(dao.findSight(new BirdSightDto(".*", "location1", Long.MIN_VALUE, Long.MAX_VALUE)).isEmpty());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Items of batch must be added independently, and error must be returned
+     * for every item, which was not added.
+     */
+    @Test
+    public void testAddBatch() {
+        System.out.println("addBatch");
+        long date = FORMATTER.parseMillis("2017-09-01");
+        List<String> birdErrors = dao.addBirds(Arrays.asList(new BirdDto("owl", "color", 1, 1),
+                new BirdDto("owl", "color", 1, 1), new BirdDto("crow", "color", 1, 1)));
+        assertNull(birdErrors.get(0));
+        assertNotNull(birdErrors.get(1));
+        assertNull(birdErrors.get(2));
+        assertEquals(2, dao.findAllBirds().size());
+        List<String> sightErrors = dao.addSights(Arrays.asList(new BirdSightDto("owl", "lake", date),
+                new BirdSightDto("swan", "lake", date), new BirdSightDto("owl", "lake", date),
+                new BirdSightDto("crow", "lake", date)));
+        assertEquals(Arrays.asList(null, "bird not found", "bird sight with such location, date and time already exists", null), sightErrors);
+        assertEquals(2, dao.findSight(new BirdSightDto(".*", null, date, date)).size());
+        assertTrue(dao.addSights(Collections.emptyList()).isEmpty());
+    }
+
+    /**
+     * Changes since known version must contain only added and removed birds,
+     * and all birds must be returned, if changes are not kept anymore.
+     */
+    @Test
+    public void testFindBirdChanges() {
+        System.out.println("findBirdChanges");
+        dao.setChangeLogSize(3);
+        dao.addBird(new BirdDto("owl", "color", 1, 1));
+        dao.addBird(new BirdDto("crow", "color", 1, 1));
+        BirdChanges full = dao.findBirdChanges(-1);
+        assertTrue(full.isFull());
+        assertEquals(dao.findAllBirds(), full.getBirds());
+        assertEquals(dao.getBirdsVersion(), full.getVersion());
+
+        dao.addBird(new BirdDto("swan", "color", 1, 1));
+        dao.removeBird("owl");
+        BirdChanges delta = dao.findBirdChanges(full.getVersion());
+        assertFalse(delta.isFull());
+        assertEquals(Collections.singletonList("swan"), delta.getBirds().stream().map(BirdDto::getName).collect(Collectors.toList()));
+        assertEquals(Collections.singletonList("owl"), delta.getRemovedNames());
+        //bird, which was added and removed since version, is only removed.
+        dao.addBird(new BirdDto("duck", "color", 1, 1));
+        dao.removeBird("duck");
+        delta = dao.findBirdChanges(delta.getVersion());
+        assertTrue(delta.getBirds().isEmpty());
+        assertEquals(Collections.singletonList("duck"), delta.getRemovedNames());
+        assertTrue(dao.findBirdChanges(delta.getVersion()).getRemovedNames().isEmpty());
+        //changes since the first version are dropped from log of 3 changes.
+        full = dao.findBirdChanges(1);
+        assertTrue(full.isFull());
+        assertEquals(Arrays.asList("crow", "swan"), full.getBirds().stream().map(BirdDto::getName).collect(Collectors.toList()));
+        //version from future is unknown too.
+        assertTrue(dao.findBirdChanges(dao.getBirdsVersion() + 1).isFull());
+    }
+
 }